@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixtures shared by benchmarks: they run offline, without Redis or a model.
+ */
+final class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Load the app configuration from <code>application.yaml</code>.
+     *
+     * @param properties properties overriding the configuration
+     */
+    static AppConfig loadConfig(Map<String, Object> properties) {
+        final var env = new StandardEnvironment();
+        try {
+            for (final var source : new YamlPropertySourceLoader().load("application",
+                    new ClassPathResource("application.yaml"))) {
+                env.getPropertySources().addLast(source);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        env.getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        return new Binder(ConfigurationPropertySources.get(env)).bind("app", AppConfig.class).get();
+    }
+
+    /**
+     * Create a resume with the given number of positions.
+     */
+    static String createResume(int positions) {
+        final var sb = new StringBuilder("""
+                John Doe
+                Senior Software Engineer - Paris, France
+                john.doe@example.com - https://github.com/johndoe
+
+                Experience
+                """);
+        for (int i = 0; i < positions; ++i) {
+            final int year = 2025 - 2 * i;
+            sb.append("\nCompany ").append(i).append(" - Software Engineer (").append(year - 2).append(" - ")
+                    .append(year).append(")\n")
+                    .append("Built distributed services with Java, Spring Boot and Kubernetes for project ").append(i)
+                    .append(", improving latency and reliability for thousands of users.\n");
+        }
+        sb.append("""
+
+                Education
+                Master's degree in Computer Science (2005)
+
+                Languages
+                French (native), English (fluent)
+                """);
+        return sb.toString();
+    }
+
+    /**
+     * Create the messages of a conversation, as stored in Redis.
+     */
+    static List<String> createMessages(int turns) {
+        final var messages = new ArrayList<String>(2 * turns);
+        for (int i = 0; i < turns; ++i) {
+            messages.add("Q: What did you do at company " + i + "?");
+            messages.add("A: At **Company " + i + "**, I built distributed services with Java and Spring Boot.");
+        }
+        return messages;
+    }
+
+    /**
+     * Create a message service returning a fixed conversation, without Redis.
+     */
+    static MessageService createMessageService(AppConfig config, ConversationHistory history) {
+        final var beanFactory = new DefaultListableBeanFactory();
+        final var store = new RedisConversationStore(new StringRedisTemplate());
+        return new MessageService(store, config, new MessageCodec(config),
+                beanFactory.getBeanProvider(ConversationNearCache.class),
+                beanFactory.getBeanProvider(HistoryWriteBehind.class)) {
+            @Override
+            ConversationHistory readHistory(String conversationId) {
+                return history;
+            }
+        };
+    }
+}
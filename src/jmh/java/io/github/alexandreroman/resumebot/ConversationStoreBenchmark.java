@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks comparing conversation stores, with conversations of a fixed length.
+ * <p>
+ * Only the in-memory store is measured by default, so that benchmarks run without Redis:
+ * use <code>-p store=memory,redis</code> to compare it with a Redis server on <code>localhost:6379</code>
+ * (use <code>-Dredis.host</code> and <code>-Dredis.port</code> to change it).
+ * Use <code>-t</code> to run with several threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversationStoreBenchmark {
+    private static final int CONVERSATIONS = 1000;
+
+    @Param({"memory"})
+    String store;
+
+    @Param({"10", "50"})
+    int turns;
+
+    private ConversationStore conversationStore;
+    private LettuceConnectionFactory connectionFactory;
+    private List<byte[]> exchange;
+    private int maxMessages;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final var config = BenchmarkSupport.loadConfig(Map.of("app.history.storage-format", "compact"));
+        conversationStore = switch (store) {
+            case "memory" -> new InMemoryConversationStore(config.memoryStore(), new SimpleMeterRegistry(),
+                    Ticker.systemTicker());
+            case "redis" -> {
+                connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(
+                        System.getProperty("redis.host", "localhost"),
+                        Integer.getInteger("redis.port", 6379)));
+                connectionFactory.afterPropertiesSet();
+                connectionFactory.start();
+                final var redis = new StringRedisTemplate(connectionFactory);
+                yield new RedisConversationStore(redis);
+            }
+            default -> throw new IllegalArgumentException("Unknown store: " + store);
+        };
+
+        final var codec = new MessageCodec(config);
+        final var messages = new ArrayList<byte[]>(2 * turns);
+        for (final var message : BenchmarkSupport.createMessages(turns)) {
+            messages.add(codec.encode(message.startsWith("Q: ") ? MessageType.USER : MessageType.ASSISTANT,
+                    message.substring(3)));
+        }
+        exchange = messages.subList(messages.size() - 2, messages.size());
+        // Conversations are kept at the same length: each exchange replaces the oldest one.
+        maxMessages = messages.size();
+        for (int i = 0; i < CONVERSATIONS; ++i) {
+            final var cid = getConversationId(i);
+            conversationStore.removeOldestMessages(cid, Integer.MAX_VALUE);
+            conversationStore.append(cid, messages, maxMessages);
+            conversationStore.setSummary(cid, "The user asked about my experience.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+
+    @Benchmark
+    public long append() {
+        return conversationStore.append(nextConversationId(), exchange, maxMessages);
+    }
+
+    @Benchmark
+    public ConversationStore.StoredConversation read() {
+        return conversationStore.read(nextConversationId());
+    }
+
+    private static String nextConversationId() {
+        return getConversationId(ThreadLocalRandom.current().nextInt(CONVERSATIONS));
+    }
+
+    private static String getConversationId(int i) {
+        return "benchmark-" + i;
+    }
+}
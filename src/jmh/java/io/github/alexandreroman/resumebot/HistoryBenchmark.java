@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading conversation histories, from the messages stored in Redis
+ * to the messages included in prompts: Redis is replaced with a fixed conversation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+    @Param({"1", "10", "100", "500"})
+    int turns;
+
+    private HistoryService historyService;
+    private ConversationHistory history;
+
+    @Setup
+    public void setup() {
+        final var config = BenchmarkSupport.loadConfig(Map.of("app.history.max-messages", "1000"));
+        history = new ConversationHistory("The user asked about my experience.", BenchmarkSupport.createMessages(turns));
+        historyService = new HistoryService(BenchmarkSupport.createMessageService(config, history), null, config);
+    }
+
+    @Benchmark
+    public ConversationHistory getHistory() {
+        return historyService.getHistory("benchmark");
+    }
+
+    @Benchmark
+    public List<Message> toMessages() {
+        return history.toMessages();
+    }
+}
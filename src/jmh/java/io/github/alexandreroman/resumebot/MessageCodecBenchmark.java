@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.ai.chat.messages.MessageType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encoding and decoding the messages stored in conversation histories,
+ * using the legacy (plain strings) and compact formats.
+ * The size of a stored conversation is printed for each format when the benchmark starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+    @Param({"legacy", "compact"})
+    String format;
+
+    @Param({"10", "50"})
+    int turns;
+
+    private MessageCodec codec;
+    private List<MessageType> types;
+    private List<String> texts;
+    private List<byte[]> values;
+
+    @Setup
+    public void setup() {
+        codec = new MessageCodec("compact".equals(format), 256);
+        types = new ArrayList<>(2 * turns);
+        texts = new ArrayList<>(2 * turns);
+        for (int i = 0; i < turns; ++i) {
+            types.add(MessageType.USER);
+            texts.add("What did you do at company " + i + "? Which technologies did you use there?");
+            types.add(MessageType.ASSISTANT);
+            texts.add(createAnswer(i));
+        }
+        values = new ArrayList<>(texts.size());
+        long size = 0;
+        for (int i = 0; i < texts.size(); ++i) {
+            final var value = codec.encode(types.get(i), texts.get(i));
+            values.add(value);
+            size += value.length;
+        }
+        final long textSize = texts.stream().mapToLong(t -> t.getBytes(StandardCharsets.UTF_8).length).sum();
+        System.out.printf("%nStored conversation (format=%s, turns=%d): %d bytes (%d bytes of text)%n",
+                format, turns, size, textSize);
+    }
+
+    private static String createAnswer(int i) {
+        return """
+                At **Company %d**, I was a software engineer in the platform team:
+                - I built distributed services with **Java** and **Spring Boot**, deployed on **Kubernetes**.
+                - I improved the latency of the main API by caching responses with **Redis**.
+                - I set up observability with **OpenTelemetry**, **Prometheus** and **Grafana**.
+
+                You can find more details about these projects on my [GitHub profile](https://github.com/johndoe).
+                """.formatted(i);
+    }
+
+    @Benchmark
+    public void encodeConversation(Blackhole bh) {
+        for (int i = 0; i < texts.size(); ++i) {
+            bh.consume(codec.encode(types.get(i), texts.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void decodeConversation(Blackhole bh) {
+        for (final var value : values) {
+            bh.consume(codec.decode(value));
+        }
+    }
+}
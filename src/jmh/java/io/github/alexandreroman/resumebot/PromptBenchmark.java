@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for prompt assembly.
+ * <p>
+ * The template rendering benchmark measures how prompts used to be built, rendering the whole user prompt
+ * for each request: compare it with the assembly of pre-rendered messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBenchmark {
+    private static final String PROMPT = "How many years of experience do you have with Spring Boot?";
+
+    @Param({"10", "50"})
+    int positions;
+
+    @Param({"10"})
+    int turns;
+
+    private String resumeText;
+    private String conversation;
+    private String userPromptTemplate;
+    private ConversationHistory history;
+    private PromptFactory promptFactory;
+    private Resume resume;
+    private PromptFactory retrievalPromptFactory;
+    private Resume retrievalResume;
+
+    @Setup
+    public void setup() {
+        resumeText = BenchmarkSupport.createResume(positions);
+        final var messages = BenchmarkSupport.createMessages(turns);
+        history = new ConversationHistory(null, messages);
+        conversation = String.join("\n", messages);
+
+        final var config = BenchmarkSupport.loadConfig(Map.of());
+        userPromptTemplate = config.resumePrompt() + "\n<conversation>\n{conversation}\n</conversation>\n"
+                + config.userPrompt();
+        promptFactory = new PromptFactory(config);
+        resume = promptFactory.createResume("default", resumeText);
+
+        final var retrievalConfig = BenchmarkSupport.loadConfig(Map.of("app.retrieval.enabled", "true"));
+        retrievalPromptFactory = new PromptFactory(retrievalConfig);
+        retrievalResume = retrievalPromptFactory.createResume("default", resumeText);
+    }
+
+    @Benchmark
+    public String templateRendering() {
+        return PromptTemplate.builder().template(userPromptTemplate)
+                .variables(Map.of("resume", resumeText, "conversation", conversation, "prompt", PROMPT))
+                .build().render();
+    }
+
+    @Benchmark
+    public List<Message> prefixAssembly() {
+        return promptFactory.createMessages(resume, history, PROMPT);
+    }
+
+    @Benchmark
+    public List<Message> retrievalAssembly() {
+        return retrievalPromptFactory.createMessages(retrievalResume, history, PROMPT);
+    }
+
+    @Benchmark
+    public Resume resumePreparation() {
+        return retrievalPromptFactory.createResume("default", resumeText);
+    }
+}
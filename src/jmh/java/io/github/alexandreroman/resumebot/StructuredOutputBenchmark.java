@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.converter.BeanOutputConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the conversion of model responses, using a stub model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructuredOutputBenchmark {
+    private static final String JSON = """
+            {"answer":"I have **12 years** of experience with Java, including:\\n- 8 years with Spring Boot\\n- 4 years with Kubernetes\\n\\nSee my [GitHub profile](https://github.com/johndoe).","foundAnswer":true}""";
+
+    private BeanOutputConverter<ChatAnswer> converter;
+    private List<String> chunks;
+    private ChatClient chatClient;
+
+    @Setup
+    public void setup() {
+        converter = new BeanOutputConverter<>(ChatAnswer.class);
+        // Streamed responses are made of a few characters per chunk.
+        chunks = new ArrayList<>();
+        for (int i = 0; i < JSON.length(); i += 4) {
+            chunks.add(JSON.substring(i, Math.min(JSON.length(), i + 4)));
+        }
+        final ChatModel stubModel = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(JSON))));
+            }
+        };
+        chatClient = ChatClient.builder(stubModel).build();
+    }
+
+    @Benchmark
+    public ChatAnswer beanOutputConverter() {
+        return converter.convert(JSON);
+    }
+
+    @Benchmark
+    public String streamParser() {
+        final var parser = new AnswerStreamParser();
+        for (final var chunk : chunks) {
+            parser.feed(chunk);
+        }
+        return parser.answer();
+    }
+
+    @Benchmark
+    public ChatAnswer chatClientCall() {
+        return chatClient.prompt().user("How many years of experience do you have?")
+                .call().entity(ChatAnswer.class);
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test driving the chat endpoints with an open-model workload.
+ * <p>
+ * Requests are sent at a given arrival rate (Poisson arrivals), whether previous requests
+ * have completed or not: latencies are measured from the time each request was scheduled,
+ * so that they are not hidden by a slow system (coordinated omission).
+ * By default, this load test starts an OpenAI stub server and the app itself, so that it runs locally:
+ * Redis is expected to run on localhost, or to be started with Docker Compose.
+ * <p>
+ * Options are set with <code>--name=value</code> arguments:
+ * <ul>
+ *     <li><code>rate</code>: requests per second (default: 10)</li>
+ *     <li><code>duration</code>: duration of the measurement (default: 60s)</li>
+ *     <li><code>warmup</code>: duration of the warmup, whose requests are not measured (default: 10s)</li>
+ *     <li><code>followups</code>: ratio of requests continuing a conversation (default: 0.3)</li>
+ *     <li><code>stream</code>: ratio of requests using the streaming endpoint (default: 0)</li>
+ *     <li><code>timeout</code>: request timeout (default: 60s)</li>
+ *     <li><code>target</code>: URL of an app to test instead of starting one</li>
+ *     <li><code>stub-port</code>: port of the OpenAI stub server (default: random)</li>
+ *     <li><code>stub-latency</code>: latency distribution of the stub server (default: lognormal:800ms:0.5)</li>
+ *     <li><code>stub-chunk-delay</code>: delay between streamed chunks (default: 20ms)</li>
+ *     <li><code>stub-tool-calls</code>: ratio of model calls starting with a tool call (default: 0.2)</li>
+ *     <li><code>backup-stub-latency</code>: latency distribution of a second stub server used as the backup model,
+ *     enabling hedging (default: none)</li>
+ *     <li><code>output</code>: file where results are written as JSON (default: target/loadtest-result.json)</li>
+ * </ul>
+ * Other arguments are passed to the app, such as <code>--app.bulkhead.max-concurrent-calls=32</code>.
+ */
+public final class LoadTest {
+    private static final List<String> FIRST_PROMPTS = List.of(
+            "Where do you live?",
+            "How many years of experience do you have?",
+            "What is your current job?",
+            "Which programming languages do you know?",
+            "How can I contact you?",
+            "What did you study?");
+    private static final List<String> FOLLOWUP_PROMPTS = List.of(
+            "Can you tell me more?",
+            "What about Kubernetes?",
+            "Since when?",
+            "Which one do you prefer?");
+    private static final int MAX_CONVERSATIONS = 1000;
+
+    private final Map<String, String> options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(10), 3);
+    private final Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> conversations = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger conversationCount = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong errors = new AtomicLong();
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final var options = new HashMap<String, String>();
+        final var appArgs = new ArrayList<String>();
+        for (final var arg : args) {
+            final int i = arg.indexOf('=');
+            final var name = arg.startsWith("--") && i != -1 ? arg.substring(2, i) : null;
+            if (name != null && !name.contains(".")) {
+                options.put(name, arg.substring(i + 1));
+            } else {
+                appArgs.add(arg);
+            }
+        }
+
+        final var latency = OpenAiStubServer.LatencyDistribution.parse(
+                options.getOrDefault("stub-latency", "lognormal:800ms:0.5"));
+        try (final var stub = new OpenAiStubServer(Integer.parseInt(options.getOrDefault("stub-port", "0")), latency,
+                parseDuration(options.getOrDefault("stub-chunk-delay", "20ms")),
+                Double.parseDouble(options.getOrDefault("stub-tool-calls", "0.2")));
+             final var backupStub = options.containsKey("backup-stub-latency") ? new OpenAiStubServer(0,
+                     OpenAiStubServer.LatencyDistribution.parse(options.get("backup-stub-latency")),
+                     parseDuration(options.getOrDefault("stub-chunk-delay", "20ms")),
+                     Double.parseDouble(options.getOrDefault("stub-tool-calls", "0.2"))) : null) {
+            System.out.println("OpenAI stub server listening on " + stub.getBaseUrl());
+            if (backupStub != null) {
+                System.out.println("Backup OpenAI stub server listening on " + backupStub.getBaseUrl());
+            }
+
+            var target = options.get("target");
+            ConfigurableApplicationContext app = null;
+            if (target == null) {
+                appArgs.addAll(List.of("--spring.ai.openai.api-key=stub",
+                        "--spring.ai.openai.base-url=" + stub.getBaseUrl(),
+                        "--server.port=0", "--management.server.port=0",
+                        // Answers must not be served from the cache, so that the model is called.
+                        "--app.cache.enabled=false",
+                        // Every request is sent from the same client.
+                        "--app.rate-limit.enabled=false"));
+                if (backupStub != null) {
+                    appArgs.addAll(List.of("--app.hedging.enabled=true",
+                            "--app.hedging.backup.base-url=" + backupStub.getBaseUrl(),
+                            "--app.hedging.backup.api-key=stub"));
+                }
+                // Restarting the app would run this load test twice.
+                System.setProperty("spring.devtools.restart.enabled", "false");
+                app = new SpringApplicationBuilder(Application.class).run(appArgs.toArray(String[]::new));
+                target = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            }
+            try {
+                new LoadTest(options).run(target, stub, backupStub);
+            } finally {
+                if (app != null) {
+                    app.close();
+                }
+            }
+        }
+    }
+
+    private void run(String target, OpenAiStubServer stub, OpenAiStubServer backupStub) throws IOException, InterruptedException {
+        final double rate = Double.parseDouble(options.getOrDefault("rate", "10"));
+        final var duration = parseDuration(options.getOrDefault("duration", "60s"));
+        final var warmup = parseDuration(options.getOrDefault("warmup", "10s"));
+        final double followups = Double.parseDouble(options.getOrDefault("followups", "0.3"));
+        final double stream = Double.parseDouble(options.getOrDefault("stream", "0"));
+        final var timeout = parseDuration(options.getOrDefault("timeout", "60s"));
+        System.out.printf(Locale.ROOT, "Sending %.1f requests/s to %s for %s (warmup: %s)%n", rate, target, duration, warmup);
+
+        final long start = System.nanoTime();
+        final long measureStart = start + warmup.toNanos();
+        final long end = measureStart + duration.toNanos();
+        final var measured = new AtomicLong();
+        final var requests = new AtomicLong();
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long next = start;
+            while (next < end) {
+                final long scheduled = next;
+                final boolean measure = scheduled >= measureStart;
+                final var random = ThreadLocalRandom.current();
+                final boolean followup = random.nextDouble() < followups;
+                final boolean streaming = random.nextDouble() < stream;
+                requests.incrementAndGet();
+                executor.submit(() -> {
+                    inFlight.incrementAndGet();
+                    try {
+                        send(target, followup, streaming, timeout, scheduled, measure);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                    if (measure) {
+                        measured.incrementAndGet();
+                    }
+                });
+                // Poisson arrivals: inter-arrival times are exponentially distributed.
+                next += (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+                LockSupport.parkNanos(next - System.nanoTime());
+            }
+            System.out.printf("All requests sent, waiting for %d requests in flight%n", inFlight.get());
+        }
+        final double elapsed = (System.nanoTime() - measureStart) / 1e9;
+        report(requests.get(), measured.get(), elapsed, stub.getRequestCount(),
+                backupStub == null ? 0 : backupStub.getRequestCount());
+    }
+
+    private void send(String target, boolean followup, boolean streaming, Duration timeout,
+                      long scheduled, boolean measure) {
+        var conversationId = followup ? conversations.poll() : null;
+        final String prompt;
+        if (conversationId == null) {
+            conversationId = UUID.randomUUID().toString();
+            prompt = pick(FIRST_PROMPTS);
+        } else {
+            conversationCount.decrementAndGet();
+            prompt = pick(FOLLOWUP_PROMPTS);
+        }
+
+        final var body = "prompt=" + URLEncoder.encode(prompt, StandardCharsets.UTF_8)
+                + "&conversationId=" + conversationId;
+        final var request = HttpRequest.newBuilder(URI.create(target + (streaming ? "/chat/stream" : "/chat")))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .timeout(timeout)
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!measure) {
+            return;
+        }
+        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+        statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+        if (status != 200) {
+            errors.incrementAndGet();
+        } else if (conversationCount.get() < MAX_CONVERSATIONS) {
+            // Keep this conversation for a follow-up question.
+            conversationCount.incrementAndGet();
+            conversations.add(conversationId);
+        }
+    }
+
+    private void report(long requests, long measured, double elapsed, long modelCalls, long backupModelCalls)
+            throws IOException {
+        final double throughput = (measured - errors.get()) / elapsed;
+        final var results = new LinkedHashMap<String, Object>();
+        results.put("requests", requests);
+        results.put("measuredRequests", measured);
+        results.put("errors", errors.get());
+        results.put("throughput", throughput);
+        results.put("modelCalls", modelCalls);
+        results.put("backupModelCalls", backupModelCalls);
+        results.put("statuses", new TreeMap<>(statuses));
+        results.put("latencyMillis", Map.of(
+                "p50", percentile(50), "p90", percentile(90), "p99", percentile(99), "p999", percentile(99.9),
+                "max", latencies.getMaxValue() / 1000.0, "mean", latencies.getMean() / 1000.0));
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Requests:   %d sent, %d measured, %d errors%n", requests, measured, errors.get());
+        System.out.printf(Locale.ROOT, "Statuses:   %s%n", results.get("statuses"));
+        System.out.printf(Locale.ROOT, "Throughput: %.2f requests/s%n", throughput);
+        System.out.printf(Locale.ROOT, "Model calls (including warmup): %d (backup: %d)%n", modelCalls, backupModelCalls);
+        System.out.printf(Locale.ROOT, "Latency:    p50=%.1fms p90=%.1fms p99=%.1fms p999=%.1fms max=%.1fms%n",
+                percentile(50), percentile(90), percentile(99), percentile(99.9), latencies.getMaxValue() / 1000.0);
+
+        final var output = Path.of(options.getOrDefault("output", "target/loadtest-result.json"));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Files.writeString(output, JsonMapper.builder().build()
+                .writerWithDefaultPrettyPrinter().writeValueAsString(results));
+        System.out.println("Results written to " + output);
+    }
+
+    private double percentile(double p) {
+        return latencies.getValueAtPercentile(p) / 1000.0;
+    }
+
+    private static String pick(List<String> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+    static Duration parseDuration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stub server implementing the OpenAI chat completions API, used to run load tests locally.
+ * <p>
+ * Responses are delayed using a configurable latency distribution, and may be streamed.
+ * When tools are available, the stub may call a tool before answering, like a real model would do
+ * for questions about dates.
+ */
+final class OpenAiStubServer implements AutoCloseable {
+    private static final String ANSWER = """
+            {"answer":"I have **12 years** of experience as a software engineer, mostly with Java and Spring Boot.","foundAnswer":true}""";
+    private static final int CHUNK_SIZE = 5;
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private final HttpServer server;
+    private final LatencyDistribution latency;
+    private final Duration chunkDelay;
+    private final double toolCallRatio;
+    private final AtomicLong requests = new AtomicLong();
+
+    OpenAiStubServer(int port, LatencyDistribution latency, Duration chunkDelay, double toolCallRatio) throws IOException {
+        this.latency = latency;
+        this.chunkDelay = chunkDelay;
+        this.toolCallRatio = toolCallRatio;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/chat/completions", this::handle);
+        server.start();
+    }
+
+    String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    long getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            final var request = mapper.readTree(exchange.getRequestBody());
+            Thread.sleep(latency.next());
+
+            final boolean streaming = request.path("stream").asBoolean();
+            if (shouldCallTool(request)) {
+                final var message = mapper.createObjectNode().put("role", "assistant").putNull("content");
+                final var toolCall = message.putArray("tool_calls").addObject();
+                if (streaming) {
+                    toolCall.put("index", 0);
+                }
+                toolCall.put("id", "call_" + requests.get()).put("type", "function")
+                        .putObject("function").put("name", "getCurrentYear").put("arguments", "{}");
+                if (streaming) {
+                    startStream(exchange);
+                    sendEvent(exchange.getResponseBody(),
+                            completion(request, "chat.completion.chunk", "delta", message, "tool_calls", false));
+                    endStream(exchange.getResponseBody(), request);
+                } else {
+                    sendJson(exchange, completion(request, "chat.completion", "message", message, "tool_calls", true));
+                }
+            } else if (streaming) {
+                stream(exchange, request);
+            } else {
+                final var message = mapper.createObjectNode().put("role", "assistant").put("content", ANSWER);
+                sendJson(exchange, completion(request, "chat.completion", "message", message, "stop", true));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean shouldCallTool(JsonNode request) {
+        if (!request.path("tools").isArray() || request.path("tools").isEmpty()) {
+            return false;
+        }
+        for (final var m : request.path("messages")) {
+            if ("tool".equals(m.path("role").asString())) {
+                return false;
+            }
+        }
+        return ThreadLocalRandom.current().nextDouble() < toolCallRatio;
+    }
+
+    private void stream(HttpExchange exchange, JsonNode request) throws IOException, InterruptedException {
+        startStream(exchange);
+        final var out = exchange.getResponseBody();
+        for (int i = 0; i < ANSWER.length(); i += CHUNK_SIZE) {
+            final var delta = mapper.createObjectNode()
+                    .put("content", ANSWER.substring(i, Math.min(ANSWER.length(), i + CHUNK_SIZE)));
+            sendEvent(out, completion(request, "chat.completion.chunk", "delta", delta, null, false));
+            Thread.sleep(chunkDelay);
+        }
+        sendEvent(out, completion(request, "chat.completion.chunk", "delta", mapper.createObjectNode(), "stop", false));
+        endStream(out, request);
+    }
+
+    private void startStream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+    }
+
+    private void endStream(OutputStream out, JsonNode request) throws IOException {
+        if (request.path("stream_options").path("include_usage").asBoolean()) {
+            final var usage = completion(request, "chat.completion.chunk", null, null, null, true);
+            usage.putArray("choices");
+            sendEvent(out, usage);
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private ObjectNode completion(JsonNode request, String object, String messageField, ObjectNode message,
+                                  String finishReason, boolean withUsage) {
+        final var resp = mapper.createObjectNode()
+                .put("id", "stub-" + requests.get())
+                .put("object", object)
+                .put("created", System.currentTimeMillis() / 1000)
+                .put("model", request.path("model").asString("stub"));
+        if (message != null) {
+            final var choice = resp.putArray("choices").addObject().put("index", 0);
+            choice.set(messageField, message);
+            choice.put("finish_reason", finishReason);
+        }
+        if (withUsage) {
+            resp.putObject("usage").put("prompt_tokens", 1000).put("completion_tokens", 40).put("total_tokens", 1040)
+                    .putObject("prompt_tokens_details").put("cached_tokens", 896);
+        }
+        return resp;
+    }
+
+    private void sendJson(HttpExchange exchange, JsonNode body) throws IOException {
+        final var bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void sendEvent(OutputStream out, JsonNode body) throws IOException {
+        out.write(("data: " + mapper.writeValueAsString(body) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Distribution of response latencies.
+     * Supported formats are <code>fixed:500ms</code>, <code>uniform:200ms:2s</code>
+     * and <code>lognormal:800ms:0.5</code> (median and shape).
+     */
+    interface LatencyDistribution {
+        Duration next();
+
+        static LatencyDistribution parse(String spec) {
+            final var parts = List.of(spec.split(":"));
+            return switch (parts.getFirst()) {
+                case "fixed" -> {
+                    final var d = LoadTest.parseDuration(parts.get(1));
+                    yield () -> d;
+                }
+                case "uniform" -> {
+                    final long min = LoadTest.parseDuration(parts.get(1)).toNanos();
+                    final long max = LoadTest.parseDuration(parts.get(2)).toNanos();
+                    yield () -> Duration.ofNanos(ThreadLocalRandom.current().nextLong(min, max + 1));
+                }
+                case "lognormal" -> {
+                    final double median = LoadTest.parseDuration(parts.get(1)).toNanos();
+                    final double sigma = Double.parseDouble(parts.get(2));
+                    yield () -> Duration.ofNanos((long) (median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+                }
+                default -> throw new IllegalArgumentException("Unsupported latency distribution: " + spec);
+            };
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark measuring the cold start of the app, as seen by the first user on a scale-to-zero platform.
+ * <p>
+ * For each variant, the app is started several times in a new process: the benchmark measures the time
+ * until a first request to <code>/chat</code> succeeds, and the resident memory (RSS) of the process at that time.
+ * Supported variants are:
+ * <ul>
+ *     <li><code>jvm</code>: the app running on the JVM, from the extracted jar</li>
+ *     <li><code>aot</code>: the same, using an AOT cache created by a training run (see {@link TrainingRun}),
+ *     or a CDS archive before Java 25</li>
+ *     <li><code>native</code>: the native executable built with <code>./mvnw -Pnative native:compile</code>,
+ *     which is skipped if it is missing</li>
+ * </ul>
+ * The model is replaced by an OpenAI stub server, and Redis is expected to run on localhost.
+ * <p>
+ * Options are set with <code>--name=value</code> arguments:
+ * <ul>
+ *     <li><code>jar</code>: executable jar of the app (default: target/resumebot-0.0.1-SNAPSHOT.jar)</li>
+ *     <li><code>native</code>: native executable of the app (default: target/resumebot)</li>
+ *     <li><code>variants</code>: variants to run (default: jvm,aot,native)</li>
+ *     <li><code>runs</code>: number of starts per variant (default: 5)</li>
+ *     <li><code>timeout</code>: maximum time to wait for the first answer (default: 120s)</li>
+ *     <li><code>work-dir</code>: directory where the jar is extracted, and where logs are written (default: target/startup)</li>
+ *     <li><code>output</code>: file where results are written as JSON (default: target/startup-result.json)</li>
+ * </ul>
+ * Other arguments are passed to the app.
+ */
+public final class StartupBenchmark {
+    private final Map<String, String> options;
+    private final List<String> appArgs;
+    private final Path workDir;
+    private final Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+    private final boolean aotCache = Runtime.version().feature() >= 25;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    private StartupBenchmark(Map<String, String> options, List<String> appArgs) {
+        this.options = options;
+        this.appArgs = appArgs;
+        this.workDir = Path.of(options.getOrDefault("work-dir", "target/startup")).toAbsolutePath();
+    }
+
+    public static void main(String[] args) throws Exception {
+        final var options = new HashMap<String, String>();
+        final var appArgs = new ArrayList<String>();
+        for (final var arg : args) {
+            final int i = arg.indexOf('=');
+            final var name = arg.startsWith("--") && i != -1 ? arg.substring(2, i) : null;
+            if (name != null && !name.contains(".")) {
+                options.put(name, arg.substring(i + 1));
+            } else {
+                appArgs.add(arg);
+            }
+        }
+        new StartupBenchmark(options, appArgs).run();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        final var jar = Path.of(options.getOrDefault("jar", "target/resumebot-0.0.1-SNAPSHOT.jar"));
+        final var nativeExecutable = Path.of(options.getOrDefault("native", "target/resumebot")).toAbsolutePath();
+        final var variants = List.of(options.getOrDefault("variants", "jvm,aot,native").split(","));
+        final int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        final var timeout = LoadTest.parseDuration(options.getOrDefault("timeout", "120s"));
+
+        // Class data sharing requires the jar to be extracted.
+        Files.createDirectories(workDir);
+        exec(List.of(java.toString(), "-Djarmode=tools", "-jar", jar.toString(), "extract",
+                "--destination", workDir.resolve("app").toString(), "--application-filename", "resumebot.jar",
+                "--force"), "extract", Duration.ofMinutes(1));
+        final var appJar = workDir.resolve("app/resumebot.jar").toString();
+
+        final var results = new LinkedHashMap<String, Object>();
+        try (final var stub = new OpenAiStubServer(0, OpenAiStubServer.LatencyDistribution.parse("fixed:0ms"),
+                Duration.ZERO, 0)) {
+            final var args = new ArrayList<>(List.of("--spring.ai.openai.api-key=stub",
+                    "--spring.ai.openai.base-url=" + stub.getBaseUrl(),
+                    "--spring.docker.compose.enabled=false",
+                    // Answers must not be served from the cache, so that the model is called.
+                    "--app.cache.enabled=false"));
+            args.addAll(appArgs);
+
+            for (final var variant : variants) {
+                final List<String> command;
+                switch (variant) {
+                    case "jvm" -> command = List.of(java.toString(), "-jar", appJar);
+                    case "aot" -> command = List.of(java.toString(), train(appJar), "-jar", appJar);
+                    case "native" -> {
+                        if (!Files.isExecutable(nativeExecutable)) {
+                            System.out.println("Skipping variant native: " + nativeExecutable + " not found");
+                            results.put(variant, Map.of("skipped", true));
+                            continue;
+                        }
+                        command = List.of(nativeExecutable.toString());
+                    }
+                    default -> throw new IllegalArgumentException("Unsupported variant: " + variant);
+                }
+                results.put(variant, measure(variant, command, args, runs, timeout));
+            }
+        }
+        report(results);
+    }
+
+    /**
+     * Run the app in training mode to create an AOT cache (or a CDS archive before Java 25).
+     *
+     * @return the JVM option using this cache
+     */
+    private String train(String appJar) throws IOException, InterruptedException {
+        final var cache = workDir.resolve(aotCache ? "app.aot" : "app.jsa");
+        Files.deleteIfExists(cache);
+        System.out.println("Creating " + cache + " with a training run");
+        final var command = new ArrayList<>(List.of(java.toString(),
+                (aotCache ? "-XX:AOTCacheOutput=" : "-XX:ArchiveClassesAtExit=") + cache,
+                "-Dspring.profiles.active=training", "-jar", appJar,
+                // The model stub is served by the app: its port must be known.
+                "--server.port=" + getFreePort(), "--management.server.port=" + getFreePort()));
+        command.addAll(appArgs);
+        exec(command, "training", Duration.ofMinutes(10));
+        if (!Files.exists(cache)) {
+            throw new IllegalStateException("Training run did not create " + cache);
+        }
+        return (aotCache ? "-XX:AOTCache=" : "-XX:SharedArchiveFile=") + cache;
+    }
+
+    private Map<String, Object> measure(String variant, List<String> command, List<String> args,
+                                        int runs, Duration timeout) throws IOException, InterruptedException {
+        final var times = new ArrayList<Double>();
+        final var rss = new ArrayList<Double>();
+        for (int run = 1; run <= runs; ++run) {
+            final int port = getFreePort();
+            final var fullCommand = new ArrayList<>(command);
+            fullCommand.addAll(args);
+            fullCommand.addAll(List.of("--server.port=" + port, "--management.server.port=" + getFreePort()));
+            final var log = workDir.resolve(variant + "-" + run + ".log");
+
+            final long start = System.nanoTime();
+            final var process = new ProcessBuilder(fullCommand).redirectErrorStream(true)
+                    .redirectOutput(log.toFile()).start();
+            try {
+                final double millis = (waitForFirstAnswer(process, port, timeout) - start) / 1e6;
+                final double rssMegabytes = getResidentMemory(process) / 1024.0;
+                times.add(millis);
+                rss.add(rssMegabytes);
+                System.out.printf(Locale.ROOT, "%-6s run %d: first answer after %.0fms, RSS %.1fMB%n",
+                        variant, run, millis, rssMegabytes);
+            } finally {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+        times.sort(null);
+        rss.sort(null);
+        final var result = new LinkedHashMap<String, Object>();
+        result.put("runs", runs);
+        result.put("timeToFirstAnswerMillis", Map.of("median", median(times), "min", times.getFirst(),
+                "max", times.getLast()));
+        result.put("rssMegabytes", Map.of("median", median(rss), "max", rss.getLast()));
+        return result;
+    }
+
+    /**
+     * Wait for a first successful request to <code>/chat</code>.
+     *
+     * @return the time of the answer, as returned by {@link System#nanoTime()}
+     */
+    private long waitForFirstAnswer(Process process, int port, Duration timeout) throws InterruptedException {
+        final var request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/chat"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.ofString("prompt=Where%20do%20you%20live%3F")).build();
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("App exited with code " + process.exitValue());
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return System.nanoTime();
+                }
+            } catch (IOException e) {
+                // The app is not listening yet.
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("No answer from the app after " + timeout);
+    }
+
+    /**
+     * Get the resident memory of a process, in kilobytes.
+     */
+    private static long getResidentMemory(Process process) throws IOException, InterruptedException {
+        final var status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        if (Files.exists(status)) {
+            for (final var line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        }
+        final var ps = new ProcessBuilder("ps", "-o", "rss=", "-p", String.valueOf(process.pid())).start();
+        final var output = new String(ps.getInputStream().readAllBytes()).trim();
+        ps.waitFor();
+        return Long.parseLong(output);
+    }
+
+    private void exec(List<String> command, String name, Duration timeout) throws IOException, InterruptedException {
+        final var log = workDir.resolve(name + ".log");
+        final var process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Timed out while running " + name + ": see " + log);
+        }
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException("Failed to run " + name + ": see " + log);
+        }
+    }
+
+    private void report(Map<String, Object> results) throws IOException {
+        System.out.println();
+        for (final var variant : results.keySet()) {
+            if (!(results.get(variant) instanceof Map<?, ?> result) || result.containsKey("skipped")) {
+                System.out.printf(Locale.ROOT, "%-6s skipped%n", variant);
+                continue;
+            }
+            final var times = (Map<?, ?>) result.get("timeToFirstAnswerMillis");
+            final var rss = (Map<?, ?>) result.get("rssMegabytes");
+            System.out.printf(Locale.ROOT, "%-6s first answer: median=%.0fms min=%.0fms, RSS: median=%.1fMB%n",
+                    variant, times.get("median"), times.get("min"), rss.get("median"));
+        }
+
+        final var output = Path.of(options.getOrDefault("output", "target/startup-result.json"));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Files.writeString(output, JsonMapper.builder().build()
+                .writerWithDefaultPrettyPrinter().writeValueAsString(results));
+        System.out.println("Results written to " + output);
+    }
+
+    private static double median(List<Double> sortedValues) {
+        final int n = sortedValues.size();
+        return n % 2 == 1 ? sortedValues.get(n / 2) : (sortedValues.get(n / 2 - 1) + sortedValues.get(n / 2)) / 2;
+    }
+
+    private static int getFreePort() throws IOException {
+        try (final var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
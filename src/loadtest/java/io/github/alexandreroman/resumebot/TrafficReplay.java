@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replay of chat requests captured in production (see {@link CaptureJournal}), to compare the performance of builds.
+ * <p>
+ * Requests are sent at the pace they were captured, possibly accelerated, whether previous requests
+ * have completed or not: latencies are measured from the time each request was scheduled.
+ * Prompts from the same conversation are sent in order, once the previous prompt is answered,
+ * like the original user did: their latency is measured from that time if it is later than scheduled.
+ * Conversation identifiers are renamed for each run,
+ * so that replayed conversations start with an empty history.
+ * By default, this tool starts an OpenAI stub server and the app itself, so that it runs locally:
+ * Redis is expected to run on localhost, or to be started with Docker Compose.
+ * <p>
+ * Options are set with <code>--name=value</code> arguments:
+ * <ul>
+ *     <li><code>journal</code>: journal directory, or a single segment (default: capture)</li>
+ *     <li><code>speed</code>: replay speed, such as 2 to send requests twice as fast as captured (default: 1)</li>
+ *     <li><code>limit</code>: maximum number of requests to replay (default: all of them)</li>
+ *     <li><code>resume</code>: resume used for every request instead of the captured one</li>
+ *     <li><code>timeout</code>: request timeout (default: 60s)</li>
+ *     <li><code>target</code>: URL of an app to test instead of starting one</li>
+ *     <li><code>stub-port</code>: port of the OpenAI stub server (default: random)</li>
+ *     <li><code>stub-latency</code>: latency distribution of the stub server (default: lognormal:800ms:0.5)</li>
+ *     <li><code>stub-chunk-delay</code>: delay between streamed chunks (default: 20ms)</li>
+ *     <li><code>stub-tool-calls</code>: ratio of model calls starting with a tool call (default: 0.2)</li>
+ *     <li><code>baseline</code>: results of a previous replay, to report the differences with this one</li>
+ *     <li><code>output</code>: file where results are written as JSON (default: target/replay-result.json)</li>
+ * </ul>
+ * Other arguments are passed to the app, such as <code>--app.bulkhead.max-concurrent-calls=32</code>.
+ */
+public final class TrafficReplay {
+    private final Map<String, String> options;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(10), 3);
+    private final Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+    private final AtomicLong errors = new AtomicLong();
+
+    private TrafficReplay(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final var options = new HashMap<String, String>();
+        final var appArgs = new ArrayList<String>();
+        for (final var arg : args) {
+            final int i = arg.indexOf('=');
+            final var name = arg.startsWith("--") && i != -1 ? arg.substring(2, i) : null;
+            if (name != null && !name.contains(".")) {
+                options.put(name, arg.substring(i + 1));
+            } else {
+                appArgs.add(arg);
+            }
+        }
+
+        final var replay = new TrafficReplay(options);
+        final var entries = replay.readJournal(Path.of(options.getOrDefault("journal", "capture")));
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("No request found in journal: " + options.getOrDefault("journal", "capture"));
+        }
+
+        final var latency = OpenAiStubServer.LatencyDistribution.parse(
+                options.getOrDefault("stub-latency", "lognormal:800ms:0.5"));
+        try (final var stub = new OpenAiStubServer(Integer.parseInt(options.getOrDefault("stub-port", "0")), latency,
+                LoadTest.parseDuration(options.getOrDefault("stub-chunk-delay", "20ms")),
+                Double.parseDouble(options.getOrDefault("stub-tool-calls", "0.2")))) {
+            System.out.println("OpenAI stub server listening on " + stub.getBaseUrl());
+
+            var target = options.get("target");
+            ConfigurableApplicationContext app = null;
+            if (target == null) {
+                appArgs.addAll(List.of("--spring.ai.openai.api-key=stub",
+                        "--spring.ai.openai.base-url=" + stub.getBaseUrl(),
+                        "--server.port=0", "--management.server.port=0",
+                        // Every request is sent from the same client.
+                        "--app.rate-limit.enabled=false",
+                        // Replayed requests must not be captured again.
+                        "--app.capture.enabled=false"));
+                // Restarting the app would replay requests twice.
+                System.setProperty("spring.devtools.restart.enabled", "false");
+                app = new SpringApplicationBuilder(Application.class).run(appArgs.toArray(String[]::new));
+                target = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            }
+            try {
+                replay.run(target, entries, stub);
+            } finally {
+                if (app != null) {
+                    app.close();
+                }
+            }
+        }
+    }
+
+    private List<CaptureJournal.Entry> readJournal(Path journal) throws IOException {
+        final var segments = Files.isDirectory(journal) ? CaptureJournal.listSegments(journal) : List.of(journal);
+        final var entries = new ArrayList<CaptureJournal.Entry>();
+        for (final var segment : segments) {
+            for (final var line : Files.readAllLines(segment)) {
+                if (!line.isBlank()) {
+                    entries.add(jsonMapper.readValue(line, CaptureJournal.Entry.class));
+                }
+            }
+        }
+        entries.sort(Comparator.comparing(CaptureJournal.Entry::timestamp));
+        final int limit = Integer.parseInt(options.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE)));
+        System.out.printf("Read %d requests from %d segments in %s%n", entries.size(), segments.size(), journal);
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    private void run(String target, List<CaptureJournal.Entry> entries, OpenAiStubServer stub) throws IOException {
+        final double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+        final var timeout = LoadTest.parseDuration(options.getOrDefault("timeout", "60s"));
+        final var runId = UUID.randomUUID().toString().substring(0, 8);
+        final var first = entries.getFirst().timestamp();
+        final var capturedDuration = Duration.between(first, entries.getLast().timestamp());
+        System.out.printf(Locale.ROOT, "Replaying %d requests captured over %s to %s (speed: %.1fx)%n",
+                entries.size(), capturedDuration, target, speed);
+
+        final long start = System.nanoTime();
+        // Futures completed once the last prompt sent in each conversation is answered.
+        final var conversations = new HashMap<String, CompletableFuture<Void>>();
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final var entry : entries) {
+                final long scheduled = start + (long) (Duration.between(first, entry.timestamp()).toNanos() / speed);
+                LockSupport.parkNanos(scheduled - System.nanoTime());
+                final var done = new CompletableFuture<Void>();
+                final var previous = entry.conversationId() == null ? null
+                        : conversations.put(entry.conversationId(), done);
+                executor.submit(() -> {
+                    try {
+                        long sent = scheduled;
+                        if (previous != null) {
+                            // Time spent waiting for the previous answer is not part of this request's latency.
+                            previous.join();
+                            sent = Math.max(scheduled, System.nanoTime());
+                        }
+                        send(target, entry, runId, timeout, sent);
+                    } finally {
+                        done.complete(null);
+                    }
+                });
+            }
+            System.out.println("All requests sent, waiting for the last answers");
+        }
+        final double elapsed = (System.nanoTime() - start) / 1e9;
+        report(entries, elapsed, speed, stub.getRequestCount());
+    }
+
+    private void send(String target, CaptureJournal.Entry entry, String runId, Duration timeout, long scheduled) {
+        final var resumeId = options.getOrDefault("resume", entry.resumeId());
+        final var path = "/resumes/" + URLEncoder.encode(resumeId, StandardCharsets.UTF_8)
+                + ("stream".equals(entry.endpoint()) ? "/chat/stream" : "/chat");
+        var body = "prompt=" + URLEncoder.encode(entry.prompt(), StandardCharsets.UTF_8);
+        if (entry.conversationId() != null) {
+            body += "&conversationId=" + URLEncoder.encode("replay-" + runId + "-" + entry.conversationId(),
+                    StandardCharsets.UTF_8);
+        }
+        final var request = HttpRequest.newBuilder(URI.create(target + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .timeout(timeout)
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+        statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+        if (status != 200) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private void report(List<CaptureJournal.Entry> entries, double elapsed, double speed, long modelCalls)
+            throws IOException {
+        final var captured = new Histogram(TimeUnit.MINUTES.toMicros(10), 3);
+        long capturedErrors = 0;
+        for (final var entry : entries) {
+            if (entry.error() != null) {
+                capturedErrors++;
+            } else {
+                captured.recordValue(Math.min(TimeUnit.MILLISECONDS.toMicros(entry.durationMillis()),
+                        captured.getHighestTrackableValue()));
+            }
+        }
+
+        final double throughput = (entries.size() - errors.get()) / elapsed;
+        final var latencyMillis = toMillis(latencies);
+        final var results = new LinkedHashMap<String, Object>();
+        results.put("requests", entries.size());
+        results.put("speed", speed);
+        results.put("errors", errors.get());
+        results.put("throughput", throughput);
+        results.put("modelCalls", modelCalls);
+        results.put("statuses", new TreeMap<>(statuses));
+        results.put("latencyMillis", latencyMillis);
+        results.put("capturedErrors", capturedErrors);
+        results.put("capturedLatencyMillis", toMillis(captured));
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Requests:   %d sent, %d errors (captured: %d errors)%n",
+                entries.size(), errors.get(), capturedErrors);
+        System.out.printf(Locale.ROOT, "Statuses:   %s%n", results.get("statuses"));
+        System.out.printf(Locale.ROOT, "Throughput: %.2f requests/s%n", throughput);
+        System.out.printf(Locale.ROOT, "Model calls: %d%n", modelCalls);
+        System.out.printf(Locale.ROOT, "Latency:    p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms%n",
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                latencies.getMaxValue() / 1000.0);
+        System.out.printf(Locale.ROOT, "Captured:   p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms%n",
+                percentile(captured, 50), percentile(captured, 90), percentile(captured, 99),
+                captured.getMaxValue() / 1000.0);
+
+        final var baselineFile = options.get("baseline");
+        if (baselineFile != null) {
+            final var baseline = jsonMapper.readTree(Path.of(baselineFile).toFile());
+            final var deltas = new LinkedHashMap<String, Double>();
+            deltas.put("throughput", delta(baseline.path("throughput").asDouble(), throughput));
+            for (final var p : List.of("p50", "p90", "p99", "mean")) {
+                deltas.put(p, delta(baseline.path("latencyMillis").path(p).asDouble(), latencyMillis.get(p)));
+            }
+            results.put("baselineDeltas", deltas);
+            System.out.println("Compared with " + baselineFile + ":");
+            deltas.forEach((name, delta) -> System.out.printf(Locale.ROOT, "  %-10s %+.1f%%%n", name, delta));
+        }
+
+        final var output = Path.of(options.getOrDefault("output", "target/replay-result.json"));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Files.writeString(output, jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(results));
+        System.out.println("Results written to " + output);
+    }
+
+    private static Map<String, Double> toMillis(Histogram histogram) {
+        final var values = new LinkedHashMap<String, Double>();
+        values.put("p50", percentile(histogram, 50));
+        values.put("p90", percentile(histogram, 90));
+        values.put("p99", percentile(histogram, 99));
+        values.put("max", histogram.getMaxValue() / 1000.0);
+        values.put("mean", histogram.getMean() / 1000.0);
+        return values;
+    }
+
+    private static double percentile(Histogram histogram, double p) {
+        return histogram.getValueAtPercentile(p) / 1000.0;
+    }
+
+    /**
+     * Relative difference with a baseline value, in percent.
+     */
+    private static double delta(double baseline, double value) {
+        return baseline == 0 ? 0 : (value - baseline) / baseline * 100;
+    }
+}
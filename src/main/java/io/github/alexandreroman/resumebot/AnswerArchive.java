@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Archive of answers generated by the model, used when the model is not available (see {@link ChatModelRouter}).
+ * <p>
+ * Only answers to first-turn prompts found by the model are kept, since they do not depend on a conversation.
+ * Answers are kept in memory, and matched by lexical similarity to the incoming prompt:
+ * the similarity of two prompts is the cosine similarity of their sets of terms, weighted by
+ * the inverse document frequency of each term among the archived prompts.
+ */
+@Component
+class AnswerArchive {
+    private final AppConfig.Degraded config;
+    private final Cache<String, ArchivedAnswer> answers;
+
+    @Autowired
+    AnswerArchive(AppConfig config) {
+        this(config.degraded());
+    }
+
+    AnswerArchive(AppConfig.Degraded config) {
+        this.config = config;
+        this.answers = Caffeine.newBuilder().maximumSize(this.config.maxAnswers()).build();
+    }
+
+    /**
+     * Answer found in the archive.
+     *
+     * @param prompt     prompt this answer was generated for
+     * @param answer     answer generated by the model
+     * @param similarity similarity between this prompt and the incoming prompt, between 0 and 1
+     */
+    record Match(String prompt, String answer, double similarity) {
+    }
+
+    private record ArchivedAnswer(String fingerprint, String prompt, Set<String> terms, String answer) {
+    }
+
+    /**
+     * Keep an answer generated by the model.
+     */
+    void add(Resume resume, String prompt, String answer) {
+        if (!config.enabled()) {
+            return;
+        }
+        final var terms = getTerms(prompt);
+        if (!terms.isEmpty()) {
+            answers.put(resume.fingerprint() + ":" + AnswerCache.normalize(prompt),
+                    new ArchivedAnswer(resume.fingerprint(), prompt, terms, answer));
+        }
+    }
+
+    /**
+     * Find the answer to the most similar prompt.
+     *
+     * @return the best match, or <code>null</code> if no prompt is similar enough
+     */
+    Match find(Resume resume, String prompt) {
+        final var terms = getTerms(prompt);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        final var candidates = new ArrayList<ArchivedAnswer>();
+        final var documentFrequencies = new HashMap<String, Integer>();
+        for (final var archived : answers.asMap().values()) {
+            if (archived.fingerprint().equals(resume.fingerprint())) {
+                candidates.add(archived);
+                for (final var term : archived.terms()) {
+                    documentFrequencies.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+
+        // Terms are weighted by their inverse document frequency,
+        // so that common terms such as "you" count less than the topic of the question.
+        final ToDoubleFunction<String> weight = term -> {
+            final double idf = Math.log(1 + (candidates.size() + 1.0) / (documentFrequencies.getOrDefault(term, 0) + 1.0));
+            return idf * idf;
+        };
+        ArchivedAnswer best = null;
+        double bestSimilarity = config.minSimilarity();
+        for (final var archived : candidates) {
+            final double similarity = similarity(terms, archived.terms(), weight);
+            if (similarity >= bestSimilarity) {
+                best = archived;
+                bestSimilarity = similarity;
+            }
+        }
+        return best == null ? null : new Match(best.prompt(), best.answer(), bestSimilarity);
+    }
+
+    static Set<String> getTerms(String text) {
+        final var terms = new HashSet<String>();
+        ResumeIndex.tokenize(text, terms::add);
+        return terms;
+    }
+
+    /**
+     * Compute the cosine similarity of two sets of terms.
+     *
+     * @param weight squared weight of a term
+     */
+    static double similarity(Set<String> a, Set<String> b, ToDoubleFunction<String> weight) {
+        double common = 0;
+        for (final var term : a) {
+            if (b.contains(term)) {
+                common += weight.applyAsDouble(term);
+            }
+        }
+        if (common == 0) {
+            return 0;
+        }
+        return common / Math.sqrt(norm(a, weight) * norm(b, weight));
+    }
+
+    private static double norm(Set<String> terms, ToDoubleFunction<String> weight) {
+        double norm = 0;
+        for (final var term : terms) {
+            norm += weight.applyAsDouble(term);
+        }
+        return norm;
+    }
+}
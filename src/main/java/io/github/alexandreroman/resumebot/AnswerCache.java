@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Two-tier cache for answers to first-turn prompts.
+ * <p>
+ * Answers are first looked up in a bounded in-process cache, then in Redis
+ * where they are shared between instances.
+ * Cache keys are built from the normalized prompt, the fingerprint of the resume (see {@link Resume}),
+ * and the current date since answers may depend on it (see {@link ChatTools}).
+ * Redis entries only expire with their TTL: use a <code>volatile-*</code> eviction policy
+ * on the Redis server to bound the memory they use.
+ */
+@Component
+class AnswerCache {
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s\\p{Punct}]+$");
+
+    private final Logger logger = LoggerFactory.getLogger(AnswerCache.class);
+    private final AppConfig.Cache config;
+    private final StringRedisTemplate redis;
+    private final Cache<String, String> localCache;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    AnswerCache(AppConfig config, StringRedisTemplate redis, MeterRegistry meterRegistry) {
+        this.config = config.cache();
+        this.redis = redis;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(this.config.maxEntries())
+                .expireAfterWrite(this.config.ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "answers.local");
+        this.redisHits = Counter.builder("cache.gets").tag("cache", "answers.redis").tag("result", "hit")
+                .description("Number of answers found in Redis").register(meterRegistry);
+        this.redisMisses = Counter.builder("cache.gets").tag("cache", "answers.redis").tag("result", "miss")
+                .description("Number of answers not found in Redis").register(meterRegistry);
+    }
+
+    /**
+     * Get the cached answer to a prompt.
+     *
+     * @return the answer if any, or <code>null</code>
+     */
+    String get(Resume resume, String prompt) {
+        if (!config.enabled()) {
+            return null;
+        }
+        final var key = getKey(resume, prompt);
+        final var answer = localCache.getIfPresent(key);
+        if (answer != null || !config.redis()) {
+            return answer;
+        }
+        try {
+            final var sharedAnswer = redis.opsForValue().get(getRedisKey(key));
+            if (sharedAnswer == null) {
+                redisMisses.increment();
+                return null;
+            }
+            redisHits.increment();
+            localCache.put(key, sharedAnswer);
+            return sharedAnswer;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read cached answer from Redis", e);
+            return null;
+        }
+    }
+
+    /**
+     * Cache the answer to a prompt.
+     */
+    void put(Resume resume, String prompt, String answer) {
+        if (!config.enabled()) {
+            return;
+        }
+        final var key = getKey(resume, prompt);
+        localCache.put(key, answer);
+        if (config.redis()) {
+            try {
+                redis.opsForValue().set(getRedisKey(key), answer, config.ttl());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to write cached answer to Redis", e);
+            }
+        }
+    }
+
+    /**
+     * Evict the answers cached in memory for a resume.
+     * Answers cached in Redis are no longer used since the resume fingerprint has changed: they expire with their TTL.
+     */
+    void evict(Resume resume) {
+        final var prefix = resume.fingerprint() + ":";
+        localCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private String getKey(Resume resume, String prompt) {
+        return resume.fingerprint() + ":" + LocalDate.now() + ":" + hash(normalize(prompt));
+    }
+
+    private String getRedisKey(String key) {
+        return String.format("resumebot:answers:%s", key);
+    }
+
+    static String normalize(String prompt) {
+        final var p = Normalizer.normalize(prompt, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+        return TRAILING_PUNCTUATION.matcher(WHITESPACES.matcher(p).replaceAll(" ")).replaceAll("");
+    }
+
+    static String hash(String value) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
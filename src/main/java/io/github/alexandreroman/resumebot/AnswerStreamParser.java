@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+/**
+ * Incremental parser extracting the <code>answer</code> field from a JSON object
+ * while it is being streamed by the model.
+ * <p>
+ * Chunks are fed as they come: each call returns the part of the answer
+ * which has been decoded so far, so that it can be sent to the user right away.
+ * The <code>foundAnswer</code> field is read as well, and is available once the object is complete.
+ * This class is not thread-safe: use one instance per stream.
+ */
+final class AnswerStreamParser {
+    private static final String ANSWER_FIELD = "answer";
+    private static final String FOUND_ANSWER_FIELD = "foundAnswer";
+
+    private final StringBuilder answer = new StringBuilder();
+    private final StringBuilder key = new StringBuilder();
+    private final StringBuilder literal = new StringBuilder();
+    private final StringBuilder unicode = new StringBuilder(4);
+    private int depth;
+    private boolean expectingKey;
+    private boolean inString;
+    private boolean readingKey;
+    private boolean escaped;
+    private boolean readingUnicode;
+    private String currentField;
+    private Boolean foundAnswer;
+    private char pendingHighSurrogate;
+
+    /**
+     * Feed a chunk of the JSON object.
+     *
+     * @return the answer text decoded from this chunk, which may be empty
+     */
+    String feed(String chunk) {
+        if (chunk == null || chunk.isEmpty()) {
+            return "";
+        }
+        final var out = new StringBuilder(chunk.length());
+        if (pendingHighSurrogate != 0) {
+            out.append(pendingHighSurrogate);
+            pendingHighSurrogate = 0;
+        }
+        for (int i = 0; i < chunk.length(); ++i) {
+            final char c = chunk.charAt(i);
+            if (inString) {
+                onStringChar(c, out);
+            } else {
+                onStructuralChar(c);
+            }
+        }
+        // Never split a surrogate pair across fragments:
+        // a lone high surrogate cannot be encoded by the response writer.
+        final int len = out.length();
+        if (len > 0 && Character.isHighSurrogate(out.charAt(len - 1))) {
+            pendingHighSurrogate = out.charAt(len - 1);
+            out.setLength(len - 1);
+        }
+        answer.append(out);
+        return out.toString();
+    }
+
+    /**
+     * Get the answer decoded so far.
+     */
+    String answer() {
+        return answer.toString();
+    }
+
+    /**
+     * Get the value of the <code>foundAnswer</code> field,
+     * defaulting to <code>false</code> if this field has not been parsed (yet).
+     */
+    boolean foundAnswer() {
+        return Boolean.TRUE.equals(foundAnswer);
+    }
+
+    /**
+     * Check whether the whole JSON object has been parsed.
+     */
+    boolean isComplete() {
+        return depth == 0 && currentField != null;
+    }
+
+    private void onStringChar(char c, StringBuilder out) {
+        if (readingUnicode) {
+            unicode.append(c);
+            if (unicode.length() == 4) {
+                readingUnicode = false;
+                try {
+                    appendStringChar((char) Integer.parseInt(unicode, 0, 4, 16), out);
+                } catch (NumberFormatException ignored) {
+                    // Invalid escape sequence: skip it.
+                }
+                unicode.setLength(0);
+            }
+        } else if (escaped) {
+            escaped = false;
+            switch (c) {
+                case 'n' -> appendStringChar('\n', out);
+                case 't' -> appendStringChar('\t', out);
+                case 'r' -> appendStringChar('\r', out);
+                case 'b' -> appendStringChar('\b', out);
+                case 'f' -> appendStringChar('\f', out);
+                case 'u' -> readingUnicode = true;
+                default -> appendStringChar(c, out);
+            }
+        } else if (c == '\\') {
+            escaped = true;
+        } else if (c == '"') {
+            inString = false;
+            if (readingKey) {
+                readingKey = false;
+                currentField = key.toString();
+                key.setLength(0);
+            }
+        } else {
+            appendStringChar(c, out);
+        }
+    }
+
+    private void appendStringChar(char c, StringBuilder out) {
+        if (readingKey) {
+            key.append(c);
+        } else if (depth == 1 && ANSWER_FIELD.equals(currentField)) {
+            out.append(c);
+        }
+    }
+
+    private void onStructuralChar(char c) {
+        switch (c) {
+            case '{', '[' -> {
+                endLiteral();
+                ++depth;
+                expectingKey = depth == 1 && c == '{';
+            }
+            case '}', ']' -> {
+                endLiteral();
+                --depth;
+            }
+            case '"' -> {
+                inString = true;
+                readingKey = depth == 1 && expectingKey;
+            }
+            case ':' -> {
+                if (depth == 1) {
+                    expectingKey = false;
+                }
+            }
+            case ',' -> {
+                endLiteral();
+                if (depth == 1) {
+                    expectingKey = true;
+                }
+            }
+            default -> {
+                if (Character.isWhitespace(c)) {
+                    endLiteral();
+                } else if (depth == 1) {
+                    literal.append(c);
+                }
+            }
+        }
+    }
+
+    private void endLiteral() {
+        if (literal.isEmpty()) {
+            return;
+        }
+        if (FOUND_ANSWER_FIELD.equals(currentField)) {
+            foundAnswer = Boolean.parseBoolean(literal.toString());
+        }
+        literal.setLength(0);
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Component pre-generating answers to frequently asked questions, so that the first visitors
+ * after a deployment or a resume change get cached answers (see {@link AnswerCache}).
+ * <p>
+ * Questions are answered for every resume once the app is ready, and again for the resumes which change.
+ * They go through the same pipeline as requests (see {@link ChatService}), with a bounded parallelism
+ * so that the model can still serve visitors meanwhile.
+ * The progress is reported with the <code>resumebot.warmup.questions</code> metric,
+ * and by a health indicator which may be part of the readiness group (see {@link AnswerWarmupHealthIndicator}).
+ * <p>
+ * Each resume has a generation, which is incremented when it changes: questions are bound to the generation
+ * of their resume, so that a warm-up still running for a previous version of a resume does not report its progress.
+ */
+@Component
+class AnswerWarmup {
+    /**
+     * State of a question.
+     */
+    enum State {
+        PENDING("pending"),
+        WARM("warm"),
+        NOT_FOUND("not-found"),
+        FAILED("failed");
+
+        private final String value;
+
+        State(String value) {
+            this.value = value;
+        }
+
+        String value() {
+            return value;
+        }
+    }
+
+    private record Question(String resumeId, long generation, String language, String prompt) {
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(AnswerWarmup.class);
+    private final AppConfig.Warmup config;
+    private final boolean cacheEnabled;
+    private final Map<String, List<String>> questions;
+    private final BiConsumer<Resume, String> answerer;
+    private final AnswerCache answerCache;
+    private final Supplier<Collection<Resume>> resumes;
+    private final Map<Question, State> states = new ConcurrentHashMap<>();
+    // Guarded by itself: pending questions are only added for the current generation of their resume.
+    private final Map<String, Long> generations = new HashMap<>();
+    private final long readinessDeadline;
+    private volatile boolean startupDone;
+
+    @Autowired
+    AnswerWarmup(AppConfig config, ChatService chatService, AnswerCache answerCache, ResumeRegistry resumeRegistry,
+                 MeterRegistry meterRegistry) {
+        this(config, (resume, prompt) -> chatService.processPrompt(resume, null, prompt), answerCache,
+                resumeRegistry::getResumes, meterRegistry);
+    }
+
+    /**
+     * @param answerer answers a prompt about a resume, caching the answer if found
+     * @param resumes  supplies the current resumes
+     */
+    AnswerWarmup(AppConfig config, BiConsumer<Resume, String> answerer, AnswerCache answerCache,
+                 Supplier<Collection<Resume>> resumes, MeterRegistry meterRegistry) {
+        this.config = config.warmup();
+        this.cacheEnabled = config.cache().enabled();
+        this.questions = this.config.questions() == null ? Map.of() : this.config.questions();
+        this.answerer = answerer;
+        this.answerCache = answerCache;
+        this.resumes = resumes;
+        this.readinessDeadline = System.nanoTime() + this.config.maxReadinessDelay().toNanos();
+
+        for (final var language : questions.keySet()) {
+            for (final var state : State.values()) {
+                Gauge.builder("resumebot.warmup.questions", this, w -> w.count(language, state))
+                        .tag("language", language).tag("state", state.value())
+                        .description("Number of frequently asked questions by warm-up state")
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onApplicationReady() {
+        if (!isEnabled()) {
+            startupDone = true;
+            return;
+        }
+        Thread.ofVirtual().name("answer-warmup").start(() -> {
+            try {
+                // Generations are read before resumes: a resume reloaded meanwhile is bound to a previous generation.
+                final var current = getGenerations();
+                warmUp(resumes.get(), current);
+            } finally {
+                startupDone = true;
+            }
+        });
+    }
+
+    @EventListener
+    void onResumesReloaded(ResumesReloadedEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        final Map<String, Long> current;
+        synchronized (generations) {
+            for (final var id : event.resumeIds()) {
+                generations.merge(id, 1L, Long::sum);
+            }
+            states.keySet().removeIf(q -> event.resumeIds().contains(q.resumeId()));
+            current = Map.copyOf(generations);
+        }
+        final var changed = resumes.get().stream()
+                .filter(r -> event.resumeIds().contains(r.id())).toList();
+        if (!changed.isEmpty()) {
+            Thread.ofVirtual().name("answer-warmup").start(() -> warmUp(changed, current));
+        }
+    }
+
+    private boolean isEnabled() {
+        if (!config.enabled() || questions.isEmpty()) {
+            return false;
+        }
+        if (!cacheEnabled) {
+            logger.warn("Not warming up answers since the answer cache is disabled");
+            return false;
+        }
+        return true;
+    }
+
+    private Map<String, Long> getGenerations() {
+        synchronized (generations) {
+            return Map.copyOf(generations);
+        }
+    }
+
+    private boolean addPendingQuestion(Question question) {
+        synchronized (generations) {
+            if (generations.getOrDefault(question.resumeId(), 0L) != question.generation()) {
+                return false;
+            }
+            states.put(question, State.PENDING);
+            return true;
+        }
+    }
+
+    private void warmUp(Collection<Resume> resumes, Map<String, Long> resumeGenerations) {
+        final long start = System.nanoTime();
+        int count = 0;
+        logger.info("Warming up answers for resume(s) {}", resumes.stream().map(Resume::id).toList());
+        try (final var executor = Executors.newFixedThreadPool(config.maxConcurrency(),
+                Thread.ofVirtual().name("answer-warmup-", 0).factory())) {
+            for (final var resume : resumes) {
+                final long generation = resumeGenerations.getOrDefault(resume.id(), 0L);
+                for (final var e : questions.entrySet()) {
+                    for (final var prompt : e.getValue()) {
+                        final var question = new Question(resume.id(), generation, e.getKey(), prompt.trim());
+                        if (!addPendingQuestion(question)) {
+                            // This resume has changed: it is warmed up again by another thread.
+                            continue;
+                        }
+                        executor.submit(() -> {
+                            if (states.containsKey(question)) {
+                                final var state = warmUp(resume, question.prompt());
+                                // Only report the progress if the resume has not changed meanwhile.
+                                states.computeIfPresent(question, (q, previous) -> state);
+                            }
+                        });
+                        ++count;
+                    }
+                }
+            }
+        }
+        logger.info("Warmed up {} answer(s) in {}: {}", count, Duration.ofNanos(System.nanoTime() - start),
+                getProgress());
+    }
+
+    private State warmUp(Resume resume, String prompt) {
+        if (answerCache.get(resume, prompt) != null) {
+            return State.WARM;
+        }
+        try {
+            answerer.accept(resume, prompt);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to warm up answer for prompt [{}] of resume {}", prompt, resume.id(), e);
+            return State.FAILED;
+        }
+        // Answers are only cached when the model found an answer.
+        return answerCache.get(resume, prompt) != null ? State.WARM : State.NOT_FOUND;
+    }
+
+    /**
+     * Check whether the instance may accept traffic: this is the case once the warm-up started with the app is done,
+     * if readiness is gated on it.
+     */
+    boolean isReady() {
+        return !config.gateReadiness() || startupDone || System.nanoTime() - readinessDeadline > 0;
+    }
+
+    /**
+     * Get the number of questions in each state, for all resumes.
+     */
+    Map<State, Integer> getProgress() {
+        final var progress = new EnumMap<State, Integer>(State.class);
+        for (final var state : State.values()) {
+            progress.put(state, 0);
+        }
+        for (final var state : states.values()) {
+            progress.merge(state, 1, Integer::sum);
+        }
+        return progress;
+    }
+
+    private int count(String language, State state) {
+        int count = 0;
+        for (final var e : states.entrySet()) {
+            if (e.getValue() == state && e.getKey().language().equals(language)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+}
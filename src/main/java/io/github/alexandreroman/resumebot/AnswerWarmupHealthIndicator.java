@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health indicator reporting the progress of the {@link AnswerWarmup}.
+ * This indicator is part of the readiness group: the instance is reported as out of service
+ * until the warm-up started with the app is done, if readiness is gated on it.
+ */
+@Component
+class AnswerWarmupHealthIndicator implements HealthIndicator {
+    private final AnswerWarmup warmup;
+
+    AnswerWarmupHealthIndicator(AnswerWarmup warmup) {
+        this.warmup = warmup;
+    }
+
+    @Override
+    public Health health() {
+        final var health = warmup.isReady() ? Health.up() : Health.outOfService();
+        warmup.getProgress().forEach((state, count) -> health.withDetail(state.value(), count));
+        return health.build();
+    }
+}
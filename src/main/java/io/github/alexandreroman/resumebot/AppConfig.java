@@ -17,11 +17,424 @@
 package io.github.alexandreroman.resumebot;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 @ConfigurationProperties(prefix = "app")
 record AppConfig(
         String systemPrompt,
+        String resumePrompt,
         String userPrompt,
-        String resume
+        String resume,
+        @DefaultValue Cache cache,
+        @DefaultValue Bulkhead bulkhead,
+        @DefaultValue History history,
+        @DefaultValue NearCache nearCache,
+        @DefaultValue MemoryStore memoryStore,
+        @DefaultValue Retrieval retrieval,
+        @DefaultValue Resumes resumes,
+        @DefaultValue Dates dates,
+        @DefaultValue Coalescing coalescing,
+        @DefaultValue RateLimit rateLimit,
+        @DefaultValue WriteBehind writeBehind,
+        @DefaultValue Hedging hedging,
+        @DefaultValue Degraded degraded,
+        @DefaultValue Training training,
+        @DefaultValue Warmup warmup,
+        @DefaultValue Batch batch,
+        @DefaultValue Capture capture
 ) {
+    /**
+     * Answer cache settings.
+     *
+     * @param enabled    set to <code>true</code> to cache answers to first-turn prompts
+     * @param maxEntries maximum number of answers kept in memory
+     * @param ttl        time to live of a cached answer
+     * @param redis      set to <code>true</code> to share cached answers between instances using Redis
+     */
+    record Cache(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("1000") int maxEntries,
+            @DefaultValue("1h") Duration ttl,
+            @DefaultValue("true") boolean redis
+    ) {
+    }
+
+    /**
+     * Settings for limiting concurrent calls to the model.
+     *
+     * @param maxConcurrentCalls maximum number of calls to the model in progress
+     * @param maxWaitingCalls    maximum number of calls waiting for a permit
+     * @param maxWait            maximum time to wait for a permit
+     * @param retryAfter         delay suggested to clients when a call is rejected
+     */
+    record Bulkhead(
+            @DefaultValue("16") int maxConcurrentCalls,
+            @DefaultValue("64") int maxWaitingCalls,
+            @DefaultValue("10s") Duration maxWait,
+            @DefaultValue("5s") Duration retryAfter
+    ) {
+    }
+
+    /**
+     * Conversation history settings.
+     *
+     * @param maxTokens            maximum number of tokens from the conversation history included in a prompt
+     * @param keepTurns            number of recent turns kept verbatim when older turns are summarized
+     * @param summarizeAfterTurns  number of turns after which older turns are folded into a summary
+     * @param maxMessages          maximum number of messages stored for a conversation
+     * @param summarize            set to <code>true</code> to summarize older turns
+     * @param summaryPrompt        system prompt used to summarize older turns
+     * @param storageFormat        format of the messages written to Redis (see {@link MessageCodec})
+     * @param compressionThreshold size above which messages are compressed, with the compact format
+     * @param migrate              set to <code>true</code> to convert stored messages to the compact format on startup
+     * @param store                where conversations are stored (see {@link ConversationStore})
+     */
+    record History(
+            @DefaultValue("2000") int maxTokens,
+            @DefaultValue("5") int keepTurns,
+            @DefaultValue("10") int summarizeAfterTurns,
+            @DefaultValue("100") int maxMessages,
+            @DefaultValue("true") boolean summarize,
+            String summaryPrompt,
+            @DefaultValue("legacy") StorageFormat storageFormat,
+            @DefaultValue("256B") DataSize compressionThreshold,
+            @DefaultValue("false") boolean migrate,
+            @DefaultValue("redis") HistoryStore store
+    ) {
+    }
+
+    /**
+     * Storage of conversation histories.
+     */
+    enum HistoryStore {
+        /**
+         * Conversations are stored in Redis, and shared between instances.
+         */
+        REDIS,
+        /**
+         * Conversations are stored in memory by each instance (see {@link InMemoryConversationStore}).
+         */
+        MEMORY
+    }
+
+    /**
+     * Format of the messages stored in conversation histories.
+     */
+    enum StorageFormat {
+        /**
+         * Binary frames with metadata, compressed if large.
+         */
+        COMPACT,
+        /**
+         * Plain strings, readable by previous versions of this app.
+         */
+        LEGACY
+    }
+
+    /**
+     * Near cache configuration for conversation histories.
+     *
+     * @param enabled    set to <code>true</code> to keep conversation histories in memory
+     * @param maxEntries maximum number of conversations kept in memory
+     * @param maxMemory  maximum memory used by conversations kept in memory
+     */
+    record NearCache(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("10000") int maxEntries,
+            @DefaultValue("64MB") DataSize maxMemory
+    ) {
+    }
+
+    /**
+     * In-memory conversation store configuration, used when conversations are not stored in Redis.
+     *
+     * @param maxEntries       maximum number of conversations kept in memory
+     * @param maxMemory        maximum memory used by conversations: the least recently used ones are evicted first
+     * @param lockStripes      number of locks serializing updates of conversations
+     * @param snapshotPath     file where conversations are saved, so that they survive a restart (disabled if not set)
+     * @param snapshotInterval interval between snapshots
+     */
+    record MemoryStore(
+            @DefaultValue("100000") int maxEntries,
+            @DefaultValue("256MB") DataSize maxMemory,
+            @DefaultValue("64") int lockStripes,
+            Path snapshotPath,
+            @DefaultValue("5m") Duration snapshotInterval
+    ) {
+    }
+
+    /**
+     * Settings for including only the relevant resume sections in prompts.
+     *
+     * @param enabled  set to <code>true</code> to select resume sections with a BM25 index
+     * @param topK     maximum number of sections selected for a question, in addition to the first section
+     * @param minScore minimum score of the best section, below which the whole resume is included
+     */
+    record Retrieval(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("3") int topK,
+            @DefaultValue("1.0") double minScore
+    ) {
+    }
+
+    /**
+     * Settings for serving several resumes.
+     *
+     * @param directory   directory containing additional resumes, which is watched for changes
+     * @param defaultId   identifier of the resume set with <code>app.resume</code>
+     * @param reloadDelay delay before reloading resumes after a change
+     * @param broadcast   set to <code>true</code> to notify other instances when resumes are reloaded
+     */
+    record Resumes(
+            Path directory,
+            @DefaultValue("default") String defaultId,
+            @DefaultValue("500ms") Duration reloadDelay,
+            @DefaultValue("true") boolean broadcast
+    ) {
+    }
+
+    /**
+     * Settings for handling dates in prompts.
+     *
+     * @param inject             set to <code>true</code> to include the current date and durations in prompts,
+     *                           instead of letting the model call tools to get the current date
+     * @param toolsInstructions  system prompt instructions about dates (<code>{dates}</code>), when not injected
+     * @param injectInstructions system prompt instructions about dates (<code>{dates}</code>), when injected
+     */
+    record Dates(
+            @DefaultValue("false") boolean inject,
+            String toolsInstructions,
+            String injectInstructions
+    ) {
+        /**
+         * Get the instructions about dates included in the system prompt, depending on how dates are provided.
+         */
+        String instructions() {
+            final var instructions = inject ? injectInstructions : toolsInstructions;
+            return instructions == null ? "" : instructions.strip();
+        }
+    }
+
+    /**
+     * Settings for sharing model calls between concurrent requests for the same first-turn prompt.
+     *
+     * @param enabled      set to <code>true</code> to coalesce concurrent requests
+     * @param maxWait      maximum time to wait for the answer of another request, before calling the model
+     * @param redis        set to <code>true</code> to coalesce requests across instances using Redis
+     * @param lockTtl      time to live of the lock held while calling the model
+     * @param resultTtl    time to live of an answer shared with other instances
+     * @param pollInterval delay between two reads of an answer shared by another instance
+     */
+    record Coalescing(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("15s") Duration maxWait,
+            @DefaultValue("false") boolean redis,
+            @DefaultValue("30s") Duration lockTtl,
+            @DefaultValue("10s") Duration resultTtl,
+            @DefaultValue("50ms") Duration pollInterval
+    ) {
+    }
+
+    /**
+     * Rate limiting settings, using token buckets.
+     * A bucket holds up to <code>capacity</code> tokens, and is refilled with one token every <code>refillInterval</code>:
+     * each request consumes a token, and is rejected when the bucket is empty.
+     *
+     * @param enabled                    set to <code>true</code> to limit requests per conversation and per client
+     * @param conversationCapacity       maximum number of requests in a burst for a conversation
+     * @param conversationRefillInterval delay after which a conversation can send one more request
+     * @param clientCapacity             maximum number of requests in a burst for a client IP address
+     * @param clientRefillInterval       delay after which a client can send one more request
+     * @param redisTimeout               maximum time to wait for Redis, before using a local rate limiter
+     * @param maxLocalBuckets            maximum number of buckets kept in memory by the local rate limiter
+     */
+    record RateLimit(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("10") int conversationCapacity,
+            @DefaultValue("6s") Duration conversationRefillInterval,
+            @DefaultValue("30") int clientCapacity,
+            @DefaultValue("2s") Duration clientRefillInterval,
+            @DefaultValue("50ms") Duration redisTimeout,
+            @DefaultValue("10000") int maxLocalBuckets
+    ) {
+    }
+
+    /**
+     * Settings for writing conversation histories to Redis in the background.
+     *
+     * @param enabled       set to <code>true</code> to queue history updates instead of waiting for Redis
+     * @param queueCapacity maximum number of exchanges waiting to be written
+     * @param batchSize     maximum number of exchanges written in a single batch
+     * @param flushInterval maximum time an exchange waits for a batch to be filled
+     * @param maxBlock      maximum time to wait for some room when the queue is full, before writing synchronously
+     * @param maxAttempts   maximum number of attempts to write a batch
+     * @param drainTimeout  maximum time to wait for queued exchanges to be written on shutdown
+     */
+    record WriteBehind(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("10000") int queueCapacity,
+            @DefaultValue("200") int batchSize,
+            @DefaultValue("20ms") Duration flushInterval,
+            @DefaultValue("100ms") Duration maxBlock,
+            @DefaultValue("3") int maxAttempts,
+            @DefaultValue("10s") Duration drainTimeout
+    ) {
+    }
+
+    /**
+     * Settings for sending a second request to a backup model when the primary model is slow or failing.
+     * The hedging delay is a percentile of the latency of recent calls to the primary model:
+     * this way, only the slowest calls are hedged.
+     *
+     * @param enabled         set to <code>true</code> to send a second request to the backup model
+     *                        when the primary model does not answer in time, or fails
+     * @param delayPercentile percentile of the latency of the primary model used as the hedging delay
+     * @param initialDelay    hedging delay used until enough calls to the primary model have completed
+     * @param minDelay        minimum hedging delay
+     * @param maxDelay        maximum hedging delay
+     * @param latencyWindow   number of recent calls to the primary model used to compute the hedging delay
+     * @param backup          backup model settings
+     * @param circuitBreaker  settings of the circuit breaker sending requests straight to the backup model
+     *                        when the primary model is failing
+     */
+    record Hedging(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("0.95") double delayPercentile,
+            @DefaultValue("5s") Duration initialDelay,
+            @DefaultValue("1s") Duration minDelay,
+            @DefaultValue("20s") Duration maxDelay,
+            @DefaultValue("200") int latencyWindow,
+            @DefaultValue Backup backup,
+            @DefaultValue CircuitBreaker circuitBreaker
+    ) {
+    }
+
+    /**
+     * Settings for answering when the model is not available.
+     * A circuit breaker protects calls to the model: while the circuit is open,
+     * requests are answered with archived answers to similar prompts, or rejected right away.
+     *
+     * @param enabled        set to <code>true</code> to stop calling the model while it is failing or too slow
+     * @param callTimeout    maximum time to wait for the model (for the first token of streamed responses)
+     * @param minSimilarity  minimum similarity between the prompt and an archived prompt, between 0 and 1
+     * @param maxAnswers     maximum number of answers kept in the archive
+     * @param circuitBreaker circuit breaker settings
+     */
+    record Degraded(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("60s") Duration callTimeout,
+            @DefaultValue("0.8") double minSimilarity,
+            @DefaultValue("1000") int maxAnswers,
+            @DefaultValue CircuitBreaker circuitBreaker
+    ) {
+    }
+
+    /**
+     * Backup model settings: the settings of the primary model are used by default.
+     *
+     * @param baseUrl base URL of the OpenAI-compatible API serving the backup model
+     * @param apiKey  API key used to call the backup model
+     * @param model   name of the backup model
+     */
+    record Backup(
+            String baseUrl,
+            String apiKey,
+            String model
+    ) {
+    }
+
+    /**
+     * Circuit breaker settings.
+     * The circuit opens when the rate of failed calls or the rate of slow calls exceeds a threshold.
+     *
+     * @param failureRateThreshold  rate of failed calls above which the circuit opens, between 0 and 1
+     * @param slowCallRateThreshold rate of slow calls above which the circuit opens, between 0 and 1
+     * @param slowCallDuration      duration above which a call is slow
+     * @param windowSize            number of recent calls used to compute these rates
+     * @param minCalls              minimum number of calls before these rates are computed
+     * @param openDuration          time the circuit stays open, before probing the model again
+     * @param halfOpenCalls         number of calls probing the model, which must all succeed to close the circuit
+     */
+    record CircuitBreaker(
+            @DefaultValue("0.5") double failureRateThreshold,
+            @DefaultValue("0.8") double slowCallRateThreshold,
+            @DefaultValue("30s") Duration slowCallDuration,
+            @DefaultValue("20") int windowSize,
+            @DefaultValue("10") int minCalls,
+            @DefaultValue("30s") Duration openDuration,
+            @DefaultValue("3") int halfOpenCalls
+    ) {
+    }
+
+    /**
+     * Training run settings (see {@link TrainingRun}).
+     *
+     * @param enabled    set to <code>true</code> to send requests to the app once it is ready, and then exit
+     * @param iterations number of conversations sent during the training run
+     */
+    record Training(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("20") int iterations
+    ) {
+    }
+
+    /**
+     * Settings for pre-generating answers to frequently asked questions (see {@link AnswerWarmup}).
+     *
+     * @param enabled           set to <code>true</code> to fill the answer cache at startup, and when resumes change
+     * @param questions         questions grouped by language, such as <code>en</code>
+     * @param maxConcurrency    maximum number of questions being answered at once
+     * @param gateReadiness     set to <code>true</code> to report the instance as out of service until the warm-up is done
+     * @param maxReadinessDelay maximum time the instance is reported as out of service during the warm-up
+     */
+    record Warmup(
+            @DefaultValue("false") boolean enabled,
+            Map<String, List<String>> questions,
+            @DefaultValue("2") int maxConcurrency,
+            @DefaultValue("false") boolean gateReadiness,
+            @DefaultValue("2m") Duration maxReadinessDelay
+    ) {
+    }
+
+    /**
+     * Settings for answering several prompts at once.
+     *
+     * @param maxPrompts     maximum number of prompts in a batch
+     * @param maxConcurrency maximum number of prompts from a batch being answered at once
+     * @param timeout        maximum time to answer a batch, after which the remaining prompts are cancelled
+     */
+    record Batch(
+            @DefaultValue("20") int maxPrompts,
+            @DefaultValue("4") int maxConcurrency,
+            @DefaultValue("90s") Duration timeout
+    ) {
+    }
+
+    /**
+     * Settings for capturing chat requests to a journal (see {@link CaptureJournal}).
+     *
+     * @param enabled       set to <code>true</code> to write chat requests to the journal
+     * @param directory     directory where journal segments are written
+     * @param segmentSize   size above which a new segment is started
+     * @param maxSegments   maximum number of segments kept, after which the oldest segments are deleted
+     * @param queueCapacity maximum number of requests waiting to be written, after which requests are dropped
+     * @param flushInterval maximum time to wait for requests before writing them
+     * @param drainTimeout  maximum time to write the remaining requests when the app stops
+     */
+    record Capture(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("capture") Path directory,
+            @DefaultValue("64MB") DataSize segmentSize,
+            @DefaultValue("100") int maxSegments,
+            @DefaultValue("10000") int queueCapacity,
+            @DefaultValue("1s") Duration flushInterval,
+            @DefaultValue("10s") Duration drainTimeout
+    ) {
+    }
 }
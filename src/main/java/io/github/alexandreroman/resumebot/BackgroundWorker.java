@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Base class for components doing their work on a background thread, which is started and stopped
+ * with the application context.
+ * <p>
+ * Workers are stopped after the web server, so that no work is added while they finish,
+ * and before the connection to Redis is closed.
+ */
+abstract class BackgroundWorker implements SmartLifecycle {
+    /**
+     * Lifecycle phase of background workers: the web server (with a higher phase) is stopped first,
+     * and connection factories (with a lower phase) are stopped last.
+     */
+    static final int PHASE = DEFAULT_PHASE - 4096;
+
+    private final String threadName;
+    volatile boolean running;
+    private Thread thread;
+
+    BackgroundWorker(String threadName) {
+        this.threadName = threadName;
+    }
+
+    /**
+     * Do the work of this component, until {@link #running} is cleared.
+     */
+    abstract void run();
+
+    /**
+     * Wait for the background thread to finish its work once {@link #running} is cleared.
+     */
+    abstract void awaitStop(Thread thread) throws InterruptedException;
+
+    /**
+     * Called once the background thread has been stopped.
+     */
+    void afterStop() {
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().name(threadName).daemon().start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        final var t = thread;
+        if (t == null) {
+            return;
+        }
+        try {
+            awaitStop(t);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        afterStop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
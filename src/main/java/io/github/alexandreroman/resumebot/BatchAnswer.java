@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Answer to a prompt from a batch (see {@link ChatService#processBatch}).
+ *
+ * @param index       index of the prompt in the batch
+ * @param prompt      prompt
+ * @param answer      answer to the prompt, or <code>null</code> if the prompt could not be answered
+ * @param foundAnswer <code>true</code> if the answer was found in the resume
+ * @param degraded    <code>true</code> if the answer to a similar prompt was used, since the model was unavailable
+ * @param error       reason why the prompt could not be answered, or <code>null</code>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+record BatchAnswer(int index, String prompt, String answer, boolean foundAnswer, boolean degraded, String error) {
+    static BatchAnswer failed(int index, String prompt, String error) {
+        return new BatchAnswer(index, prompt, null, false, false, error);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal of the chat requests handled by this instance, used to replay a realistic workload.
+ * <p>
+ * Requests are queued in memory and appended to NDJSON files in the background, so that chat requests
+ * never wait for the disk: requests are dropped when the queue is full.
+ * The journal is split into segments of a bounded size, and the oldest segments are deleted.
+ */
+@Component
+@ConditionalOnBooleanProperty("app.capture.enabled")
+class CaptureJournal extends BackgroundWorker {
+    private static final String SEGMENT_PREFIX = "capture-";
+    private static final String SEGMENT_SUFFIX = ".ndjson";
+
+    private final Logger logger = LoggerFactory.getLogger(CaptureJournal.class);
+    private final AppConfig.Capture config;
+    private final JsonMapper jsonMapper;
+    private final BlockingQueue<Entry> queue;
+    private final Counter captured;
+    private final Counter dropped;
+    private OutputStream segment;
+    private long segmentSize;
+    private long segmentCount;
+
+    @Autowired
+    CaptureJournal(AppConfig config, JsonMapper jsonMapper, MeterRegistry meterRegistry) {
+        this(config.capture(), jsonMapper, meterRegistry);
+    }
+
+    CaptureJournal(AppConfig.Capture config, JsonMapper jsonMapper, MeterRegistry meterRegistry) {
+        super("capture-journal");
+        this.config = config;
+        this.jsonMapper = jsonMapper;
+        this.queue = new ArrayBlockingQueue<>(this.config.queueCapacity());
+        Gauge.builder("resumebot.capture.queued", queue, BlockingQueue::size)
+                .description("Number of requests waiting to be written to the capture journal").register(meterRegistry);
+        this.captured = Counter.builder("resumebot.capture.requests").tag("result", "captured")
+                .description("Number of requests written to the capture journal").register(meterRegistry);
+        this.dropped = Counter.builder("resumebot.capture.requests").tag("result", "dropped")
+                .description("Number of requests dropped since the capture queue was full").register(meterRegistry);
+    }
+
+    /**
+     * Captured chat request.
+     *
+     * @param timestamp        time at which the request was received
+     * @param endpoint         endpoint which handled the request: <code>chat</code> or <code>stream</code>
+     * @param resumeId         identifier of the resume
+     * @param conversationId   conversation identifier, or <code>null</code> for a single prompt
+     * @param prompt           prompt
+     * @param durationMillis   time to answer the prompt, in milliseconds
+     * @param promptTokens     number of tokens sent to the model, or 0 if the model was not called
+     * @param completionTokens number of tokens generated by the model
+     * @param answer           answer to the prompt, or <code>null</code> if the request failed
+     * @param error            reason why the request failed, or <code>null</code>
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Entry(Instant timestamp, String endpoint, String resumeId, String conversationId, String prompt,
+                 long durationMillis, long promptTokens, long completionTokens, String answer, String error) {
+    }
+
+    /**
+     * Queue a chat request to be written to the journal.
+     *
+     * @param response last response from the model, or <code>null</code> if the model was not called
+     */
+    void add(String endpoint, Resume resume, String conversationId, String prompt, Instant timestamp,
+             Duration duration, ChatResponse response, String answer, String error) {
+        if (!running) {
+            return;
+        }
+        long promptTokens = 0;
+        long completionTokens = 0;
+        if (response != null && response.getMetadata() != null && response.getMetadata().getUsage() != null) {
+            final var usage = response.getMetadata().getUsage();
+            promptTokens = usage.getPromptTokens() == null ? 0 : usage.getPromptTokens();
+            completionTokens = usage.getCompletionTokens() == null ? 0 : usage.getCompletionTokens();
+        }
+        final var entry = new Entry(timestamp, endpoint, resume.id(), conversationId, prompt,
+                duration.toMillis(), promptTokens, completionTokens, answer, error);
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    void run() {
+        final var batch = new ArrayList<Entry>();
+        while (running || !queue.isEmpty()) {
+            try {
+                final var first = queue.poll(config.flushInterval().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // Stop waiting: remaining requests are written right away.
+                running = false;
+            }
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        closeSegment();
+    }
+
+    private void write(List<Entry> batch) {
+        try {
+            for (final var entry : batch) {
+                if (segment == null || segmentSize >= config.segmentSize().toBytes()) {
+                    openSegment();
+                }
+                final var line = jsonMapper.writeValueAsBytes(entry);
+                segment.write(line);
+                segment.write('\n');
+                segmentSize += line.length + 1;
+            }
+            segment.flush();
+            captured.increment(batch.size());
+        } catch (IOException e) {
+            logger.error("Failed to write {} requests to the capture journal", batch.size(), e);
+            dropped.increment(batch.size());
+            closeSegment();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        closeSegment();
+        Files.createDirectories(config.directory());
+        // Segment names are sorted by creation time, and do not collide between instances sharing a directory.
+        final var path = config.directory().resolve(String.format("%s%d-%d-%06d%s", SEGMENT_PREFIX,
+                System.currentTimeMillis(), ProcessHandle.current().pid(), segmentCount++, SEGMENT_SUFFIX));
+        // Entries are buffered: the segment is flushed once per batch.
+        segment = new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+        segmentSize = 0;
+        logger.info("Capturing chat requests to {}", path);
+        deleteOldSegments();
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close capture journal segment", e);
+        }
+        segment = null;
+    }
+
+    private void deleteOldSegments() {
+        try {
+            final var segments = listSegments(config.directory());
+            for (int i = 0; i < segments.size() - config.maxSegments(); ++i) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete old capture journal segments", e);
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        final var name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    /**
+     * List the segments of a journal, from the oldest to the newest.
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        try (final var files = Files.list(directory)) {
+            return files.filter(CaptureJournal::isSegment).sorted().toList();
+        }
+    }
+
+    @Override
+    void awaitStop(Thread thread) throws InterruptedException {
+        thread.join(config.drainTimeout());
+    }
+
+    @Override
+    void afterStop() {
+        if (!queue.isEmpty()) {
+            logger.warn("Failed to write {} requests to the capture journal before shutdown", queue.size());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead limiting the number of concurrent calls to the model.
+ * <p>
+ * Calls exceeding the limit wait in a bounded queue: a call is rejected
+ * when the queue is full, or when no permit is available after some time.
+ */
+@Component
+class ChatBulkhead {
+    private final Logger logger = LoggerFactory.getLogger(ChatBulkhead.class);
+    private final AppConfig.Bulkhead config;
+    private final Semaphore permits;
+    private final AtomicInteger waitingCalls = new AtomicInteger();
+    private final Counter rejectedCalls;
+
+    ChatBulkhead(AppConfig config, MeterRegistry meterRegistry) {
+        this.config = config.bulkhead();
+        this.permits = new Semaphore(this.config.maxConcurrentCalls(), true);
+        Gauge.builder("resumebot.chat.bulkhead.active", this, ChatBulkhead::getActiveCalls)
+                .description("Number of calls to the model in progress").register(meterRegistry);
+        Gauge.builder("resumebot.chat.bulkhead.waiting", waitingCalls, AtomicInteger::get)
+                .description("Number of calls waiting for a permit").register(meterRegistry);
+        this.rejectedCalls = Counter.builder("resumebot.chat.bulkhead.rejected")
+                .description("Number of rejected calls").register(meterRegistry);
+    }
+
+    /**
+     * Run a call to the model, waiting for a permit if needed.
+     *
+     * @throws ChatRejectedException if no permit is available
+     */
+    <T> T execute(Supplier<T> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Run a streamed call to the model.
+     * A permit is acquired when the stream is subscribed, and released when the stream completes,
+     * fails or is cancelled: the stream fails with a {@link ChatRejectedException} if no permit is available.
+     */
+    <T> Flux<T> stream(Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            acquire();
+            return Flux.defer(call).doFinally(signal -> release());
+        });
+    }
+
+    /**
+     * Acquire a permit: {@link #release()} must be called once the call to the model is done.
+     *
+     * @throws ChatRejectedException if no permit is available
+     */
+    void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waitingCalls.incrementAndGet() > config.maxWaitingCalls()) {
+            waitingCalls.decrementAndGet();
+            throw reject("Too many requests are being processed");
+        }
+        try {
+            if (!permits.tryAcquire(config.maxWait().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw reject("Timed out while waiting for the request to be processed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("Interrupted while waiting for the request to be processed");
+        } finally {
+            waitingCalls.decrementAndGet();
+        }
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    /**
+     * Check whether this bulkhead is saturated, meaning that new calls are likely to be rejected.
+     */
+    boolean isSaturated() {
+        return permits.availablePermits() == 0 && waitingCalls.get() >= config.maxWaitingCalls();
+    }
+
+    int getActiveCalls() {
+        return config.maxConcurrentCalls() - permits.availablePermits();
+    }
+
+    int getWaitingCalls() {
+        return waitingCalls.get();
+    }
+
+    private ChatRejectedException reject(String message) {
+        rejectedCalls.increment();
+        logger.warn("Rejecting call to the model: {}", message);
+        return new ChatRejectedException(message, HttpStatus.SERVICE_UNAVAILABLE, config.retryAfter());
+    }
+}
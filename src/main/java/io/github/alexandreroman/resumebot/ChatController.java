@@ -16,84 +16,129 @@
 
 package io.github.alexandreroman.resumebot;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.annotation.JsonPropertyDescription;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.ai.chat.client.AdvisorParams;
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.messages.MessageType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
 
 @RestController
 class ChatController {
-    private final Logger logger = LoggerFactory.getLogger(ChatController.class);
-    private final ChatTools tools;
-    private final MessageService messageService;
-    private final ChatClient chatClient;
-    private final AppConfig config;
-
-    ChatController(ChatTools tools, MessageService messageService, ChatClient.Builder chatClientBuilder, AppConfig config) {
-        this.tools = tools;
-        this.messageService = messageService;
-        this.chatClient = chatClientBuilder.build();
-        this.config = config;
+    private static final String RESUME_HEADER = "X-Resume-Id";
+    private static final String DEGRADED_HEADER = "X-Degraded";
+
+    private final ResumeRegistry resumeRegistry;
+    private final ChatService chatService;
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final int maxBatchPrompts;
+
+    ChatController(ResumeRegistry resumeRegistry, ChatService chatService,
+                   ObjectProvider<RateLimitInterceptor> rateLimitInterceptor, AppConfig config) {
+        this.resumeRegistry = resumeRegistry;
+        this.chatService = chatService;
+        this.rateLimitInterceptor = rateLimitInterceptor.getIfAvailable();
+        this.maxBatchPrompts = config.batch().maxPrompts();
     }
 
-    @PostMapping(value = "/chat", produces = MediaType.TEXT_MARKDOWN_VALUE)
-    @RegisterReflectionForBinding(ChatResponse.class)
-    String chat(@RequestParam("prompt") String prompt,
-                @RequestParam(value = "conversationId", required = false) String conversationId) {
-        if (prompt == null) {
-            throw new IllegalArgumentException("Input prompt cannot be null");
+    @PostMapping(value = {"/chat", "/resumes/{resumeId}/chat"}, produces = MediaType.TEXT_MARKDOWN_VALUE)
+    @RegisterReflectionForBinding(ChatAnswer.class)
+    ResponseEntity<String> chat(@RequestParam("prompt") String prompt,
+                                @RequestParam(value = "conversationId", required = false) String conversationId,
+                                @PathVariable(value = "resumeId", required = false) String resumeId,
+                                @RequestHeader(value = RESUME_HEADER, required = false) String resumeHeader) {
+        final var resume = resumeRegistry.getResume(resumeId != null ? resumeId : resumeHeader);
+        final var p = validatePrompt(prompt);
+        try {
+            return ResponseEntity.ok(chatService.processPrompt(resume, conversationId, p));
+        } catch (ModelUnavailableException e) {
+            return ResponseEntity.ok().header(DEGRADED_HEADER, "true")
+                    .body(chatService.answerFromArchive(resume, p, e));
         }
-        final var p = prompt.trim();
-        if (p.isEmpty()) {
-            throw new IllegalArgumentException("Input prompt cannot be empty");
+    }
+
+    @PostMapping(value = {"/chat/stream", "/resumes/{resumeId}/chat/stream"}, produces = MediaType.TEXT_MARKDOWN_VALUE)
+    @RegisterReflectionForBinding(ChatAnswer.class)
+    ResponseEntity<Flux<String>> chatStream(@RequestParam("prompt") String prompt,
+                                            @RequestParam(value = "conversationId", required = false) String conversationId,
+                                            @PathVariable(value = "resumeId", required = false) String resumeId,
+                                            @RequestHeader(value = RESUME_HEADER, required = false) String resumeHeader) {
+        final var resume = resumeRegistry.getResume(resumeId != null ? resumeId : resumeHeader);
+        final var p = validatePrompt(prompt);
+        try {
+            return ResponseEntity.ok(chatService.streamPrompt(resume, conversationId, p));
+        } catch (ModelUnavailableException e) {
+            return ResponseEntity.ok().header(DEGRADED_HEADER, "true")
+                    .body(Flux.just(chatService.answerFromArchive(resume, p, e)));
+        }
+    }
+
+    @PostMapping(value = {"/chat/batch", "/resumes/{resumeId}/chat/batch"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    @RegisterReflectionForBinding({ChatAnswer.class, BatchAnswer.class})
+    List<BatchAnswer> chatBatch(@RequestBody List<String> prompts,
+                                @RequestParam(value = "conversationId", required = false) String conversationId,
+                                @PathVariable(value = "resumeId", required = false) String resumeId,
+                                @RequestHeader(value = RESUME_HEADER, required = false) String resumeHeader,
+                                HttpServletRequest request, HttpServletResponse response) {
+        final var resume = resumeRegistry.getResume(resumeId != null ? resumeId : resumeHeader);
+        final var p = validatePrompts(prompts);
+        checkRateLimits(request, response, p);
+        return chatService.processBatch(resume, conversationId, p, answer -> {
+        });
+    }
+
+    @PostMapping(value = {"/chat/batch", "/resumes/{resumeId}/chat/batch"}, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @RegisterReflectionForBinding({ChatAnswer.class, BatchAnswer.class})
+    Flux<BatchAnswer> chatBatchStream(@RequestBody List<String> prompts,
+                                      @RequestParam(value = "conversationId", required = false) String conversationId,
+                                      @PathVariable(value = "resumeId", required = false) String resumeId,
+                                      @RequestHeader(value = RESUME_HEADER, required = false) String resumeHeader,
+                                      HttpServletRequest request, HttpServletResponse response) {
+        final var resume = resumeRegistry.getResume(resumeId != null ? resumeId : resumeHeader);
+        final var p = validatePrompts(prompts);
+        checkRateLimits(request, response, p);
+        // Answers are sent as soon as they are available, in any order.
+        return chatService.streamBatch(resume, conversationId, p);
+    }
+
+    private void checkRateLimits(HttpServletRequest request, HttpServletResponse response, List<String> prompts) {
+        // A batch takes a token per prompt.
+        if (rateLimitInterceptor != null) {
+            rateLimitInterceptor.check(request, response, prompts.size());
         }
-        return processPrompt(conversationId, p);
     }
 
-    private String processPrompt(String conversationId, String prompt) {
-        final var cid = conversationId == null ? "<none>" : conversationId;
-        logger.info("Processing prompt [{}] from conversation {}", prompt, cid);
-
-        final var resp = chatClient.prompt()
-                .system(config.systemPrompt())
-                .user(u -> u.text(config.userPrompt())
-                        .param("resume", config.resume())
-                        .param("prompt", prompt)
-                        .param("conversation", getConversationHistory(conversationId)))
-                .tools(tools)
-                // Enable native structured output, using the JSON schema from the target objet.
-                .advisors(AdvisorParams.ENABLE_NATIVE_STRUCTURED_OUTPUT)
-                .call().entity(ChatResponse.class);
-        if (resp == null) {
-            throw new IllegalStateException(
-                    "No response from AI after asking [" + prompt + "] in conversation " + cid);
+    private List<String> validatePrompts(List<String> prompts) {
+        if (prompts == null || prompts.isEmpty()) {
+            throw new IllegalArgumentException("Input prompts cannot be empty");
         }
-        if (!resp.foundAnswer) {
-            logger.info("No answer found for prompt [{}] from conversation {}", prompt, cid);
-        } else {
-            logger.info("Found answer for prompt [{}] from conversation {}: {}", prompt, cid, resp.answer);
-
-            if (conversationId != null) {
-                messageService.addMessage(conversationId, MessageType.USER, prompt);
-                messageService.addMessage(conversationId, MessageType.ASSISTANT, resp.answer);
-            }
+        if (prompts.size() > maxBatchPrompts) {
+            throw new IllegalArgumentException("Too many prompts in batch (maximum: " + maxBatchPrompts + ")");
         }
-        return resp.answer;
+        return prompts.stream().map(this::validatePrompt).toList();
     }
 
-    private String getConversationHistory(String conversationId) {
-        return String.join("\n", messageService.getMessages(conversationId));
+    private String validatePrompt(String prompt) {
+        if (prompt == null) {
+            throw new IllegalArgumentException("Input prompt cannot be null");
+        }
+        final var p = prompt.trim();
+        if (p.isEmpty()) {
+            throw new IllegalArgumentException("Input prompt cannot be empty");
+        }
+        return p;
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
@@ -101,8 +146,15 @@ class ChatController {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
     }
 
-    private record ChatResponse(
-            @JsonProperty(value = "answer", required = true) @JsonPropertyDescription("Answer to the question in Markdown, may default to a generic answer if the resume is missing data") String answer,
-            @JsonProperty(value = "foundAnswer", required = true) @JsonPropertyDescription("Set to true if the answer was found in the resume, otherwise set to false if the resume is missing data") boolean foundAnswer) {
+    @ExceptionHandler(ResumeNotFoundException.class)
+    ResponseEntity<String> handleResumeNotFoundException(ResumeNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Error: " + e.getMessage());
+    }
+
+    @ExceptionHandler(ChatRejectedException.class)
+    ResponseEntity<String> handleChatRejectedException(ChatRejectedException e) {
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                .body("Error: " + e.getMessage());
     }
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Metrics about model calls.
+ * <p>
+ * Each stage of a chat request (see {@link Stage}) is observed: this creates a timer named
+ * <code>resumebot.chat.stage</code>, and a span which is exported with the other traces.
+ * All metrics are tagged with the name of the model which has answered, since a call may be sent to
+ * a backup model (see {@link ChatModelRouter}): the default model is used until the model has answered.
+ */
+@Component
+class ChatMetrics {
+    static final String STAGE_OBSERVATION = "resumebot.chat.stage";
+    static final String TOOL_OBSERVATION = "resumebot.chat.tool";
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final String defaultModel;
+    private final Map<String, ModelMeters> modelMeters = new ConcurrentHashMap<>();
+    private final Counter degradedAnswers;
+    private final Counter unavailableAnswers;
+
+    ChatMetrics(MeterRegistry meterRegistry, ObservationRegistry observationRegistry, ChatModel chatModel) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        final var options = chatModel.getDefaultOptions();
+        this.defaultModel = options != null && options.getModel() != null ? options.getModel() : "unknown";
+        this.degradedAnswers = Counter.builder("resumebot.chat.degraded").tag("result", "answered")
+                .description("Number of prompts answered from archived answers while the model was unavailable")
+                .register(meterRegistry);
+        this.unavailableAnswers = Counter.builder("resumebot.chat.degraded").tag("result", "unavailable")
+                .description("Number of prompts rejected while the model was unavailable")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stages of a chat request.
+     */
+    enum Stage {
+        HISTORY_READ("history.read"),
+        PROMPT_RENDER("prompt.render"),
+        MODEL_CALL("model.call"),
+        ENTITY_CONVERSION("entity.conversion"),
+        HISTORY_WRITE("history.write");
+
+        private final String value;
+
+        Stage(String value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Observe a stage of a chat request.
+     */
+    <T> T observe(Stage stage, Supplier<T> supplier) {
+        return createObservation(stage).observe(supplier);
+    }
+
+    /**
+     * Observe a stage of a chat request.
+     */
+    void observe(Stage stage, Runnable runnable) {
+        createObservation(stage).observe(runnable);
+    }
+
+    /**
+     * Observe a model call: the observation is tagged with the model which has answered.
+     */
+    ChatResponse observeModelCall(Supplier<ChatResponse> supplier) {
+        final var observation = createObservation(Stage.MODEL_CALL);
+        return observation.observe(() -> {
+            final var response = supplier.get();
+            tagModel(observation, response);
+            return response;
+        });
+    }
+
+    /**
+     * Tag an observation with the model which has sent a response.
+     * This is used for streamed responses, before the observation is stopped.
+     */
+    void tagModel(Observation observation, ChatResponse response) {
+        final var model = getModel(response);
+        if (model != null) {
+            observation.lowCardinalityKeyValue("model", model);
+        }
+    }
+
+    /**
+     * Create an observation for a stage of a chat request, which must be started and stopped by the caller.
+     * This is used for streamed responses, since the stage ends when the stream is done.
+     */
+    Observation createObservation(Stage stage) {
+        return Observation.createNotStarted(STAGE_OBSERVATION, observationRegistry)
+                .contextualName("chat " + stage.value)
+                .lowCardinalityKeyValue("stage", stage.value)
+                .lowCardinalityKeyValue("model", defaultModel);
+    }
+
+    /**
+     * Observe a tool invocation.
+     *
+     * @param model name of the model which has invoked the tool, or <code>null</code> if it is not known
+     */
+    <T> T observeTool(String tool, String model, Supplier<T> supplier) {
+        return Observation.createNotStarted(TOOL_OBSERVATION, observationRegistry)
+                .contextualName("tool " + tool)
+                .lowCardinalityKeyValue("tool", tool)
+                .lowCardinalityKeyValue("model", model != null ? model : defaultModel)
+                .observe(supplier);
+    }
+
+    /**
+     * Record the time the model took to send the first token of a streamed response.
+     */
+    void recordTimeToFirstToken(ChatResponse response, Duration duration) {
+        getModelMeters(response).timeToFirstToken.record(duration);
+    }
+
+    /**
+     * Record whether the model found an answer.
+     */
+    void recordAnswer(ChatResponse response, boolean foundAnswer) {
+        final var meters = getModelMeters(response);
+        (foundAnswer ? meters.foundAnswers : meters.notFoundAnswers).increment();
+    }
+
+    /**
+     * Record whether a prompt was answered from archived answers while the model was unavailable.
+     */
+    void recordDegraded(boolean answered) {
+        (answered ? degradedAnswers : unavailableAnswers).increment();
+    }
+
+    /**
+     * Record the outcome of a prompt from a batch: <code>answered</code>, <code>degraded</code>,
+     * <code>failed</code> or <code>timeout</code>.
+     */
+    void recordBatchAnswer(String result) {
+        Counter.builder("resumebot.chat.batch.prompts").tag("result", result)
+                .description("Number of prompts from batches, by outcome").register(meterRegistry).increment();
+    }
+
+    /**
+     * Record the token usage of a model response.
+     */
+    void recordUsage(ChatResponse response) {
+        if (response == null || response.getMetadata() == null) {
+            return;
+        }
+        final var usage = response.getMetadata().getUsage();
+        if (usage == null || usage.getPromptTokens() == null || usage.getPromptTokens() == 0) {
+            // Streamed chunks do not include usage, except for the last one.
+            return;
+        }
+        final var meters = getModelMeters(response);
+        meters.promptTokens.increment(usage.getPromptTokens());
+        meters.promptTokensPerCall.record(usage.getPromptTokens());
+        if (usage.getCompletionTokens() != null) {
+            meters.completionTokens.increment(usage.getCompletionTokens());
+            meters.completionTokensPerCall.record(usage.getCompletionTokens());
+        }
+        if (usage.getNativeUsage() instanceof OpenAiApi.Usage nativeUsage
+                && nativeUsage.promptTokensDetails() != null
+                && nativeUsage.promptTokensDetails().cachedTokens() != null) {
+            meters.cachedTokens.increment(nativeUsage.promptTokensDetails().cachedTokens());
+            meters.cachedTokensPerCall.record(nativeUsage.promptTokensDetails().cachedTokens());
+        }
+    }
+
+    private ModelMeters getModelMeters(ChatResponse response) {
+        final var model = getModel(response);
+        return modelMeters.computeIfAbsent(model != null ? model : defaultModel,
+                m -> new ModelMeters(m, meterRegistry));
+    }
+
+    private static String getModel(ChatResponse response) {
+        return response != null && response.getMetadata() != null
+                && response.getMetadata().getModel() != null && !response.getMetadata().getModel().isEmpty()
+                ? response.getMetadata().getModel() : null;
+    }
+
+    private record ModelMeters(Counter promptTokens, Counter cachedTokens, Counter completionTokens,
+                               DistributionSummary promptTokensPerCall, DistributionSummary cachedTokensPerCall,
+                               DistributionSummary completionTokensPerCall, Timer timeToFirstToken,
+                               Counter foundAnswers, Counter notFoundAnswers) {
+        ModelMeters(String model, MeterRegistry meterRegistry) {
+            this(Counter.builder("resumebot.chat.tokens").tag("type", "prompt").tag("model", model)
+                            .description("Number of prompt tokens sent to the model").register(meterRegistry),
+                    Counter.builder("resumebot.chat.tokens").tag("type", "cached").tag("model", model)
+                            .description("Number of prompt tokens read from the model provider cache")
+                            .register(meterRegistry),
+                    Counter.builder("resumebot.chat.tokens").tag("type", "completion").tag("model", model)
+                            .description("Number of tokens generated by the model").register(meterRegistry),
+                    tokensPerCall("prompt", model, meterRegistry),
+                    tokensPerCall("cached", model, meterRegistry),
+                    tokensPerCall("completion", model, meterRegistry),
+                    Timer.builder("resumebot.chat.time-to-first-token").tag("model", model)
+                            .description("Time until the model sends the first token of a streamed response")
+                            .publishPercentiles(0.5, 0.95, 0.99)
+                            .register(meterRegistry),
+                    Counter.builder("resumebot.chat.answers").tag("found", "true").tag("model", model)
+                            .description("Number of answers found by the model").register(meterRegistry),
+                    Counter.builder("resumebot.chat.answers").tag("found", "false").tag("model", model)
+                            .description("Number of prompts the model could not answer").register(meterRegistry));
+        }
+
+        private static DistributionSummary tokensPerCall(String type, String model, MeterRegistry meterRegistry) {
+            return DistributionSummary.builder("resumebot.chat.call.tokens").tag("type", type).tag("model", model)
+                    .description("Number of tokens per model call")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,555 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.observation.AdvisorObservationConvention;
+import org.springframework.ai.chat.client.observation.ChatClientObservationConvention;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.model.chat.client.autoconfigure.ChatClientBuilderConfigurer;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Router sending calls to the primary model, or to a backup model when the primary model is slow or failing.
+ * <p>
+ * When hedging is enabled, a second request is sent to the backup model if the primary model has not answered
+ * after the hedging delay, or if it fails: the first answer wins, and the other request is cancelled.
+ * The hedging delay is a percentile of the latency of recent calls to the primary model (the time to first token
+ * for streamed responses). A circuit breaker sends calls straight to the backup model
+ * while the primary model is failing or too slow.
+ * <p>
+ * Another circuit breaker protects all calls, whether they are hedged or not: while it is open,
+ * calls are rejected right away with a {@link ModelUnavailableException}. A permit is acquired from this
+ * circuit breaker before the call is sent (see {@link #acquire()}), so that a streamed response never fails
+ * because the circuit has opened in the meantime.
+ * Calls which do not complete in time are cancelled, and count as failed.
+ */
+@Component
+class ChatModelRouter implements DisposableBean {
+    private static final String PRIMARY = "primary";
+    private static final String BACKUP = "backup";
+
+    private final Logger logger = LoggerFactory.getLogger(ChatModelRouter.class);
+    private final AppConfig.Hedging config;
+    private final ChatClient primaryClient;
+    private final ChatClient backupClient;
+    private final CircuitBreaker circuitBreaker;
+    private final CircuitBreaker modelCircuitBreaker;
+    private final Duration callTimeout;
+    private final LatencyWindow callLatencies;
+    private final LatencyWindow streamLatencies;
+    private final ExecutorService executor;
+    private final Counter delayedBackupCalls;
+    private final Counter failoverBackupCalls;
+    private final Counter openCircuitBackupCalls;
+    private final Counter primaryWins;
+    private final Counter backupWins;
+
+    @Autowired
+    ChatModelRouter(ChatClient.Builder chatClientBuilder, ChatModel chatModel, AppConfig config,
+                    MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+                    ObjectProvider<ChatClientBuilderConfigurer> chatClientBuilderConfigurer,
+                    ObjectProvider<ChatClientObservationConvention> chatClientObservationConvention,
+                    ObjectProvider<AdvisorObservationConvention> advisorObservationConvention,
+                    ObjectProvider<RestClient.Builder> restClientBuilder,
+                    ObjectProvider<WebClient.Builder> webClientBuilder) {
+        this(chatClientBuilder.defaultToolContext(createToolContext(getModel(chatModel), null)).build(),
+                !config.hedging().enabled() ? null
+                        : chatClientBuilderConfigurer.getIfAvailable(ChatClientBuilderConfigurer::new)
+                        .configure(ChatClient.builder(createBackupModel(chatModel, config.hedging().backup(),
+                                        restClientBuilder.getIfAvailable(RestClient::builder),
+                                        webClientBuilder.getIfAvailable(WebClient::builder)),
+                                observationRegistry, chatClientObservationConvention.getIfUnique(),
+                                advisorObservationConvention.getIfUnique()))
+                        .defaultToolContext(createToolContext(getModel(chatModel),
+                                config.hedging().backup().model()))
+                        .build(),
+                config, meterRegistry);
+    }
+
+    /**
+     * Create a router.
+     *
+     * @param backupClient client of the backup model, or <code>null</code> if hedging is disabled
+     */
+    ChatModelRouter(ChatClient primaryClient, ChatClient backupClient, AppConfig config, MeterRegistry meterRegistry) {
+        this.config = config.hedging();
+        this.primaryClient = primaryClient;
+        this.backupClient = backupClient == null ? primaryClient : backupClient;
+        this.circuitBreaker = new CircuitBreaker(PRIMARY, this.config.circuitBreaker(), meterRegistry);
+        final var degraded = config.degraded();
+        this.modelCircuitBreaker = degraded.enabled()
+                ? new CircuitBreaker("model", degraded.circuitBreaker(), meterRegistry) : null;
+        this.callTimeout = degraded.callTimeout();
+        this.callLatencies = new LatencyWindow(this.config.latencyWindow());
+        this.streamLatencies = new LatencyWindow(this.config.latencyWindow());
+        // Calls run on virtual threads, keeping the current observation.
+        this.executor = ContextExecutorService.wrap(Executors.newVirtualThreadPerTaskExecutor(),
+                ContextSnapshotFactory.builder().build()::captureAll);
+
+        TimeGauge.builder("resumebot.chat.hedging.delay", this, TimeUnit.MILLISECONDS,
+                        r -> r.getHedgingDelay(r.callLatencies).toMillis())
+                .description("Delay before sending a request to the backup model").register(meterRegistry);
+        this.delayedBackupCalls = createBackupCallCounter(meterRegistry, "delay");
+        this.failoverBackupCalls = createBackupCallCounter(meterRegistry, "failure");
+        this.openCircuitBackupCalls = createBackupCallCounter(meterRegistry, "circuit-open");
+        this.primaryWins = Counter.builder("resumebot.chat.hedging.wins").tag("model", PRIMARY)
+                .description("Number of calls answered by the primary model")
+                .register(meterRegistry);
+        this.backupWins = Counter.builder("resumebot.chat.hedging.wins").tag("model", BACKUP)
+                .description("Number of calls answered by the backup model, instead of the primary model")
+                .register(meterRegistry);
+    }
+
+    private static Counter createBackupCallCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("resumebot.chat.hedging.backup-calls").tag("reason", reason)
+                .description("Number of requests sent to the backup model").register(meterRegistry);
+    }
+
+    private static String getModel(ChatModel chatModel) {
+        final var options = chatModel.getDefaultOptions();
+        return options != null ? options.getModel() : null;
+    }
+
+    /**
+     * Create the tool context of a chat client, so that tool invocations are tagged with the model
+     * which has invoked them (see {@link ChatTools}).
+     *
+     * @param model         name of the primary model
+     * @param modelOverride name of the model used instead of the primary model, or <code>null</code>
+     */
+    private static Map<String, Object> createToolContext(String model, String modelOverride) {
+        final var name = modelOverride != null ? modelOverride : model;
+        return name != null ? Map.of(ChatTools.MODEL, name) : Map.of();
+    }
+
+    /**
+     * Create the backup model. A chat client builder cannot switch to another model:
+     * the backup client is built like the primary one, with the same customizers and observation conventions.
+     */
+    private static ChatModel createBackupModel(ChatModel chatModel, AppConfig.Backup backup,
+                                               RestClient.Builder restClientBuilder,
+                                               WebClient.Builder webClientBuilder) {
+        if (!(chatModel instanceof OpenAiChatModel openAiChatModel)) {
+            throw new IllegalStateException("Hedging is only supported with OpenAI models");
+        }
+        final var builder = openAiChatModel.mutate();
+        if (backup.baseUrl() != null) {
+            if (backup.apiKey() == null) {
+                throw new IllegalStateException("The API key of the backup model must be set along with its base URL");
+            }
+            builder.openAiApi(OpenAiApi.builder()
+                    .baseUrl(backup.baseUrl())
+                    .apiKey(backup.apiKey())
+                    .restClientBuilder(restClientBuilder)
+                    .webClientBuilder(webClientBuilder)
+                    .build());
+        }
+        if (backup.model() != null) {
+            final var options = OpenAiChatOptions.fromOptions((OpenAiChatOptions) chatModel.getDefaultOptions());
+            options.setModel(backup.model());
+            builder.defaultOptions(options);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Call the model.
+     *
+     * @param permit permit acquired for this call
+     * @param call   function sending a request with a chat client
+     */
+    ChatResponse call(Permit permit, Function<ChatClient, ChatResponse> call) {
+        permit.use();
+        if (modelCircuitBreaker == null) {
+            return route(call);
+        }
+        final long start = System.nanoTime();
+        final var future = executor.submit(() -> route(call));
+        try {
+            final var response = future.get(callTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            modelCircuitBreaker.onSuccess(Duration.ofNanos(System.nanoTime() - start));
+            return response;
+        } catch (TimeoutException e) {
+            modelCircuitBreaker.onFailure(Duration.ofNanos(System.nanoTime() - start));
+            throw new IllegalStateException("The model has not answered within " + callTimeout, e);
+        } catch (ExecutionException e) {
+            modelCircuitBreaker.onFailure(Duration.ofNanos(System.nanoTime() - start));
+            throw toRuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            modelCircuitBreaker.onIgnored(permit.token);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling the model", e);
+        } finally {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Acquire a permit to call the model, before waiting for a call to be permitted (see {@link ChatBulkhead}).
+     * The permit must be passed to {@link #call(Permit, Function)} or {@link #stream(Permit, Function)},
+     * or released with {@link #release(Permit)} if the model is not called.
+     *
+     * @throws ModelUnavailableException if the model has been failing or too slow lately
+     */
+    Permit acquire() {
+        final long token = modelCircuitBreaker == null ? 0 : modelCircuitBreaker.tryAcquire();
+        if (token == CircuitBreaker.REJECTED) {
+            throw unavailable();
+        }
+        return new Permit(token);
+    }
+
+    /**
+     * Release a permit which has not been used: this method does nothing if the permit has been used.
+     */
+    void release(Permit permit) {
+        if (permit.done.compareAndSet(false, true) && modelCircuitBreaker != null) {
+            modelCircuitBreaker.onIgnored(permit.token);
+        }
+    }
+
+    private ModelUnavailableException unavailable() {
+        final var retryAfter = modelCircuitBreaker.getRemainingOpenDuration();
+        return new ModelUnavailableException(retryAfter.compareTo(Duration.ofSeconds(1)) < 0
+                ? Duration.ofSeconds(1) : retryAfter);
+    }
+
+    private ChatResponse route(Function<ChatClient, ChatResponse> call) {
+        if (!config.enabled()) {
+            return call.apply(primaryClient);
+        }
+        final long token = circuitBreaker.tryAcquire();
+        if (token == CircuitBreaker.REJECTED) {
+            openCircuitBackupCalls.increment();
+            return call.apply(backupClient);
+        }
+
+        final var completion = new ExecutorCompletionService<Attempt>(executor);
+        final long start = System.nanoTime();
+        final var primary = completion.submit(() -> attempt(PRIMARY, primaryClient, call));
+        Future<Attempt> backup = null;
+        boolean primaryDone = false;
+        try {
+            var result = poll(completion, getHedgingDelay(callLatencies));
+            if (result == null) {
+                logger.debug("Primary model has not answered in time: sending a request to the backup model");
+                delayedBackupCalls.increment();
+                backup = completion.submit(() -> attempt(BACKUP, backupClient, call));
+                result = take(completion);
+            }
+            int pending = backup == null ? 1 : 2;
+            while (true) {
+                --pending;
+                if (PRIMARY.equals(result.model())) {
+                    primaryDone = true;
+                    onPrimaryDone(result, callLatencies);
+                }
+                if (result.error() == null) {
+                    (PRIMARY.equals(result.model()) ? primaryWins : backupWins).increment();
+                    return result.response();
+                }
+                if (backup == null) {
+                    logger.debug("Primary model has failed: sending a request to the backup model", result.error());
+                    failoverBackupCalls.increment();
+                    backup = completion.submit(() -> attempt(BACKUP, backupClient, call));
+                    ++pending;
+                }
+                if (pending == 0) {
+                    throw result.error();
+                }
+                result = take(completion);
+            }
+        } finally {
+            // Cancel the request which has lost the race.
+            primary.cancel(true);
+            if (backup != null) {
+                backup.cancel(true);
+            }
+            if (!primaryDone) {
+                onPrimaryCancelled(Duration.ofNanos(System.nanoTime() - start), callLatencies, token);
+            }
+        }
+    }
+
+    /**
+     * Stream a response from the model.
+     * The request is sent to the backup model if the primary model has not sent anything after the hedging delay.
+     *
+     * @param permit permit acquired for this call, which is used when the stream is subscribed
+     * @param call   function sending a request with a chat client
+     */
+    Flux<ChatResponse> stream(Permit permit, Function<ChatClient, Flux<ChatResponse>> call) {
+        return Flux.defer(() -> {
+            permit.use();
+            if (modelCircuitBreaker == null) {
+                return routeStream(call);
+            }
+            final long start = System.nanoTime();
+            final var done = new AtomicBoolean();
+            return routeStream(call)
+                    // Only the first response is bound by the timeout.
+                    .timeout(Mono.delay(callTimeout), r -> Mono.never())
+                    .doOnNext(r -> {
+                        if (done.compareAndSet(false, true)) {
+                            modelCircuitBreaker.onSuccess(Duration.ofNanos(System.nanoTime() - start));
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (done.compareAndSet(false, true)) {
+                            modelCircuitBreaker.onFailure(Duration.ofNanos(System.nanoTime() - start));
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (done.compareAndSet(false, true)) {
+                            modelCircuitBreaker.onIgnored(permit.token);
+                        }
+                    });
+        });
+    }
+
+    private Flux<ChatResponse> routeStream(Function<ChatClient, Flux<ChatResponse>> call) {
+        if (!config.enabled()) {
+            return call.apply(primaryClient);
+        }
+        return Flux.defer(() -> {
+            final long token = circuitBreaker.tryAcquire();
+            if (token == CircuitBreaker.REJECTED) {
+                openCircuitBackupCalls.increment();
+                return call.apply(backupClient);
+            }
+            final long start = System.nanoTime();
+            final var primaryDone = new AtomicBoolean();
+            final var primaryFailed = Sinks.empty();
+            final var primary = call.apply(primaryClient)
+                    .doOnNext(r -> {
+                        if (primaryDone.compareAndSet(false, true)) {
+                            primaryWins.increment();
+                            onPrimaryDone(new Attempt(PRIMARY, r, null, System.nanoTime() - start), streamLatencies);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (primaryDone.compareAndSet(false, true)) {
+                            onPrimaryDone(new Attempt(PRIMARY, null, toRuntimeException(e),
+                                    System.nanoTime() - start), streamLatencies);
+                        }
+                        primaryFailed.tryEmitEmpty();
+                    })
+                    .doFinally(signal -> {
+                        if (primaryDone.compareAndSet(false, true)) {
+                            onPrimaryCancelled(Duration.ofNanos(System.nanoTime() - start), streamLatencies, token);
+                        }
+                    });
+            final var backupTrigger = Mono.firstWithSignal(
+                    Mono.delay(getHedgingDelay(streamLatencies)).then(), primaryFailed.asMono());
+            final var backup = Flux.defer(() -> {
+                        (primaryDone.get() ? failoverBackupCalls : delayedBackupCalls).increment();
+                        final var backupWon = new AtomicBoolean();
+                        return call.apply(backupClient).doOnNext(r -> {
+                            if (backupWon.compareAndSet(false, true)) {
+                                backupWins.increment();
+                            }
+                        });
+                    })
+                    .delaySubscription(backupTrigger);
+            // The first stream sending a response wins: the other one is cancelled.
+            return Flux.firstWithValue(primary, backup)
+                    // When both streams fail, report the failure of the backup model, as calls do.
+                    .onErrorMap(NoSuchElementException.class, e -> {
+                        final var errors = Exceptions.unwrapMultiple(e.getCause());
+                        return errors.isEmpty() ? e : errors.getLast();
+                    });
+        });
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    CircuitBreaker getModelCircuitBreaker() {
+        return modelCircuitBreaker;
+    }
+
+    private Duration getHedgingDelay(LatencyWindow latencies) {
+        final long nanos = latencies.percentile(config.delayPercentile());
+        final var delay = nanos < 0 ? config.initialDelay() : Duration.ofNanos(nanos);
+        if (delay.compareTo(config.minDelay()) < 0) {
+            return config.minDelay();
+        }
+        return delay.compareTo(config.maxDelay()) > 0 ? config.maxDelay() : delay;
+    }
+
+    private void onPrimaryDone(Attempt attempt, LatencyWindow latencies) {
+        final var duration = Duration.ofNanos(attempt.nanos());
+        if (attempt.error() == null) {
+            latencies.record(attempt.nanos());
+            circuitBreaker.onSuccess(duration);
+        } else {
+            logger.warn("Call to the primary model failed", attempt.error());
+            circuitBreaker.onFailure(duration);
+        }
+    }
+
+    private void onPrimaryCancelled(Duration duration, LatencyWindow latencies, long token) {
+        // The actual latency is at least this duration:
+        // keep it, so that the hedging delay grows when the primary model gets slower.
+        latencies.record(duration.toNanos());
+        if (duration.compareTo(config.circuitBreaker().slowCallDuration()) >= 0) {
+            circuitBreaker.onSuccess(duration);
+        } else {
+            circuitBreaker.onIgnored(token);
+        }
+    }
+
+    private Attempt attempt(String model, ChatClient client, Function<ChatClient, ChatResponse> call) {
+        final long start = System.nanoTime();
+        try {
+            return new Attempt(model, call.apply(client), null, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            return new Attempt(model, null, e, System.nanoTime() - start);
+        }
+    }
+
+    private static Attempt poll(ExecutorCompletionService<Attempt> completion, Duration timeout) {
+        try {
+            final var future = completion.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return future == null ? null : future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling the model", e);
+        } catch (ExecutionException e) {
+            throw toRuntimeException(e.getCause());
+        }
+    }
+
+    private static Attempt take(ExecutorCompletionService<Attempt> completion) {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling the model", e);
+        } catch (ExecutionException e) {
+            throw toRuntimeException(e.getCause());
+        }
+    }
+
+    private static RuntimeException toRuntimeException(Throwable e) {
+        return e instanceof RuntimeException re ? re : new IllegalStateException("Failed to call the model", e);
+    }
+
+    private record Attempt(String model, ChatResponse response, RuntimeException error, long nanos) {
+    }
+
+    /**
+     * Permit to call the model, granted by the circuit breaker protecting the model.
+     * A permit is used by a single call.
+     */
+    static final class Permit {
+        private final long token;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Permit(long token) {
+            this.token = token;
+        }
+
+        private void use() {
+            if (!done.compareAndSet(false, true)) {
+                throw new IllegalStateException("This permit has already been used or released");
+            }
+        }
+    }
+
+    /**
+     * Latencies of the most recent calls.
+     */
+    static final class LatencyWindow {
+        private static final int MIN_SAMPLES = 20;
+
+        private final long[] samples;
+        private int position;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long nanos) {
+            samples[position] = nanos;
+            position = (position + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * Get a percentile of the recorded latencies.
+         *
+         * @param percentile percentile between 0 and 1
+         * @return the latency in nanoseconds, or <code>-1</code> if too few latencies have been recorded
+         */
+        long percentile(double percentile) {
+            final long[] sorted;
+            synchronized (this) {
+                if (count < Math.min(MIN_SAMPLES, samples.length)) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(sorted);
+            final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.clamp(index, 0, sorted.length - 1)];
+        }
+    }
+}
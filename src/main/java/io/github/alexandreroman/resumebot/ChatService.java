@@ -0,0 +1,458 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Service answering prompts about a resume.
+ * <p>
+ * Answers to first-turn prompts are served from the {@link AnswerCache} when possible,
+ * and concurrent model calls for the same first-turn prompt are coalesced (see {@link PromptCoalescer}).
+ * Prompts sent in a batch are answered in parallel, each one on its own virtual thread.
+ */
+@Service
+class ChatService {
+    private final Logger logger = LoggerFactory.getLogger(ChatService.class);
+    private final Object[] tools;
+    private final HistoryService historyService;
+    private final ResumeRegistry resumeRegistry;
+    private final AnswerCache answerCache;
+    private final AnswerArchive answerArchive;
+    private final ChatBulkhead bulkhead;
+    private final PromptFactory promptFactory;
+    private final PromptCoalescer coalescer;
+    private final ChatMetrics metrics;
+    private final ChatModelRouter modelRouter;
+    private final AppConfig.Batch batchConfig;
+    private final CaptureJournal captureJournal;
+    private final BeanOutputConverter<ChatAnswer> outputConverter;
+    private final String outputSchema;
+
+    ChatService(ChatTools tools, HistoryService historyService, ResumeRegistry resumeRegistry, AnswerCache answerCache,
+                AnswerArchive answerArchive, ChatBulkhead bulkhead, PromptFactory promptFactory,
+                PromptCoalescer coalescer, ChatMetrics metrics, ChatModelRouter modelRouter,
+                ObjectProvider<CaptureJournal> captureJournal, AppConfig config) {
+        // Tools are not needed when the current date is included in prompts.
+        this.tools = config.dates().inject() ? new Object[0] : new Object[]{tools};
+        this.historyService = historyService;
+        this.resumeRegistry = resumeRegistry;
+        this.answerCache = answerCache;
+        this.answerArchive = answerArchive;
+        this.bulkhead = bulkhead;
+        this.promptFactory = promptFactory;
+        this.coalescer = coalescer;
+        this.metrics = metrics;
+        this.modelRouter = modelRouter;
+        this.batchConfig = config.batch();
+        this.captureJournal = captureJournal.getIfAvailable();
+        this.outputConverter = new BeanOutputConverter<>(ChatAnswer.class);
+        this.outputSchema = outputConverter.getJsonSchema();
+    }
+
+    /**
+     * Answer a prompt, from the answer cache or by calling the model.
+     *
+     * @param conversationId conversation identifier, or <code>null</code> for a single prompt
+     * @throws ModelUnavailableException if the model is not available (see {@link #answerFromArchive})
+     */
+    String processPrompt(Resume resume, String conversationId, String prompt) {
+        final var cid = conversationId == null ? "<none>" : conversationId;
+        logger.info("Processing prompt [{}] from conversation {}", prompt, cid);
+
+        final var timestamp = Instant.now();
+        final long start = System.nanoTime();
+        final var response = new AtomicReference<ChatResponse>();
+        try {
+            final var historyId = resumeRegistry.getHistoryId(resume, conversationId);
+            final var history = metrics.observe(ChatMetrics.Stage.HISTORY_READ, () -> historyService.getHistory(historyId));
+            final var answer = answer(resume, history, conversationId, prompt, response).answer();
+            capture("chat", resume, conversationId, prompt, timestamp, start, response.get(), answer, null);
+            return answer;
+        } catch (RuntimeException e) {
+            capture("chat", resume, conversationId, prompt, timestamp, start, response.get(), null, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Answer a prompt.
+     *
+     * @param response set to the last response from the model, if this call has sent a request to the model
+     */
+    private ChatAnswer answer(Resume resume, ConversationHistory history, String conversationId, String prompt,
+                              AtomicReference<ChatResponse> response) {
+        final var cid = conversationId == null ? "<none>" : conversationId;
+        final var firstTurn = history.isEmpty();
+        if (firstTurn) {
+            final var cachedAnswer = answerCache.get(resume, prompt);
+            if (cachedAnswer != null) {
+                logger.info("Found cached answer for prompt [{}] from conversation {}", prompt, cid);
+                onAnswer(resume, conversationId, prompt, cachedAnswer, true, false);
+                answerArchive.add(resume, prompt, cachedAnswer);
+                return new ChatAnswer(cachedAnswer, true);
+            }
+        }
+
+        final var permit = modelRouter.acquire();
+        final ChatAnswer resp;
+        try {
+            // Concurrent requests for the same first-turn prompt share a single model call.
+            resp = firstTurn
+                    ? coalescer.execute(resume, prompt, () -> callModel(resume, history, prompt, cid, permit, response))
+                    : callModel(resume, history, prompt, cid, permit, response);
+        } finally {
+            // The model has not been called if this request has been coalesced, or rejected by the bulkhead.
+            modelRouter.release(permit);
+        }
+        onAnswer(resume, conversationId, prompt, resp.answer(), resp.foundAnswer(), firstTurn);
+        return resp;
+    }
+
+    /**
+     * Answer several prompts at once, calling the model in parallel.
+     * <p>
+     * The conversation history is read once for the whole batch: prompts are answered independently,
+     * and answers are added to the conversation in the order of the prompts once the batch is done.
+     * Prompts which are not answered before the batch deadline are cancelled.
+     *
+     * @param conversationId conversation identifier, or <code>null</code> for single prompts
+     * @param listener       called with each answer as soon as it is available
+     * @return answers in the order of the prompts
+     * @throws CancellationException if the calling thread is interrupted before the batch is done
+     */
+    List<BatchAnswer> processBatch(Resume resume, String conversationId, List<String> prompts,
+                                   Consumer<BatchAnswer> listener) {
+        final var cid = conversationId == null ? "<none>" : conversationId;
+        logger.info("Processing batch of {} prompts from conversation {}", prompts.size(), cid);
+
+        final var historyId = resumeRegistry.getHistoryId(resume, conversationId);
+        final var history = metrics.observe(ChatMetrics.Stage.HISTORY_READ, () -> historyService.getHistory(historyId));
+        final var answers = new BatchAnswer[prompts.size()];
+        final long deadline = System.nanoTime() + batchConfig.timeout().toNanos();
+        // Prompts run on virtual threads owned by this batch: none of them outlives this method.
+        try (final var executor = ContextExecutorService.wrap(
+                Executors.newFixedThreadPool(batchConfig.maxConcurrency(),
+                        Thread.ofVirtual().name("chat-batch-", 0).factory()),
+                ContextSnapshotFactory.builder().build()::captureAll)) {
+            final var completion = new ExecutorCompletionService<BatchAnswer>(executor);
+            final var futures = new ArrayList<Future<BatchAnswer>>(prompts.size());
+            for (int i = 0; i < prompts.size(); ++i) {
+                final int index = i;
+                futures.add(completion.submit(() -> answerBatchPrompt(resume, history, index, prompts.get(index))));
+            }
+            try {
+                for (int i = 0; i < prompts.size(); ++i) {
+                    final var future = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (future == null) {
+                        break;
+                    }
+                    final var answer = future.get();
+                    answers[answer.index()] = answer;
+                    listener.accept(answer);
+                }
+            } catch (InterruptedException e) {
+                // The batch has been cancelled by the caller: neither answers nor history are needed anymore.
+                Thread.currentThread().interrupt();
+                logger.info("Batch from conversation {} was cancelled", cid);
+                throw new CancellationException("Batch cancelled");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to answer batch prompt", e.getCause());
+            } finally {
+                // Cancel the prompts still in progress: the executor waits for them to stop when it is closed.
+                futures.forEach(f -> f.cancel(true));
+            }
+            for (int i = 0; i < answers.length; ++i) {
+                if (answers[i] == null) {
+                    logger.warn("Prompt [{}] from batch was not answered in time", prompts.get(i));
+                    answers[i] = BatchAnswer.failed(i, prompts.get(i),
+                            "The prompt has not been answered before the batch deadline");
+                    metrics.recordBatchAnswer("timeout");
+                    listener.accept(answers[i]);
+                }
+            }
+        }
+
+        if (conversationId != null) {
+            for (final var answer : answers) {
+                if (answer.foundAnswer() && !answer.degraded()) {
+                    metrics.observe(ChatMetrics.Stage.HISTORY_WRITE,
+                            () -> historyService.addExchange(historyId, answer.prompt(), answer.answer()));
+                }
+            }
+        }
+        return List.of(answers);
+    }
+
+    /**
+     * Answer several prompts at once, streaming answers as soon as they are available, in any order.
+     * <p>
+     * The batch is cancelled when the subscription is cancelled (for instance when the client goes away):
+     * prompts still in progress are cancelled, and nothing is added to the conversation.
+     *
+     * @see #processBatch
+     */
+    Flux<BatchAnswer> streamBatch(Resume resume, String conversationId, List<String> prompts) {
+        return runBlocking(listener -> processBatch(resume, conversationId, prompts, listener));
+    }
+
+    /**
+     * Run a blocking task on its own virtual thread, emitting items through a {@link Flux}.
+     * <p>
+     * The thread-local context of the subscriber (such as the current observation) is propagated
+     * to the task, and the task is interrupted when the subscription is cancelled.
+     */
+    static <T> Flux<T> runBlocking(Consumer<Consumer<T>> task) {
+        return Flux.create(sink -> {
+            final var snapshot = ContextSnapshotFactory.builder().build().captureAll();
+            final var future = new FutureTask<Void>(snapshot.wrap(() -> {
+                try {
+                    task.accept(sink::next);
+                    sink.complete();
+                } catch (RuntimeException e) {
+                    sink.error(e);
+                }
+            }), null);
+            sink.onDispose(() -> future.cancel(true));
+            Thread.ofVirtual().name("chat-batch-stream").start(future);
+        });
+    }
+
+    private BatchAnswer answerBatchPrompt(Resume resume, ConversationHistory history, int index, String prompt) {
+        try {
+            // Answers are added to the conversation once the batch is done.
+            final var resp = answer(resume, history, null, prompt, new AtomicReference<>());
+            metrics.recordBatchAnswer("answered");
+            return new BatchAnswer(index, prompt, resp.answer(), resp.foundAnswer(), false, null);
+        } catch (ModelUnavailableException e) {
+            try {
+                final var answer = answerFromArchive(resume, prompt, e);
+                metrics.recordBatchAnswer("degraded");
+                return new BatchAnswer(index, prompt, answer, true, true, null);
+            } catch (ModelUnavailableException unavailable) {
+                metrics.recordBatchAnswer("failed");
+                return BatchAnswer.failed(index, prompt, unavailable.getMessage());
+            }
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // This prompt was cancelled when the batch deadline was reached.
+                throw e;
+            }
+            logger.warn("Failed to answer prompt [{}] from batch", prompt, e);
+            metrics.recordBatchAnswer("failed");
+            return BatchAnswer.failed(index, prompt, e.getMessage());
+        }
+    }
+
+    private ChatAnswer callModel(Resume resume, ConversationHistory history, String prompt, String cid,
+                                 ChatModelRouter.Permit permit, AtomicReference<ChatResponse> lastResponse) {
+        final var messages = metrics.observe(ChatMetrics.Stage.PROMPT_RENDER,
+                () -> promptFactory.createMessages(resume, history, prompt));
+        final var response = bulkhead.execute(() -> metrics.observeModelCall(
+                () -> modelRouter.call(permit, chatClient -> chatClient.prompt()
+                        .messages(messages)
+                        .tools(tools)
+                        // Enable native structured output, using the JSON schema from the target objet:
+                        // the response is converted afterward, so that this stage is observed on its own.
+                        .options(OpenAiChatOptions.builder()
+                                .outputSchema(outputSchema)
+                                .promptCacheKey(resume.fingerprint())
+                                .build())
+                        .call().chatResponse())));
+        metrics.recordUsage(response);
+        lastResponse.set(response);
+        final var text = response == null || response.getResult() == null
+                ? null : response.getResult().getOutput().getText();
+        final var resp = text == null ? null
+                : metrics.observe(ChatMetrics.Stage.ENTITY_CONVERSION, () -> outputConverter.convert(text));
+        if (resp == null) {
+            throw new IllegalStateException(
+                    "No response from AI after asking [" + prompt + "] in conversation " + cid);
+        }
+        metrics.recordAnswer(response, resp.foundAnswer());
+        return resp;
+    }
+
+    /**
+     * Answer a prompt, streaming the answer as it is generated by the model.
+     *
+     * @param conversationId conversation identifier, or <code>null</code> for a single prompt
+     * @throws ModelUnavailableException if the model is not available (see {@link #answerFromArchive})
+     */
+    Flux<String> streamPrompt(Resume resume, String conversationId, String prompt) {
+        final var cid = conversationId == null ? "<none>" : conversationId;
+        logger.info("Streaming prompt [{}] from conversation {}", prompt, cid);
+
+        final var timestamp = Instant.now();
+        final long requestStart = System.nanoTime();
+        try {
+            return streamAnswer(resume, conversationId, prompt, timestamp, requestStart);
+        } catch (RuntimeException e) {
+            capture("stream", resume, conversationId, prompt, timestamp, requestStart, null, null, e.getMessage());
+            throw e;
+        }
+    }
+
+    private Flux<String> streamAnswer(Resume resume, String conversationId, String prompt,
+                                      Instant timestamp, long requestStart) {
+        final var cid = conversationId == null ? "<none>" : conversationId;
+        final var historyId = resumeRegistry.getHistoryId(resume, conversationId);
+        final var history = metrics.observe(ChatMetrics.Stage.HISTORY_READ, () -> historyService.getHistory(historyId));
+        final var firstTurn = history.isEmpty();
+        if (firstTurn) {
+            final var cachedAnswer = answerCache.get(resume, prompt);
+            if (cachedAnswer != null) {
+                logger.info("Found cached answer for prompt [{}] from conversation {}", prompt, cid);
+                onAnswer(resume, conversationId, prompt, cachedAnswer, true, false);
+                answerArchive.add(resume, prompt, cachedAnswer);
+                capture("stream", resume, conversationId, prompt, timestamp, requestStart, null, cachedAnswer, null);
+                return Flux.just(cachedAnswer);
+            }
+        }
+
+        final var messages = metrics.observe(ChatMetrics.Stage.PROMPT_RENDER,
+                () -> promptFactory.createMessages(resume, history, prompt));
+        // The model permit is acquired before streaming: if the model is not available,
+        // this prompt is answered from the archive instead of failing once the response has started.
+        final var permit = modelRouter.acquire();
+        final var parser = new AnswerStreamParser();
+        final var lastResponse = new AtomicReference<ChatResponse>();
+        // The answer is converted while it is streamed: the model call stage includes the entity conversion.
+        final var observation = metrics.createObservation(ChatMetrics.Stage.MODEL_CALL);
+        final var start = new AtomicLong();
+        final var firstToken = new AtomicBoolean();
+        // A bulkhead permit is held while the stream is subscribed.
+        return bulkhead.stream(() -> {
+                    observation.start();
+                    start.set(System.nanoTime());
+                    return modelRouter.stream(permit, chatClient -> chatClient.prompt()
+                                    .messages(messages)
+                                    .tools(tools)
+                                    // Streamed responses are not converted by the ChatClient:
+                                    // the JSON schema is set on the model options instead.
+                                    .options(OpenAiChatOptions.builder()
+                                            .outputSchema(outputSchema)
+                                            .promptCacheKey(resume.fingerprint())
+                                            .streamUsage(true)
+                                            .build())
+                                    .stream().chatResponse())
+                            .doOnNext(r -> metrics.tagModel(observation, r))
+                            .doOnError(observation::error)
+                            .doFinally(signal -> observation.stop());
+                })
+                // The model has not been called if this stream has been rejected by the bulkhead.
+                .doFinally(signal -> modelRouter.release(permit))
+                .doOnError(e -> capture("stream", resume, conversationId, prompt, timestamp, requestStart,
+                        lastResponse.get(), null, e.getMessage()))
+                .doOnNext(r -> {
+                    // Token usage is only complete in the last response.
+                    lastResponse.set(r);
+                    if (r.getResult() != null && r.getResult().getOutput().getText() != null
+                            && !r.getResult().getOutput().getText().isEmpty() && firstToken.compareAndSet(false, true)) {
+                        metrics.recordTimeToFirstToken(r, Duration.ofNanos(System.nanoTime() - start.get()));
+                    }
+                })
+                .map(r -> r.getResult() == null ? "" : parser.feed(r.getResult().getOutput().getText()))
+                .filter(chunk -> !chunk.isEmpty())
+                .concatWith(Mono.<String>fromRunnable(() -> {
+                    metrics.recordUsage(lastResponse.get());
+                    if (!parser.isComplete()) {
+                        logger.warn("Incomplete response from AI after asking [{}] in conversation {}", prompt, cid);
+                    } else {
+                        metrics.recordAnswer(lastResponse.get(), parser.foundAnswer());
+                    }
+                    onAnswer(resume, conversationId, prompt, parser.answer(), parser.foundAnswer(),
+                            firstTurn && parser.isComplete());
+                    capture("stream", resume, conversationId, prompt, timestamp, requestStart, lastResponse.get(),
+                            parser.answer(), null);
+                }).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private void onAnswer(Resume resume, String conversationId, String prompt, String answer,
+                          boolean foundAnswer, boolean cacheable) {
+        final var cid = conversationId == null ? "<none>" : conversationId;
+        if (!foundAnswer) {
+            logger.info("No answer found for prompt [{}] from conversation {}", prompt, cid);
+        } else {
+            logger.info("Found answer for prompt [{}] from conversation {}: {}", prompt, cid, answer);
+
+            if (cacheable) {
+                // Only answers to first-turn prompts are cached, since they do not depend on a conversation.
+                answerCache.put(resume, prompt, answer);
+                answerArchive.add(resume, prompt, answer);
+            }
+
+            if (conversationId != null) {
+                final var historyId = resumeRegistry.getHistoryId(resume, conversationId);
+                metrics.observe(ChatMetrics.Stage.HISTORY_WRITE, () -> historyService.addExchange(historyId, prompt, answer));
+            }
+        }
+    }
+
+    private void capture(String endpoint, Resume resume, String conversationId, String prompt, Instant timestamp,
+                         long start, ChatResponse response, String answer, String error) {
+        if (captureJournal != null) {
+            captureJournal.add(endpoint, resume, conversationId, prompt, timestamp,
+                    Duration.ofNanos(System.nanoTime() - start), response, answer, error);
+        }
+    }
+
+    /**
+     * Answer a prompt with the archived answer to a similar prompt, while the model is unavailable.
+     *
+     * @throws ModelUnavailableException if no archived answer matches this prompt
+     */
+    String answerFromArchive(Resume resume, String prompt, ModelUnavailableException e) {
+        final var match = answerArchive.find(resume, prompt);
+        metrics.recordDegraded(match != null);
+        if (match == null) {
+            logger.warn("Model is unavailable: no archived answer for prompt [{}]", prompt);
+            throw e;
+        }
+        logger.info("Model is unavailable: answering prompt [{}] with the archived answer to [{}] (similarity: {})",
+                prompt, match.prompt(), String.format("%.2f", match.similarity()));
+        return "> The assistant is temporarily unavailable: this is the answer to a similar question, _"
+                + match.prompt() + "_.\n\n" + match.answer();
+    }
+}
@@ -16,6 +16,7 @@
 
 package io.github.alexandreroman.resumebot;
 
+import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.stereotype.Component;
 
@@ -25,13 +26,29 @@ import java.time.format.DateTimeFormatter;
 
 @Component
 class ChatTools {
+    /**
+     * Key of the tool context holding the name of the model which invokes a tool (see {@link ChatModelRouter}).
+     */
+    static final String MODEL = "model";
+
+    private final ChatMetrics metrics;
+
+    ChatTools(ChatMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Tool(description = "Get current year")
-    public int getCurrentYear() {
-        return Year.now().getValue();
+    public int getCurrentYear(ToolContext toolContext) {
+        return metrics.observeTool("getCurrentYear", getModel(toolContext), () -> Year.now().getValue());
     }
 
     @Tool(description = "Get today's date using ISO-8601 format (for instance: 2011-12-03T10:15:30)")
-    public String getToday() {
-        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now());
+    public String getToday(ToolContext toolContext) {
+        return metrics.observeTool("getToday", getModel(toolContext),
+                () -> DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now()));
+    }
+
+    private static String getModel(ToolContext toolContext) {
+        return toolContext != null && toolContext.getContext().get(MODEL) instanceof String model ? model : null;
     }
 }
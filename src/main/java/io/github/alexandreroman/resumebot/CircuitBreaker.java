@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker protecting calls to a model.
+ * <p>
+ * The outcome of the last calls is kept in a sliding window: the circuit opens when the rate of failed calls
+ * or the rate of slow calls exceeds a threshold. While the circuit is open, calls are not permitted.
+ * Once <code>openDuration</code> has elapsed, the circuit is half-open: a few calls are permitted to probe the model,
+ * and the circuit closes again if they all succeed in time.
+ * <p>
+ * The state of the circuit is reported with the <code>resumebot.chat.circuit-breaker.state</code> gauge,
+ * which is set to 1 for the current state.
+ */
+final class CircuitBreaker {
+    /**
+     * States of a circuit breaker.
+     */
+    enum State {
+        /**
+         * Calls are permitted.
+         */
+        CLOSED,
+        /**
+         * Calls are not permitted.
+         */
+        OPEN,
+        /**
+         * A limited number of calls are permitted, to check whether the circuit can be closed.
+         */
+        HALF_OPEN;
+
+        String value() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    /**
+     * Token returned by {@link #tryAcquire()} when a call is not permitted.
+     */
+    static final long REJECTED = -1;
+
+    private static final long CLOSED_PERMIT = 0;
+    private static final byte SLOW = 1;
+    private static final byte FAILED = 2;
+
+    private final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+    private final String name;
+    private final AppConfig.CircuitBreaker config;
+    private final LongSupplier nanoClock;
+    private final byte[] outcomes;
+    private final Map<State, Counter> transitions = new EnumMap<>(State.class);
+    private final Counter successfulCalls;
+    private final Counter failedCalls;
+    private final Counter slowCalls;
+    private final Counter rejectedCalls;
+    private int position;
+    private int calls;
+    private int failures;
+    private int slows;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    private long halfOpenGeneration;
+
+    CircuitBreaker(String name, AppConfig.CircuitBreaker config, MeterRegistry meterRegistry) {
+        this(name, config, meterRegistry, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, AppConfig.CircuitBreaker config, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.name = name;
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.outcomes = new byte[config.windowSize()];
+        for (final var s : State.values()) {
+            Gauge.builder("resumebot.chat.circuit-breaker.state", this, cb -> cb.getState() == s ? 1 : 0)
+                    .tag("name", name).tag("state", s.value())
+                    .description("Current state of the circuit breaker").register(meterRegistry);
+            transitions.put(s, Counter.builder("resumebot.chat.circuit-breaker.transitions")
+                    .tag("name", name).tag("state", s.value())
+                    .description("Number of transitions to a circuit breaker state").register(meterRegistry));
+        }
+        this.successfulCalls = createCallCounter(meterRegistry, "success");
+        this.failedCalls = createCallCounter(meterRegistry, "failure");
+        this.slowCalls = createCallCounter(meterRegistry, "slow");
+        this.rejectedCalls = createCallCounter(meterRegistry, "rejected");
+    }
+
+    private Counter createCallCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("resumebot.chat.circuit-breaker.calls")
+                .tag("name", name).tag("outcome", outcome)
+                .description("Number of calls through the circuit breaker").register(meterRegistry);
+    }
+
+    /**
+     * Check whether a call is permitted.
+     * The outcome of a permitted call must be reported with {@link #onSuccess(Duration)},
+     * {@link #onFailure(Duration)} or {@link #onIgnored(long)}.
+     *
+     * @return a token identifying the permit, or {@link #REJECTED} if the call is not permitted
+     */
+    synchronized long tryAcquire() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= config.openDuration().toNanos()) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return CLOSED_PERMIT;
+        }
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            --halfOpenPermits;
+            return halfOpenGeneration;
+        }
+        rejectedCalls.increment();
+        return REJECTED;
+    }
+
+    /**
+     * Report a successful call, which is considered slow if it took too long.
+     */
+    synchronized void onSuccess(Duration duration) {
+        final boolean slow = isSlow(duration);
+        (slow ? slowCalls : successfulCalls).increment();
+        record(slow ? SLOW : 0);
+    }
+
+    /**
+     * Report a failed call.
+     */
+    synchronized void onFailure(Duration duration) {
+        failedCalls.increment();
+        record((byte) (FAILED | (isSlow(duration) ? SLOW : 0)));
+    }
+
+    /**
+     * Report a call without any outcome, for instance a call which has been cancelled.
+     * The permit is given back if it was acquired while the circuit is half-open,
+     * and the circuit has not opened again since then.
+     *
+     * @param token token returned by {@link #tryAcquire()} for this call
+     */
+    synchronized void onIgnored(long token) {
+        if (state == State.HALF_OPEN && token == halfOpenGeneration) {
+            ++halfOpenPermits;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Get the delay before the circuit is half-open, or {@link Duration#ZERO} if it is not open.
+     */
+    synchronized Duration getRemainingOpenDuration() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        final long elapsed = nanoClock.getAsLong() - openedAt;
+        return Duration.ofNanos(Math.max(0, config.openDuration().toNanos() - elapsed));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    private boolean isSlow(Duration duration) {
+        return duration.compareTo(config.slowCallDuration()) >= 0;
+    }
+
+    private void record(byte outcome) {
+        switch (state) {
+            case OPEN -> {
+                // This call was permitted before the circuit opened.
+            }
+            case HALF_OPEN -> {
+                if (outcome != 0) {
+                    transitionTo(State.OPEN);
+                } else if (++halfOpenSuccesses >= config.halfOpenCalls()) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                if (calls == outcomes.length) {
+                    // The window is full: forget the oldest outcome.
+                    count(outcomes[position], -1);
+                } else {
+                    ++calls;
+                }
+                outcomes[position] = outcome;
+                position = (position + 1) % outcomes.length;
+                count(outcome, 1);
+                if (calls >= config.minCalls() && (failures >= config.failureRateThreshold() * calls
+                        || slows >= config.slowCallRateThreshold() * calls)) {
+                    transitionTo(State.OPEN);
+                }
+            }
+        }
+    }
+
+    private void count(byte outcome, int delta) {
+        if ((outcome & FAILED) != 0) {
+            failures += delta;
+        }
+        if ((outcome & SLOW) != 0) {
+            slows += delta;
+        }
+    }
+
+    private void transitionTo(State newState) {
+        logger.info("Circuit breaker {} is now {} (was {})", name, newState.value(), state.value());
+        state = newState;
+        transitions.get(newState).increment();
+        switch (newState) {
+            case OPEN -> openedAt = nanoClock.getAsLong();
+            case HALF_OPEN -> {
+                halfOpenPermits = config.halfOpenCalls();
+                halfOpenSuccesses = 0;
+                // Permits acquired before this transition are not given back.
+                ++halfOpenGeneration;
+            }
+            case CLOSED -> {
+                position = 0;
+                calls = 0;
+                failures = 0;
+                slows = 0;
+            }
+        }
+    }
+}
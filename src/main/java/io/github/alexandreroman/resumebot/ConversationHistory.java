@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * History of a conversation, as included in a prompt.
+ *
+ * @param summary     summary of older messages, which may be <code>null</code>
+ * @param messages    most recent messages
+ * @param tokenCounts estimated number of tokens of each message (<code>-1</code> if unknown),
+ *                    or <code>null</code> if unknown for all messages
+ */
+record ConversationHistory(String summary, List<String> messages, List<Integer> tokenCounts) {
+    static final ConversationHistory EMPTY = new ConversationHistory(null, List.of());
+
+    ConversationHistory(String summary, List<String> messages) {
+        this(summary, messages, null);
+    }
+
+    /**
+     * Create a history from decoded messages.
+     */
+    static ConversationHistory of(String summary, List<MessageCodec.Entry> entries) {
+        final var messages = new ArrayList<String>(entries.size());
+        final var tokenCounts = new ArrayList<Integer>(entries.size());
+        for (final var entry : entries) {
+            messages.add(entry.toHistoryMessage());
+            tokenCounts.add(entry.tokenCount());
+        }
+        return new ConversationHistory(summary, messages, tokenCounts);
+    }
+
+    /**
+     * Get the estimated number of tokens of a message.
+     *
+     * @return the number of tokens, or <code>-1</code> if unknown
+     */
+    int getTokenCount(int index) {
+        return tokenCounts == null ? -1 : tokenCounts.get(index);
+    }
+
+    /**
+     * Get the most recent messages of this history, starting at the given index.
+     */
+    ConversationHistory tail(int first) {
+        return new ConversationHistory(summary, messages.subList(first, messages.size()),
+                tokenCounts == null ? null : tokenCounts.subList(first, tokenCounts.size()));
+    }
+
+    boolean isEmpty() {
+        return summary == null && messages.isEmpty();
+    }
+
+    /**
+     * Convert this history to chat messages, starting with the summary if any.
+     */
+    List<Message> toMessages() {
+        final var result = new ArrayList<Message>(messages.size() + 1);
+        if (summary != null) {
+            result.add(new UserMessage("Summary of earlier messages: " + summary));
+        }
+        for (final var m : messages) {
+            if (m.startsWith("A: ")) {
+                result.add(new AssistantMessage(m.substring(3)));
+            } else {
+                result.add(new UserMessage(m.startsWith("Q: ") ? m.substring(3) : m));
+            }
+        }
+        return result;
+    }
+}
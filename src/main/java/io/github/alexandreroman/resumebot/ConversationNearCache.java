@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Near cache keeping conversation histories in memory.
+ * <p>
+ * This cache relies on Redis server-assisted client-side caching:
+ * histories are read through a dedicated RESP3 connection with <code>CLIENT TRACKING</code> enabled,
+ * so that Redis sends an invalidation message when another instance updates a conversation.
+ * Writes from this instance go through the same connection with <code>NOLOOP</code>,
+ * and the cached history is refreshed in the same round trip.
+ * The cache is bypassed while the connection is down, since invalidation messages may be lost.
+ */
+@Component
+@ConditionalOnBooleanProperty("app.near-cache.enabled")
+@ConditionalOnProperty(name = "app.history.store", havingValue = "redis", matchIfMissing = true)
+class ConversationNearCache implements RedisConnectionStateListener, DisposableBean {
+    private final Logger logger = LoggerFactory.getLogger(ConversationNearCache.class);
+    private final RedisClient client;
+    private final StatefulRedisConnection<String, byte[]> connection;
+    private final MessageCodec codec;
+    private final Cache<String, ConversationHistory> cache;
+    private final Map<String, Object> loadingConversations = new ConcurrentHashMap<>();
+    private final Counter invalidations;
+    private volatile boolean tracking;
+
+    ConversationNearCache(LettuceConnectionFactory connectionFactory, AppConfig config, MessageCodec codec,
+                          MeterRegistry meterRegistry) {
+        if (!(connectionFactory.getRequiredNativeClient() instanceof RedisClient redisClient)) {
+            throw new IllegalStateException("Near cache is only supported with a standalone Redis server");
+        }
+        final var nearCacheConfig = config.nearCache();
+        final long maxWeight = nearCacheConfig.maxMemory().toBytes();
+        // Each entry weighs at least maxWeight / maxEntries:
+        // this way, the cache is bounded by both memory and entry count.
+        final int minWeight = (int) Math.min(Integer.MAX_VALUE, maxWeight / nearCacheConfig.maxEntries());
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .<String, ConversationHistory>weigher((cid, history) -> Math.max(minWeight, estimateSize(history)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "conversations.near");
+        this.invalidations = Counter.builder("resumebot.conversations.near-cache.invalidations")
+                .description("Number of conversations invalidated by Redis").register(meterRegistry);
+
+        this.codec = codec;
+        this.client = redisClient;
+        // Messages are binary (see MessageCodec).
+        this.connection = redisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+        connection.addListener(this::onPushMessage);
+        redisClient.addListener(this);
+        enableTracking();
+    }
+
+    @Override
+    public void destroy() {
+        client.removeListener(this);
+        connection.close();
+    }
+
+    /**
+     * Read a conversation history, from memory if possible.
+     *
+     * @return the conversation history, or <code>null</code> if this cache cannot be used
+     */
+    ConversationHistory read(String conversationId) {
+        if (!tracking) {
+            return null;
+        }
+        final var history = cache.getIfPresent(conversationId);
+        if (history != null) {
+            return history;
+        }
+
+        final var token = new Object();
+        loadingConversations.put(conversationId, token);
+        final var commands = connection.async();
+        final var messages = commands.lrange(RedisConversationStore.getMessagesKey(conversationId), 0, -1);
+        final var summary = commands.get(RedisConversationStore.getSummaryKey(conversationId));
+        return store(conversationId, token, toHistory(await(summary), await(messages)));
+    }
+
+    /**
+     * Append a question and its answer to a conversation, updating the cached history.
+     *
+     * @return the number of messages in this conversation, or <code>-1</code> if this cache cannot be used
+     */
+    long addExchange(String conversationId, byte[] question, byte[] answer, int maxMessages, long ttlSeconds) {
+        if (!tracking) {
+            return -1;
+        }
+
+        final var token = new Object();
+        loadingConversations.put(conversationId, token);
+        final var commands = connection.async();
+        final var key = RedisConversationStore.getMessagesKey(conversationId);
+        // All commands are pipelined: reading the list after the update makes Redis track it again.
+        final var count = commands.<Long>eval(RedisConversationStore.APPEND_SCRIPT.getScriptAsString(),
+                ScriptOutputType.INTEGER, new String[]{key, RedisConversationStore.getSummaryKey(conversationId)},
+                toBytes(maxMessages), toBytes(ttlSeconds), question, answer);
+        final var messages = commands.lrange(key, 0, -1);
+        final var summary = commands.get(RedisConversationStore.getSummaryKey(conversationId));
+        final long result = await(count);
+        store(conversationId, token, toHistory(await(summary), await(messages)));
+        return result;
+    }
+
+    /**
+     * Evict a conversation from this cache, without waiting for Redis to invalidate it.
+     */
+    void invalidate(String conversationId) {
+        loadingConversations.remove(conversationId);
+        cache.invalidate(conversationId);
+    }
+
+    private ConversationHistory toHistory(byte[] summary, List<byte[]> messages) {
+        final var entries = new ArrayList<MessageCodec.Entry>(messages.size());
+        for (final var m : messages) {
+            entries.add(codec.decode(m));
+        }
+        return ConversationHistory.of(summary == null ? null : new String(summary, StandardCharsets.UTF_8), entries);
+    }
+
+    private static byte[] toBytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private ConversationHistory store(String conversationId, Object token, ConversationHistory history) {
+        // Do not cache this history if it has been invalidated while being loaded.
+        if (loadingConversations.remove(conversationId, token) && tracking) {
+            cache.put(conversationId, history);
+        }
+        return history;
+    }
+
+    private void onPushMessage(PushMessage message) {
+        if (!"invalidate".equals(message.getType())) {
+            return;
+        }
+        final var content = message.getContent(ConversationNearCache::decodeKey);
+        if (content.size() < 2 || !(content.get(1) instanceof List<?> keys)) {
+            // A null key list means that all keys must be invalidated.
+            logger.debug("Invalidating all conversations");
+            invalidateAll();
+            return;
+        }
+        for (final var key : keys) {
+            final var cid = RedisConversationStore.getConversationId((String) key);
+            if (cid != null) {
+                logger.trace("Invalidating conversation {}", cid);
+                loadingConversations.remove(cid);
+                cache.invalidate(cid);
+                invalidations.increment();
+            }
+        }
+    }
+
+    @Override
+    public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress socketAddress) {
+        if (handler == connection && !tracking) {
+            // Tracking is bound to the connection: enable it again after a reconnection.
+            logger.info("Reconnected to Redis: enabling near cache tracking");
+            enableTracking();
+        }
+    }
+
+    @Override
+    public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+        if (handler == connection) {
+            logger.warn("Disconnected from Redis: disabling near cache");
+            tracking = false;
+            invalidateAll();
+        }
+    }
+
+    private void enableTracking() {
+        connection.async().clientTracking(TrackingArgs.Builder.enabled().noloop())
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        logger.warn("Failed to enable near cache tracking", error);
+                    } else {
+                        tracking = true;
+                    }
+                });
+    }
+
+    private void invalidateAll() {
+        loadingConversations.clear();
+        cache.invalidateAll();
+        invalidations.increment();
+    }
+
+    private <T> T await(RedisFuture<T> future) {
+        try {
+            return future.get(connection.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading from Redis", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to read conversation from Redis", e);
+        }
+    }
+
+    private static Object decodeKey(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    private static int estimateSize(ConversationHistory history) {
+        // Rough estimate of the memory used by the strings of this history.
+        int size = 64;
+        if (history.summary() != null) {
+            size += 40 + 2 * history.summary().length();
+        }
+        for (final var m : history.messages()) {
+            size += 40 + 2 * m.length();
+        }
+        return size;
+    }
+}
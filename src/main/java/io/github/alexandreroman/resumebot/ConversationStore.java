@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Storage of conversations, holding a summary and a list of messages per conversation.
+ * <p>
+ * Messages are stored as encoded by {@link MessageCodec}. A conversation expires when it has not been
+ * updated or read for {@link #TTL_SECONDS}: reading messages with {@link #getMessages} does not keep it alive.
+ */
+interface ConversationStore {
+    long TTL_SECONDS = TimeUnit.DAYS.toSeconds(1);
+
+    /**
+     * Summary and messages of a conversation.
+     *
+     * @param summary  summary of the older messages, or <code>null</code>
+     * @param messages encoded messages, from the oldest to the newest
+     */
+    record StoredConversation(String summary, List<byte[]> messages) {
+        static final StoredConversation EMPTY = new StoredConversation(null, List.of());
+    }
+
+    /**
+     * Replacement of a message, provided its current value has not changed.
+     *
+     * @param index       index of the message
+     * @param current     current value of the message
+     * @param replacement new value of the message
+     */
+    record MessageUpdate(int index, byte[] current, byte[] replacement) {
+    }
+
+    /**
+     * Append messages to a conversation, keeping the newest messages only, and refresh its TTL.
+     *
+     * @return the number of messages in this conversation
+     */
+    long append(String conversationId, List<byte[]> messages, int maxMessages);
+
+    /**
+     * Read the summary and all messages of a conversation, and refresh its TTL.
+     */
+    StoredConversation read(String conversationId);
+
+    /**
+     * Read all messages of a conversation, without refreshing its TTL.
+     */
+    List<byte[]> getMessages(String conversationId);
+
+    /**
+     * Replace messages of a conversation, provided none of them has changed.
+     *
+     * @return <code>true</code> if the messages have been replaced
+     */
+    boolean replaceMessages(String conversationId, List<MessageUpdate> updates);
+
+    /**
+     * Replace the oldest messages of a conversation with a summary, and refresh its TTL,
+     * provided these messages have not changed: another instance may have summarized this conversation.
+     *
+     * @param messages oldest messages of this conversation, as read from this store
+     * @return <code>true</code> if the messages have been replaced
+     */
+    boolean foldMessages(String conversationId, List<byte[]> messages, String summary);
+
+    /**
+     * Remove the oldest messages from a conversation.
+     */
+    void removeOldestMessages(String conversationId, int count);
+
+    String getSummary(String conversationId);
+
+    /**
+     * Set the summary of a conversation, and refresh its TTL.
+     */
+    void setSummary(String conversationId, String summary);
+
+    /**
+     * Call an action for each stored conversation.
+     */
+    void forEachConversation(Consumer<String> action);
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint exporting stored conversations as NDJSON (one JSON object per line).
+ * <p>
+ * Conversations are read in batches through a dedicated connection: keys are listed with <code>SCAN</code>,
+ * then the messages of a batch are read in a single pipelined round trip.
+ * The next batch is only read once the previous one has been sent: memory use does not depend
+ * on the number of conversations, and a slow client slows down the export instead of buffering it.
+ * A <code>cursor</code> line follows each batch: pass its value to resume an interrupted export.
+ * The export is complete once the cursor is <code>0</code>.
+ * <p>
+ * Conversations can be filtered by time window. The last activity of a conversation is derived from its TTL,
+ * which is refreshed each time it is used: conversations inactive since <code>since</code> are skipped without
+ * reading their messages. Messages stored in the legacy format have no timestamp:
+ * the last activity of their conversation is used instead.
+ */
+@Component
+@Endpoint(id = "conversations")
+@ConditionalOnProperty(name = "app.history.store", havingValue = "redis", matchIfMissing = true)
+class ConversationsEndpoint {
+    static final String NDJSON = "application/x-ndjson";
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final String KEY_PREFIX = "resumebot:conversations:";
+    private static final String KEY_SUFFIX = ":messages";
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final MessageCodec codec;
+    private final JsonMapper jsonMapper;
+
+    ConversationsEndpoint(LettuceConnectionFactory connectionFactory, MessageCodec codec, JsonMapper jsonMapper) {
+        this.connectionFactory = connectionFactory;
+        this.codec = codec;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Export conversations.
+     *
+     * @param cursor    cursor to resume an export from, starting from the beginning by default
+     * @param since     only export messages sent at or after this time
+     * @param until     only export messages sent before this time
+     * @param batchSize number of keys to scan per batch
+     */
+    @ReadOperation(produces = NDJSON)
+    public Resource export(@Nullable String cursor, @Nullable Instant since, @Nullable Instant until,
+                           @Nullable Integer batchSize) {
+        if (!(connectionFactory.getRequiredNativeClient() instanceof RedisClient redisClient)) {
+            throw new IllegalStateException("Conversation export is only supported with a standalone Redis server");
+        }
+        final int count = batchSize == null ? DEFAULT_BATCH_SIZE : Math.clamp(batchSize, 1, MAX_BATCH_SIZE);
+        final var scanCursor = cursor == null || cursor.isBlank() ? ScanCursor.INITIAL : ScanCursor.of(cursor);
+        return new InputStreamResource(new ExportStream(redisClient, scanCursor, count, since, until));
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record ConversationLine(String conversationId, Instant lastActivity, String summary,
+                            List<MessageLine> messages) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record MessageLine(String role, String text, Instant timestamp, Integer tokenCount) {
+    }
+
+    record CursorLine(String cursor) {
+    }
+
+    private final class ExportStream extends InputStream {
+        private final RedisClient client;
+        private final ScanArgs scanArgs;
+        private final Instant since;
+        private final Instant until;
+        private StatefulRedisConnection<String, byte[]> connection;
+        private ScanCursor cursor;
+        private byte[] buffer = new byte[0];
+        private int position;
+        private boolean finished;
+
+        ExportStream(RedisClient client, ScanCursor cursor, int batchSize, Instant since, Instant until) {
+            this.client = client;
+            this.cursor = cursor;
+            this.scanArgs = ScanArgs.Builder.matches(RedisConversationStore.getMessagesKey("*")).limit(batchSize);
+            this.since = since;
+            this.until = until;
+        }
+
+        @Override
+        public int read() {
+            return fill() ? buffer[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            final int n = Math.min(len, buffer.length - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            finished = true;
+            if (connection != null) {
+                connection.close();
+                connection = null;
+            }
+        }
+
+        private boolean fill() {
+            while (position == buffer.length) {
+                if (finished) {
+                    return false;
+                }
+                buffer = readBatch();
+                position = 0;
+            }
+            return true;
+        }
+
+        private byte[] readBatch() {
+            if (connection == null) {
+                // Messages are binary (see MessageCodec).
+                connection = client.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+            }
+            final var commands = connection.async();
+            final KeyScanCursor<String> scan = await(commands.scan(cursor, scanArgs));
+            cursor = scan;
+            finished = scan.isFinished();
+
+            final var out = new ByteArrayOutputStream();
+            for (final var conversation : readConversations(commands, scan.getKeys())) {
+                writeLine(out, conversation);
+            }
+            writeLine(out, new CursorLine(scan.getCursor()));
+            return out.toByteArray();
+        }
+
+        private List<ConversationLine> readConversations(RedisAsyncCommands<String, byte[]> commands,
+                                                         List<String> keys) {
+            // First round trip: get the last activity of each conversation from its TTL.
+            final long now = System.currentTimeMillis();
+            final var ttls = new ArrayList<RedisFuture<Long>>(keys.size());
+            for (final var key : keys) {
+                ttls.add(commands.pttl(key));
+            }
+            final var conversationIds = new ArrayList<String>(keys.size());
+            final var lastActivities = new ArrayList<Instant>(keys.size());
+            for (int i = 0; i < keys.size(); ++i) {
+                final long ttl = await(ttls.get(i));
+                if (ttl == -2) {
+                    // This conversation has expired since it was scanned.
+                    continue;
+                }
+                final var lastActivity = ttl < 0 ? null
+                        : Instant.ofEpochMilli(now - TimeUnit.SECONDS.toMillis(ConversationStore.TTL_SECONDS) + ttl);
+                if (since != null && lastActivity != null && lastActivity.isBefore(since)) {
+                    continue;
+                }
+                final var key = keys.get(i);
+                conversationIds.add(key.substring(KEY_PREFIX.length(), key.length() - KEY_SUFFIX.length()));
+                lastActivities.add(lastActivity);
+            }
+
+            // Second round trip: read the remaining conversations.
+            final var messages = new ArrayList<RedisFuture<List<byte[]>>>(conversationIds.size());
+            final var summaries = new ArrayList<RedisFuture<byte[]>>(conversationIds.size());
+            for (final var cid : conversationIds) {
+                messages.add(commands.lrange(RedisConversationStore.getMessagesKey(cid), 0, -1));
+                summaries.add(commands.get(RedisConversationStore.getSummaryKey(cid)));
+            }
+            final var conversations = new ArrayList<ConversationLine>(conversationIds.size());
+            for (int i = 0; i < conversationIds.size(); ++i) {
+                final var lastActivity = lastActivities.get(i);
+                final var lines = new ArrayList<MessageLine>();
+                for (final var value : await(messages.get(i))) {
+                    final var entry = codec.decode(value);
+                    final var timestamp = entry.timestamp() != null ? entry.timestamp() : lastActivity;
+                    if (isInWindow(timestamp)) {
+                        lines.add(new MessageLine(entry.type().getValue(), entry.text(), entry.timestamp(),
+                                entry.tokenCount() < 0 ? null : entry.tokenCount()));
+                    }
+                }
+                final var summary = await(summaries.get(i));
+                if (lines.isEmpty() && (since != null || until != null)) {
+                    continue;
+                }
+                conversations.add(new ConversationLine(conversationIds.get(i), lastActivity,
+                        summary == null ? null : new String(summary, StandardCharsets.UTF_8), lines));
+            }
+            return conversations;
+        }
+
+        private boolean isInWindow(Instant timestamp) {
+            if (timestamp == null) {
+                return true;
+            }
+            return (since == null || !timestamp.isBefore(since)) && (until == null || timestamp.isBefore(until));
+        }
+
+        private void writeLine(ByteArrayOutputStream out, Object line) {
+            out.writeBytes(jsonMapper.writeValueAsBytes(line));
+            out.write('\n');
+        }
+
+        private <T> T await(RedisFuture<T> future) {
+            return LettuceFutures.awaitOrCancel(future, connection.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
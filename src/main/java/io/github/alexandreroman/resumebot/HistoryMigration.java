@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Component converting stored conversations to the compact format (see {@link MessageCodec}) in the background,
+ * once the app is ready.
+ * Conversations are converted one at a time, while they are being used: enable this on a single instance.
+ */
+@Component
+@ConditionalOnBooleanProperty("app.history.migrate")
+class HistoryMigration {
+    private final Logger logger = LoggerFactory.getLogger(HistoryMigration.class);
+    private final MessageService messageService;
+    private final AppConfig.History config;
+
+    HistoryMigration(MessageService messageService, AppConfig config) {
+        this.messageService = messageService;
+        this.config = config.history();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onApplicationReady() {
+        if (config.storageFormat() != AppConfig.StorageFormat.COMPACT) {
+            logger.warn("Not converting conversations since the storage format is {}", config.storageFormat());
+            return;
+        }
+        Thread.ofVirtual().name("history-migration").start(() -> {
+            logger.info("Converting conversations to the compact format");
+            try {
+                final int count = messageService.migrateAll();
+                logger.info("Converted {} conversations to the compact format", count);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to convert conversations to the compact format", e);
+            }
+        });
+    }
+}
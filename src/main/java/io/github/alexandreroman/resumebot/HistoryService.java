@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service managing the conversation history included in prompts.
+ * <p>
+ * The history is bound by a token budget: the most recent messages are kept verbatim,
+ * while older messages are folded into a summary in the background.
+ * Tokens are counted locally, without calling the model.
+ */
+@Service
+class HistoryService {
+    private final Logger logger = LoggerFactory.getLogger(HistoryService.class);
+    private final MessageService messageService;
+    private final HistorySummarizer summarizer;
+    private final AppConfig.History config;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator(EncodingType.O200K_BASE);
+
+    HistoryService(MessageService messageService, HistorySummarizer summarizer, AppConfig config) {
+        this.messageService = messageService;
+        this.summarizer = summarizer;
+        this.config = config.history();
+    }
+
+    ConversationHistory getHistory(String conversationId) {
+        if (conversationId == null) {
+            return ConversationHistory.EMPTY;
+        }
+
+        var conversation = messageService.readHistory(conversationId);
+        if (!config.summarize() && conversation.summary() != null) {
+            conversation = new ConversationHistory(null, conversation.messages(), conversation.tokenCounts());
+        }
+        final var messages = conversation.messages();
+        final var summary = conversation.summary();
+        int budget = config.maxTokens();
+        if (summary != null) {
+            budget -= tokenCountEstimator.estimate(summary);
+        }
+
+        // Keep the most recent messages fitting in the token budget.
+        // Token counts are stored along with messages: they are only estimated for legacy entries.
+        int first = messages.size();
+        while (first > 0) {
+            final int storedTokens = conversation.getTokenCount(first - 1);
+            final int tokens = storedTokens >= 0 ? storedTokens : tokenCountEstimator.estimate(messages.get(first - 1));
+            if (tokens > budget) {
+                break;
+            }
+            budget -= tokens;
+            --first;
+        }
+        if (first > 0) {
+            logger.debug("Dropping {} messages from conversation {} exceeding token budget", first, conversationId);
+        }
+        return conversation.tail(first);
+    }
+
+    void addExchange(String conversationId, String question, String answer) {
+        messageService.addExchange(conversationId, question, answer, messageCount -> {
+            if (config.summarize() && messageCount > 2L * config.summarizeAfterTurns()) {
+                summarizer.summarizeIfNeeded(conversationId);
+            }
+        });
+    }
+}
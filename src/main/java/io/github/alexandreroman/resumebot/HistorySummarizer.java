@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Component folding older conversation messages into a summary.
+ * Summaries are computed asynchronously, off the request path.
+ * A conversation may be summarized by several instances at the same time:
+ * the summary is only saved if the summarized messages are still the oldest ones.
+ */
+@Component
+class HistorySummarizer {
+    private final Logger logger = LoggerFactory.getLogger(HistorySummarizer.class);
+    private final MessageService messageService;
+    private final ChatBulkhead bulkhead;
+    private final ChatClient chatClient;
+    private final AppConfig.History config;
+    private final Set<String> conversationsInProgress = ConcurrentHashMap.newKeySet();
+
+    HistorySummarizer(MessageService messageService, ChatBulkhead bulkhead,
+                      ChatClient.Builder chatClientBuilder, AppConfig config) {
+        this.messageService = messageService;
+        this.bulkhead = bulkhead;
+        this.chatClient = chatClientBuilder.build();
+        this.config = config.history();
+    }
+
+    @Async
+    void summarizeIfNeeded(String conversationId) {
+        if (!conversationsInProgress.add(conversationId)) {
+            // This conversation is already being summarized.
+            return;
+        }
+        try {
+            final var messages = messageService.getMessages(conversationId);
+            if (messages.size() <= 2 * config.summarizeAfterTurns()) {
+                return;
+            }
+
+            final int foldedMessages = messages.size() - 2 * config.keepTurns();
+            logger.debug("Summarizing {} messages from conversation {}", foldedMessages, conversationId);
+            final var previousSummary = messageService.getSummary(conversationId);
+            final var summary = bulkhead.execute(() -> chatClient.prompt()
+                    .system(config.summaryPrompt())
+                    .user(u -> u.text("""
+                                    Here is the summary of earlier messages (enclosed by the <summary> tag):
+                                    <summary>
+                                    {summary}
+                                    </summary>
+
+                                    Here are the messages to add to this summary (enclosed by the <conversation> tag):
+                                    <conversation>
+                                    {conversation}
+                                    </conversation>
+                                    """)
+                            .param("summary", previousSummary == null ? "" : previousSummary)
+                            .param("conversation", String.join("\n", messages.subList(0, foldedMessages))))
+                    .call().content());
+            if (summary == null || summary.isBlank()) {
+                logger.warn("No summary from AI for conversation {}", conversationId);
+                return;
+            }
+            if (!messageService.foldMessages(conversationId, messages.subList(0, foldedMessages), summary.trim())) {
+                logger.debug("Conversation {} has been summarized by another instance", conversationId);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to summarize conversation {}", conversationId, e);
+        } finally {
+            conversationsInProgress.remove(conversationId);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Write-behind queue for conversation history updates.
+ * <p>
+ * Exchanges are queued in memory and written to Redis in the background,
+ * so that chat requests do not wait for Redis once the model has answered.
+ * A flusher thread groups the exchanges from many conversations in a single pipelined batch,
+ * when the batch is full or when the flush interval has elapsed.
+ * Queued exchanges are merged into the histories read by this instance (read-your-writes),
+ * and the queue is drained when the app stops.
+ * When the queue is full, callers wait for some room, and end up writing their conversation themselves.
+ */
+@Component
+@ConditionalOnBooleanProperty("app.write-behind.enabled")
+@ConditionalOnProperty(name = "app.history.store", havingValue = "redis", matchIfMissing = true)
+class HistoryWriteBehind extends BackgroundWorker {
+    private final Logger logger = LoggerFactory.getLogger(HistoryWriteBehind.class);
+    private final AppConfig.WriteBehind config;
+    private final int maxMessages;
+    private final StringRedisTemplate redis;
+    private final MessageCodec codec;
+    private final ConversationNearCache nearCache;
+    private final BlockingQueue<Exchange> queue;
+    private final Map<String, PendingConversation> pending = new ConcurrentHashMap<>();
+    private final DistributionSummary batchSizes;
+    private final Counter syncWrites;
+    private final Counter failures;
+
+    @Autowired
+    HistoryWriteBehind(AppConfig config, StringRedisTemplate redis, MessageCodec codec,
+                       ObjectProvider<ConversationNearCache> nearCache, MeterRegistry meterRegistry) {
+        this(config.writeBehind(), config.history().maxMessages(), redis, codec, nearCache.getIfAvailable(),
+                meterRegistry);
+    }
+
+    HistoryWriteBehind(AppConfig.WriteBehind config, int maxMessages, StringRedisTemplate redis, MessageCodec codec,
+                       ConversationNearCache nearCache, MeterRegistry meterRegistry) {
+        super("history-write-behind");
+        this.config = config;
+        this.maxMessages = maxMessages;
+        this.redis = redis;
+        this.codec = codec;
+        this.nearCache = nearCache;
+        this.queue = new ArrayBlockingQueue<>(config.queueCapacity());
+        Gauge.builder("resumebot.history.write-behind.queued", queue, BlockingQueue::size)
+                .description("Number of exchanges waiting to be written to Redis").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("resumebot.history.write-behind.batch")
+                .description("Number of exchanges written to Redis in a batch")
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
+        this.syncWrites = Counter.builder("resumebot.history.write-behind.sync-writes")
+                .description("Number of exchanges written synchronously since the queue was full")
+                .register(meterRegistry);
+        this.failures = Counter.builder("resumebot.history.write-behind.failures")
+                .description("Number of exchanges which could not be written to Redis").register(meterRegistry);
+    }
+
+    /**
+     * Queue an exchange to be written to Redis.
+     * When the queue is still full after waiting for some room, the pending exchanges of this conversation
+     * are written right away, in order.
+     *
+     * @param onWritten callback receiving the number of messages in the conversation once this exchange is written
+     * @return <code>false</code> if the exchange could not be queued, in which case the caller must write it
+     */
+    boolean add(String conversationId, String question, String answer, LongConsumer onWritten) {
+        if (!running) {
+            return false;
+        }
+        final var exchange = new Exchange(conversationId, codec.encode(MessageType.USER, question),
+                codec.encode(MessageType.ASSISTANT, answer), onWritten);
+        while (true) {
+            final var conversation = pending.computeIfAbsent(conversationId, k -> new PendingConversation());
+            conversation.lock.lock();
+            try {
+                if (conversation.removed) {
+                    // This conversation has just been flushed: try again with a new entry.
+                    continue;
+                }
+                conversation.exchanges.add(exchange);
+            } finally {
+                conversation.lock.unlock();
+            }
+            break;
+        }
+
+        // Never wait for the queue while holding a lock: the flusher would not be able to make some room.
+        boolean queued;
+        try {
+            queued = queue.offer(exchange, config.maxBlock().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            // Earlier exchanges of this conversation are written along with this one, so that they are not reordered:
+            // the flusher skips them when their turn comes.
+            syncWrites.increment();
+            flush(List.of(conversationId), true);
+        }
+        return true;
+    }
+
+    /**
+     * Read a conversation history, including the exchanges which have not been written yet.
+     * This method never waits for exchanges to be written.
+     */
+    ConversationHistory read(String conversationId, Function<String, ConversationHistory> reader) {
+        final var conversation = pending.get(conversationId);
+        if (conversation == null) {
+            return reader.apply(conversationId);
+        }
+        final List<Exchange> exchanges;
+        conversation.lock.lock();
+        try {
+            exchanges = List.copyOf(conversation.exchanges);
+        } finally {
+            conversation.lock.unlock();
+        }
+        final var history = reader.apply(conversationId);
+        if (exchanges.isEmpty()) {
+            return history;
+        }
+
+        // Exchanges which have been written, or were being written, while reading the history may be included in it:
+        // they come first, since exchanges are written in order.
+        int written = 0;
+        conversation.lock.lock();
+        try {
+            while (written < exchanges.size()
+                    && indexOf(conversation.exchanges, exchanges.get(written)) < conversation.writing) {
+                ++written;
+            }
+        } finally {
+            conversation.lock.unlock();
+        }
+
+        final var pendingMessages = new ArrayList<MessageCodec.Entry>(2 * exchanges.size());
+        for (final var exchange : exchanges) {
+            pendingMessages.add(codec.decode(exchange.question()));
+            pendingMessages.add(codec.decode(exchange.answer()));
+        }
+        // A batch of exchanges is written atomically: skip the written exchanges found at the end of the history.
+        int skipped = written;
+        while (skipped > 0 && !endsWith(history.messages(), pendingMessages.subList(0, 2 * skipped))) {
+            --skipped;
+        }
+
+        final int size = history.messages().size() + pendingMessages.size() - 2 * skipped;
+        final var messages = new ArrayList<String>(size);
+        final var tokenCounts = new ArrayList<Integer>(size);
+        messages.addAll(history.messages());
+        for (int i = 0; i < history.messages().size(); ++i) {
+            tokenCounts.add(history.getTokenCount(i));
+        }
+        for (final var entry : pendingMessages.subList(2 * skipped, pendingMessages.size())) {
+            messages.add(entry.toHistoryMessage());
+            tokenCounts.add(entry.tokenCount());
+        }
+        return new ConversationHistory(history.summary(), messages, tokenCounts)
+                .tail(Math.max(0, size - maxMessages));
+    }
+
+    /**
+     * Check if some exchanges of a conversation have not been written yet.
+     */
+    boolean isPending(String conversationId) {
+        return pending.containsKey(conversationId);
+    }
+
+    private static boolean endsWith(List<String> messages, List<MessageCodec.Entry> entries) {
+        final int offset = messages.size() - entries.size();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < entries.size(); ++i) {
+            if (!messages.get(offset + i).equals(entries.get(i).toHistoryMessage())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(List<Exchange> exchanges, Exchange exchange) {
+        // Exchanges are compared by identity: the same question may be asked twice with the same answer.
+        for (int i = 0; i < exchanges.size(); ++i) {
+            if (exchanges.get(i) == exchange) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    void run() {
+        final var batch = new ArrayList<Exchange>(config.batchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                final var first = queue.poll(config.flushInterval().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Wait for more exchanges until the batch is full or the flush interval has elapsed.
+                final long deadline = System.nanoTime() + config.flushInterval().toNanos();
+                while (running && batch.size() < config.batchSize()) {
+                    final var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, config.batchSize() - batch.size());
+            } catch (InterruptedException e) {
+                // Stop waiting: remaining exchanges are written right away.
+                running = false;
+                queue.drainTo(batch, config.batchSize() - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                final var conversationIds = new LinkedHashSet<String>();
+                for (final var exchange : batch) {
+                    conversationIds.add(exchange.conversationId());
+                }
+                flush(conversationIds, false);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Write all pending exchanges of some conversations, in a single pipelined batch.
+     * Writes of a conversation are serialized, so that its exchanges are written in order.
+     * Readers are never blocked while writing to Redis.
+     *
+     * @param rethrow set to <code>true</code> to throw an exception if exchanges could not be written
+     */
+    private void flush(Collection<String> conversationIds, boolean rethrow) {
+        final var conversations = new LinkedHashMap<String, PendingConversation>();
+        final var byConversation = new LinkedHashMap<String, List<Exchange>>();
+        List<Long> counts = null;
+        try {
+            for (final var cid : conversationIds) {
+                final var conversation = pending.get(cid);
+                if (conversation == null) {
+                    // All exchanges of this conversation have already been written.
+                    continue;
+                }
+                conversation.writeLock.lock();
+                conversations.put(cid, conversation);
+                conversation.lock.lock();
+                try {
+                    if (!conversation.exchanges.isEmpty()) {
+                        byConversation.put(cid, List.copyOf(conversation.exchanges));
+                        conversation.writing = conversation.exchanges.size();
+                    }
+                } finally {
+                    conversation.lock.unlock();
+                }
+            }
+            if (byConversation.isEmpty()) {
+                return;
+            }
+
+            final int size = byConversation.values().stream().mapToInt(List::size).sum();
+            RuntimeException error = null;
+            try {
+                counts = write(byConversation);
+            } catch (RuntimeException e) {
+                logger.error("Failed to write {} exchanges to Redis", size, e);
+                failures.increment(size);
+                error = e;
+            }
+            for (final var entry : byConversation.entrySet()) {
+                if (nearCache != null) {
+                    // Do not wait for Redis to invalidate this conversation.
+                    nearCache.invalidate(entry.getKey());
+                }
+                final var conversation = conversations.get(entry.getKey());
+                conversation.lock.lock();
+                try {
+                    conversation.exchanges.subList(0, entry.getValue().size()).clear();
+                    conversation.writing = 0;
+                    if (conversation.exchanges.isEmpty()) {
+                        conversation.removed = true;
+                        pending.remove(entry.getKey(), conversation);
+                    }
+                } finally {
+                    conversation.lock.unlock();
+                }
+            }
+            batchSizes.record(size);
+            if (error != null && rethrow) {
+                throw error;
+            }
+        } finally {
+            for (final var conversation : conversations.values()) {
+                conversation.writeLock.unlock();
+            }
+        }
+        if (counts == null) {
+            return;
+        }
+
+        int i = 0;
+        for (final var exchanges : byConversation.values()) {
+            final long count = Math.min(maxMessages, counts.get(i++));
+            try {
+                exchanges.getLast().onWritten().accept(count);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to process conversation {} after update", exchanges.getLast().conversationId(), e);
+            }
+        }
+    }
+
+    private List<Long> write(Map<String, List<Exchange>> byConversation) {
+        final var messages = new LinkedHashMap<String, List<byte[]>>();
+        for (final var entry : byConversation.entrySet()) {
+            final var values = new ArrayList<byte[]>(2 * entry.getValue().size());
+            for (final var exchange : entry.getValue()) {
+                values.add(exchange.question());
+                values.add(exchange.answer());
+            }
+            messages.put(entry.getKey(), values);
+        }
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                return writeMessages(messages);
+            } catch (RuntimeException e) {
+                if (attempt >= config.maxAttempts()) {
+                    throw e;
+                }
+                logger.warn("Failed to write exchanges to Redis (attempt {}/{})", attempt, config.maxAttempts(), e);
+                try {
+                    Thread.sleep(config.flushInterval().multipliedBy(attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Append messages to conversations in a single round trip.
+     *
+     * @return the number of messages in each conversation
+     */
+    List<Long> writeMessages(Map<String, List<byte[]>> messages) {
+        final var results = redis.executePipelined((RedisCallback<Object>) connection -> {
+            for (final var entry : messages.entrySet()) {
+                final var key = RedisConversationStore.getMessagesKey(entry.getKey()).getBytes(StandardCharsets.UTF_8);
+                connection.listCommands().rPush(key, entry.getValue().toArray(new byte[0][]));
+                connection.listCommands().lTrim(key, -maxMessages, -1);
+                connection.keyCommands().expire(key, ConversationStore.TTL_SECONDS);
+                // Keep the summary as long as the messages.
+                connection.keyCommands().expire(RedisConversationStore.getSummaryKey(entry.getKey())
+                        .getBytes(StandardCharsets.UTF_8), ConversationStore.TTL_SECONDS);
+            }
+            return null;
+        });
+        // Each conversation is updated with 4 commands: the first one returns the length of the list.
+        final var counts = new ArrayList<Long>(messages.size());
+        for (int i = 0; i < messages.size(); ++i) {
+            counts.add((Long) results.get(4 * i));
+        }
+        return counts;
+    }
+
+    @Override
+    void awaitStop(Thread thread) throws InterruptedException {
+        thread.join(config.drainTimeout());
+    }
+
+    @Override
+    void afterStop() {
+        if (!queue.isEmpty()) {
+            logger.warn("Failed to write {} exchanges to Redis before shutdown", queue.size());
+        }
+    }
+
+    private record Exchange(String conversationId, byte[] question, byte[] answer, LongConsumer onWritten) {
+    }
+
+    private static final class PendingConversation {
+        /**
+         * Lock guarding the exchanges of this conversation, never held while writing to Redis.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+        /**
+         * Lock serializing the writes of this conversation.
+         */
+        private final ReentrantLock writeLock = new ReentrantLock();
+        /**
+         * Exchanges which have not been written yet, in order.
+         */
+        private final List<Exchange> exchanges = new ArrayList<>();
+        /**
+         * Number of exchanges being written, at the beginning of {@link #exchanges}.
+         */
+        private int writing;
+        private boolean removed;
+    }
+}
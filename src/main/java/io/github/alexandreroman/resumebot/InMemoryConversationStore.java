@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Conversation store keeping conversations in the memory of this instance, when Redis is not used.
+ * <p>
+ * The messages of a conversation are packed in a single byte array, each message being prefixed
+ * by its length: a conversation costs a few objects whatever its number of messages.
+ * Conversations are immutable, so that they are read without locking. Updates copy the conversation,
+ * and are serialized per conversation by a fixed set of locks: updates of different conversations
+ * rarely wait for each other, and no lock is held by the cache while a conversation is copied.
+ * <p>
+ * Conversations expire when they have not been used for {@link #TTL_SECONDS}. The least recently used
+ * conversations are evicted when the memory or entry limit is reached.
+ * Conversations can be saved periodically to a snapshot file, which is loaded on startup.
+ */
+@Component
+@ConditionalOnProperty(name = "app.history.store", havingValue = "memory")
+class InMemoryConversationStore extends BackgroundWorker implements ConversationStore {
+    private static final int SNAPSHOT_MAGIC = 0x52424353;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final Logger logger = LoggerFactory.getLogger(InMemoryConversationStore.class);
+    private final AppConfig.MemoryStore config;
+    private final Cache<String, Conversation> cache;
+    private final Policy.VarExpiration<String, Conversation> expiration;
+    private final ReentrantLock[] locks;
+
+    @Autowired
+    InMemoryConversationStore(AppConfig config, MeterRegistry meterRegistry) {
+        this(config.memoryStore(), meterRegistry, Ticker.systemTicker());
+    }
+
+    InMemoryConversationStore(AppConfig.MemoryStore config, MeterRegistry meterRegistry, Ticker ticker) {
+        super("conversation-snapshot");
+        this.config = config;
+        final long maxWeight = config.maxMemory().toBytes();
+        // Each entry weighs at least maxWeight / maxEntries:
+        // this way, the store is bounded by both memory and entry count.
+        final int minWeight = (int) Math.min(Integer.MAX_VALUE, maxWeight / config.maxEntries());
+        final var ttl = Duration.ofSeconds(TTL_SECONDS);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .<String, Conversation>weigher((cid, conversation) -> Math.max(minWeight, conversation.weight(cid)))
+                .expireAfter(Expiry.<String, Conversation>accessing((cid, conversation) -> ttl))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.expiration = cache.policy().expireVariably().orElseThrow();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "conversations.memory");
+
+        this.locks = new ReentrantLock[config.lockStripes()];
+        for (int i = 0; i < locks.length; ++i) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public long append(String conversationId, List<byte[]> messages, int maxMessages) {
+        return update(conversationId, conversation -> conversation.append(messages, maxMessages)).count();
+    }
+
+    @Override
+    public StoredConversation read(String conversationId) {
+        final var conversation = cache.getIfPresent(conversationId);
+        return conversation == null
+                ? StoredConversation.EMPTY
+                : new StoredConversation(conversation.summary(), conversation.messages());
+    }
+
+    @Override
+    public List<byte[]> getMessages(String conversationId) {
+        final var conversation = cache.policy().getIfPresentQuietly(conversationId);
+        return conversation == null ? List.of() : conversation.messages();
+    }
+
+    @Override
+    public boolean replaceMessages(String conversationId, List<MessageUpdate> updates) {
+        final var replaced = new boolean[1];
+        update(conversationId, conversation -> {
+            final var messages = conversation.messages();
+            for (final var update : updates) {
+                if (update.index() < 0 || update.index() >= messages.size()
+                        || !Arrays.equals(messages.get(update.index()), update.current())) {
+                    return conversation;
+                }
+            }
+            for (final var update : updates) {
+                messages.set(update.index(), update.replacement());
+            }
+            replaced[0] = true;
+            return Conversation.of(conversation.summary(), messages);
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public boolean foldMessages(String conversationId, List<byte[]> messages, String summary) {
+        final var folded = new boolean[1];
+        update(conversationId, conversation -> {
+            final var current = conversation.messages();
+            if (current.size() < messages.size()) {
+                return conversation;
+            }
+            for (int i = 0; i < messages.size(); ++i) {
+                if (!Arrays.equals(current.get(i), messages.get(i))) {
+                    return conversation;
+                }
+            }
+            folded[0] = true;
+            return conversation.removeOldest(messages.size()).withSummary(summary);
+        });
+        return folded[0];
+    }
+
+    @Override
+    public void removeOldestMessages(String conversationId, int count) {
+        update(conversationId, conversation -> conversation.removeOldest(count));
+    }
+
+    @Override
+    public String getSummary(String conversationId) {
+        final var conversation = cache.policy().getIfPresentQuietly(conversationId);
+        return conversation == null ? null : conversation.summary();
+    }
+
+    @Override
+    public void setSummary(String conversationId, String summary) {
+        update(conversationId, conversation -> conversation.withSummary(summary));
+    }
+
+    @Override
+    public void forEachConversation(Consumer<String> action) {
+        for (final var cid : List.copyOf(cache.asMap().keySet())) {
+            action.accept(cid);
+        }
+    }
+
+    /**
+     * Perform pending maintenance, such as evicting conversations.
+     */
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private Conversation update(String conversationId, UnaryOperator<Conversation> update) {
+        final var lock = locks[Math.floorMod(conversationId.hashCode(), locks.length)];
+        lock.lock();
+        try {
+            final var current = cache.policy().getIfPresentQuietly(conversationId);
+            final var updated = update.apply(current == null ? Conversation.EMPTY : current);
+            if (updated == current) {
+                return current;
+            }
+            if (updated.isEmpty()) {
+                cache.invalidate(conversationId);
+            } else {
+                cache.put(conversationId, updated);
+            }
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Save all conversations to the snapshot file, replacing the previous snapshot.
+     * The snapshot is written to a temporary file first, so that a partial snapshot is never loaded.
+     */
+    synchronized void saveSnapshot() throws IOException {
+        final var path = config.snapshotPath();
+        final long start = System.nanoTime();
+        final var parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final var tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        int count = 0;
+        try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            for (final var entry : cache.asMap().entrySet()) {
+                final var expiresAfter = expiration.getExpiresAfter(entry.getKey());
+                if (expiresAfter.isEmpty()) {
+                    continue;
+                }
+                final var conversation = entry.getValue();
+                out.writeBoolean(true);
+                out.writeUTF(entry.getKey());
+                out.writeLong(expiresAfter.get().toMillis());
+                final var summary = conversation.summary() == null
+                        ? null : conversation.summary().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(summary == null ? -1 : summary.length);
+                if (summary != null) {
+                    out.write(summary);
+                }
+                out.writeInt(conversation.count());
+                out.writeInt(conversation.buffer().length);
+                out.write(conversation.buffer());
+                ++count;
+            }
+            out.writeBoolean(false);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("Saved {} conversations to {} in {} ms", count, path,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    /**
+     * Load conversations from the snapshot file, skipping the ones which have expired since it was saved.
+     *
+     * @return the number of conversations which have been loaded
+     */
+    synchronized int loadSnapshot() throws IOException {
+        final var path = config.snapshotPath();
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        int count = 0;
+        try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported snapshot format: " + path);
+            }
+            final long elapsed = Math.max(0, System.currentTimeMillis() - in.readLong());
+            while (in.readBoolean()) {
+                final var cid = in.readUTF();
+                final long remaining = in.readLong() - elapsed;
+                final int summaryLength = in.readInt();
+                final var summary = summaryLength < 0
+                        ? null : new String(in.readNBytes(summaryLength), StandardCharsets.UTF_8);
+                final int messageCount = in.readInt();
+                final var buffer = in.readNBytes(in.readInt());
+                if (remaining > 0) {
+                    expiration.put(cid, new Conversation(summary, buffer, messageCount), Duration.ofMillis(remaining));
+                    ++count;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void start() {
+        final var path = config.snapshotPath();
+        if (path == null) {
+            return;
+        }
+        try {
+            final int count = loadSnapshot();
+            logger.info("Loaded {} conversations from {}", count, path);
+        } catch (IOException e) {
+            logger.warn("Failed to load conversations from {}", path, e);
+        }
+        super.start();
+    }
+
+    @Override
+    void run() {
+        while (running) {
+            try {
+                Thread.sleep(config.snapshotInterval());
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                saveSnapshot();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to save conversations to {}", config.snapshotPath(), e);
+            }
+        }
+    }
+
+    @Override
+    void awaitStop(Thread thread) throws InterruptedException {
+        thread.interrupt();
+        thread.join();
+    }
+
+    @Override
+    void afterStop() {
+        try {
+            saveSnapshot();
+            logger.info("Saved {} conversations to {}", cache.estimatedSize(), config.snapshotPath());
+        } catch (IOException e) {
+            logger.warn("Failed to save conversations to {}", config.snapshotPath(), e);
+        }
+    }
+
+    /**
+     * Immutable conversation, whose messages are packed in a buffer.
+     *
+     * @param summary summary of the older messages, or <code>null</code>
+     * @param buffer  messages, each message being prefixed by its length
+     * @param count   number of messages
+     */
+    private record Conversation(String summary, byte[] buffer, int count) {
+        static final Conversation EMPTY = new Conversation(null, new byte[0], 0);
+
+        static Conversation of(String summary, List<byte[]> messages) {
+            return EMPTY.withSummary(summary).append(messages, Integer.MAX_VALUE);
+        }
+
+        boolean isEmpty() {
+            return summary == null && count == 0;
+        }
+
+        Conversation withSummary(String summary) {
+            return new Conversation(summary, buffer, count);
+        }
+
+        List<byte[]> messages() {
+            final var messages = new ArrayList<byte[]>(count);
+            final var in = ByteBuffer.wrap(buffer);
+            for (int i = 0; i < count; ++i) {
+                final var message = new byte[in.getInt()];
+                in.get(message);
+                messages.add(message);
+            }
+            return messages;
+        }
+
+        /**
+         * Append messages, keeping the newest messages only.
+         */
+        Conversation append(List<byte[]> messages, int maxMessages) {
+            final int total = count + messages.size();
+            final int dropped = Math.max(0, total - maxMessages);
+            final int offset = skip(Math.min(dropped, count));
+            final int first = Math.max(0, dropped - count);
+            int size = buffer.length - offset;
+            for (int i = first; i < messages.size(); ++i) {
+                size += Integer.BYTES + messages.get(i).length;
+            }
+            final var out = ByteBuffer.allocate(size);
+            out.put(buffer, offset, buffer.length - offset);
+            for (int i = first; i < messages.size(); ++i) {
+                out.putInt(messages.get(i).length).put(messages.get(i));
+            }
+            return new Conversation(summary, out.array(), total - dropped);
+        }
+
+        Conversation removeOldest(int removed) {
+            final int n = Math.min(Math.max(0, removed), count);
+            if (n == 0) {
+                return this;
+            }
+            return new Conversation(summary, Arrays.copyOfRange(buffer, skip(n), buffer.length), count - n);
+        }
+
+        int weight(String conversationId) {
+            // Rough estimate of the memory used by this entry, including its key.
+            int weight = 128 + 2 * conversationId.length() + buffer.length;
+            if (summary != null) {
+                weight += 40 + 2 * summary.length();
+            }
+            return weight;
+        }
+
+        private int skip(int messages) {
+            final var in = ByteBuffer.wrap(buffer);
+            int offset = 0;
+            for (int i = 0; i < messages; ++i) {
+                offset += Integer.BYTES + in.getInt(offset);
+            }
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codec for the messages stored in conversation histories.
+ * <p>
+ * Messages are stored as binary frames (version 1):
+ * <ul>
+ *     <li>a marker byte (<code>0xC1</code>), which never appears in UTF-8 text, followed by flags
+ *     (bit 0: assistant message, bit 1: compressed text)</li>
+ *     <li>the time of the message (seconds since epoch) and its estimated number of tokens, as variable-length
+ *     integers</li>
+ *     <li>the UTF-8 text, compressed with raw Deflate if larger than a threshold,
+ *     in which case it is preceded by its uncompressed length</li>
+ * </ul>
+ * Entries written by previous versions are plain strings (<code>Q: ...</code> or <code>A: ...</code>):
+ * they are still decoded, and may be migrated (see {@link MessageService#migrate(String)}).
+ */
+@Component
+class MessageCodec {
+    static final byte VERSION_1 = (byte) 0xC1;
+    private static final int FLAG_ASSISTANT = 1;
+    private static final int FLAG_COMPRESSED = 2;
+
+    private final boolean compact;
+    private final int compressionThreshold;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator(EncodingType.O200K_BASE);
+    // Deflaters allocate native memory: reuse them.
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    MessageCodec(AppConfig config) {
+        this(config.history().storageFormat() == AppConfig.StorageFormat.COMPACT,
+                (int) config.history().compressionThreshold().toBytes());
+    }
+
+    MessageCodec(boolean compact, int compressionThreshold) {
+        this.compact = compact;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * Decoded message.
+     *
+     * @param type       {@link MessageType#USER} for questions, {@link MessageType#ASSISTANT} for answers
+     * @param text       message text
+     * @param timestamp  time of the message, <code>null</code> for legacy entries
+     * @param tokenCount estimated number of tokens of the text, <code>-1</code> for legacy entries
+     */
+    record Entry(MessageType type, String text, Instant timestamp, int tokenCount) {
+        /**
+         * Format this message as included in conversation histories.
+         */
+        String toHistoryMessage() {
+            return (type == MessageType.ASSISTANT ? "A: " : "Q: ") + text;
+        }
+    }
+
+    /**
+     * Encode a message, using the configured storage format.
+     */
+    byte[] encode(MessageType type, String text) {
+        return compact
+                ? encode(new Entry(type, text, Instant.now(), estimateTokens(text)))
+                : encodeLegacy(type, text);
+    }
+
+    /**
+     * Estimate the number of tokens of a message.
+     */
+    int estimateTokens(String text) {
+        return tokenCountEstimator.estimate(text);
+    }
+
+    /**
+     * Encode a message using the compact format.
+     */
+    byte[] encode(Entry entry) {
+        final var text = entry.text().getBytes(StandardCharsets.UTF_8);
+        int flags = entry.type() == MessageType.ASSISTANT ? FLAG_ASSISTANT : 0;
+        byte[] payload = text;
+        if (text.length > compressionThreshold) {
+            final var compressed = compress(text);
+            if (compressed.length + 5 < text.length) {
+                flags |= FLAG_COMPRESSED;
+                payload = compressed;
+            }
+        }
+
+        final var out = new ByteArrayOutputStream(payload.length + 16);
+        out.write(VERSION_1);
+        out.write(flags);
+        writeVarLong(out, entry.timestamp() == null ? 0 : entry.timestamp().getEpochSecond());
+        writeVarLong(out, Math.max(0, entry.tokenCount()));
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            writeVarLong(out, text.length);
+        }
+        out.writeBytes(payload);
+        return out.toByteArray();
+    }
+
+    static byte[] encodeLegacy(MessageType type, String text) {
+        return ((type == MessageType.ASSISTANT ? "A: " : "Q: ") + text).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode a message, in any format.
+     */
+    Entry decode(byte[] value) {
+        if (!isCompact(value)) {
+            final var s = new String(value, StandardCharsets.UTF_8);
+            if (s.startsWith("A: ")) {
+                return new Entry(MessageType.ASSISTANT, s.substring(3), null, -1);
+            }
+            return new Entry(MessageType.USER, s.startsWith("Q: ") ? s.substring(3) : s, null, -1);
+        }
+
+        final int flags = value[1];
+        final var pos = new int[]{2};
+        final long timestamp = readVarLong(value, pos);
+        final int tokenCount = (int) readVarLong(value, pos);
+        final String text;
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            final int length = (int) readVarLong(value, pos);
+            text = new String(decompress(value, pos[0], length), StandardCharsets.UTF_8);
+        } else {
+            text = new String(value, pos[0], value.length - pos[0], StandardCharsets.UTF_8);
+        }
+        return new Entry((flags & FLAG_ASSISTANT) != 0 ? MessageType.ASSISTANT : MessageType.USER, text,
+                timestamp == 0 ? null : Instant.ofEpochSecond(timestamp), tokenCount);
+    }
+
+    /**
+     * Check whether a stored value uses the compact format.
+     */
+    static boolean isCompact(byte[] value) {
+        return value.length >= 2 && value[0] == VERSION_1;
+    }
+
+    private byte[] compress(byte[] data) {
+        var deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED, true);
+        }
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            final var out = new ByteArrayOutputStream(data.length / 2 + 16);
+            final var buffer = new byte[Math.min(8192, data.length + 64)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.reset();
+            deflaters.offer(deflater);
+        }
+    }
+
+    private byte[] decompress(byte[] data, int offset, int length) {
+        var inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            final var result = new byte[length];
+            int n = 0;
+            while (n < length) {
+                final int read = inflater.inflate(result, n, length - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != length) {
+                throw new IllegalArgumentException("Truncated message: expected " + length + " bytes, got " + n);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed message", e);
+        } finally {
+            inflater.reset();
+            inflaters.offer(inflater);
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] data, int[] pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= data.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            final byte b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid variable-length integer");
+    }
+}
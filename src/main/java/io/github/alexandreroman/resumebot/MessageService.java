@@ -19,35 +19,104 @@ package io.github.alexandreroman.resumebot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.messages.MessageType;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
 
 @Service
 class MessageService {
     private final Logger logger = LoggerFactory.getLogger(MessageService.class);
-    private final StringRedisTemplate redis;
+    private final ConversationStore store;
+    private final AppConfig.History config;
+    private final MessageCodec codec;
+    private final ConversationNearCache nearCache;
+    private final HistoryWriteBehind writeBehind;
 
-    MessageService(StringRedisTemplate redis) {
-        this.redis = redis;
+    MessageService(ConversationStore store, AppConfig config, MessageCodec codec,
+                   ObjectProvider<ConversationNearCache> nearCache, ObjectProvider<HistoryWriteBehind> writeBehind) {
+        this.store = store;
+        this.config = config.history();
+        this.codec = codec;
+        this.nearCache = nearCache.getIfAvailable();
+        this.writeBehind = writeBehind.getIfAvailable();
     }
 
-    private String getMessagesKey(String conversationId) {
-        return String.format("resumebot:conversations:%s:messages", conversationId);
+    void addMessage(String conversationId, MessageType messageType, String message) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("conversationId is null");
+        }
+
+        logger.debug("Adding {} message to conversation {}: {}", messageType, conversationId, message);
+        // Cap the number of messages, so that conversations do not grow forever.
+        store.append(conversationId, List.of(codec.encode(messageType, message)), config.maxMessages());
     }
 
-    void addMessage(String conversationId, MessageType messageType, String message) {
+    /**
+     * Append a question and its answer to a conversation.
+     *
+     * @return the number of messages in this conversation
+     */
+    long addExchange(String conversationId, String question, String answer) {
         if (conversationId == null) {
             throw new IllegalArgumentException("conversationId is null");
         }
 
-        final var key = getMessagesKey(conversationId);
-        final var m = (messageType.equals(MessageType.USER) ? "Q: " : "A: ") + message;
-        logger.debug("Adding message to conversation {}: {}", conversationId, m);
-        redis.opsForList().rightPush(key, m);
-        redis.expire(key, 1, TimeUnit.DAYS);
+        logger.debug("Adding exchange to conversation {}: Q: {} / A: {}", conversationId, question, answer);
+        final var encodedQuestion = codec.encode(MessageType.USER, question);
+        final var encodedAnswer = codec.encode(MessageType.ASSISTANT, answer);
+        if (nearCache != null) {
+            final long count = nearCache.addExchange(conversationId, encodedQuestion, encodedAnswer,
+                    config.maxMessages(), ConversationStore.TTL_SECONDS);
+            if (count != -1) {
+                return count;
+            }
+        }
+        return store.append(conversationId, List.of(encodedQuestion, encodedAnswer), config.maxMessages());
+    }
+
+    /**
+     * Append a question and its answer to a conversation, in the background when write-behind is enabled.
+     *
+     * @param onAdded callback receiving the number of messages in this conversation once the exchange is written
+     */
+    void addExchange(String conversationId, String question, String answer, LongConsumer onAdded) {
+        if (writeBehind != null && writeBehind.add(conversationId, question, answer, onAdded)) {
+            return;
+        }
+        onAdded.accept(addExchange(conversationId, question, answer));
+    }
+
+    /**
+     * Read the summary and all messages of a conversation, refreshing its TTL.
+     * When the history is read from the near cache, its TTL is only refreshed when the conversation is updated.
+     * Exchanges which have not been written yet by this instance are included.
+     */
+    ConversationHistory readHistory(String conversationId) {
+        if (conversationId == null) {
+            return ConversationHistory.EMPTY;
+        }
+        return writeBehind != null
+                ? writeBehind.read(conversationId, this::readStoredHistory)
+                : readStoredHistory(conversationId);
+    }
+
+    private ConversationHistory readStoredHistory(String conversationId) {
+        if (nearCache != null) {
+            final var history = nearCache.read(conversationId);
+            if (history != null) {
+                return history;
+            }
+        }
+
+        final var stored = store.read(conversationId);
+        if (stored.summary() == null && stored.messages().isEmpty()) {
+            return ConversationHistory.EMPTY;
+        }
+        return ConversationHistory.of(stored.summary(), decode(stored.messages()));
     }
 
     List<String> getMessages(String conversationId) {
@@ -55,10 +124,102 @@ class MessageService {
             return List.of();
         }
 
-        final var messages = (List<?>) redis.opsForList().range(getMessagesKey(conversationId), 0, -1);
-        if (messages == null) {
-            return List.of();
+        final var values = store.getMessages(conversationId);
+        final var messages = new ArrayList<String>(values.size());
+        for (final var entry : decode(values)) {
+            messages.add(entry.toHistoryMessage());
+        }
+        return messages;
+    }
+
+    /**
+     * Convert the messages of a conversation stored in the legacy format to the compact format.
+     *
+     * @return <code>true</code> if some messages have been converted
+     */
+    boolean migrate(String conversationId) {
+        final var values = store.getMessages(conversationId);
+        final var updates = new ArrayList<ConversationStore.MessageUpdate>();
+        for (int i = 0; i < values.size(); ++i) {
+            final var value = values.get(i);
+            if (!MessageCodec.isCompact(value)) {
+                final var entry = codec.decode(value);
+                updates.add(new ConversationStore.MessageUpdate(i, value,
+                        codec.encode(new MessageCodec.Entry(entry.type(), entry.text(), null,
+                                codec.estimateTokens(entry.text())))));
+            }
+        }
+        if (updates.isEmpty()) {
+            return false;
+        }
+        if (!store.replaceMessages(conversationId, updates)) {
+            // This conversation has been trimmed while being converted: it will be converted next time.
+            logger.debug("Conversation {} has changed while being converted", conversationId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Convert all conversations stored in the legacy format to the compact format.
+     *
+     * @return the number of conversations which have been converted
+     */
+    int migrateAll() {
+        final var migrated = new AtomicInteger();
+        store.forEachConversation(cid -> {
+            if (migrate(cid)) {
+                migrated.incrementAndGet();
+            }
+        });
+        return migrated.get();
+    }
+
+    private List<MessageCodec.Entry> decode(List<byte[]> values) {
+        final var entries = new ArrayList<MessageCodec.Entry>(values.size());
+        for (final var value : values) {
+            entries.add(codec.decode(value));
+        }
+        return entries;
+    }
+
+    /**
+     * Replace the oldest messages of a conversation with a summary, provided they have not changed.
+     * This way, a conversation summarized concurrently by several instances is only trimmed once.
+     *
+     * @param messages oldest messages of this conversation, as returned by {@link #getMessages}
+     * @return <code>true</code> if the messages have been replaced
+     */
+    boolean foldMessages(String conversationId, List<String> messages, String summary) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("conversationId is null");
+        }
+        final var values = store.getMessages(conversationId);
+        if (values.size() < messages.size()) {
+            return false;
+        }
+        final var folded = values.subList(0, messages.size());
+        for (int i = 0; i < folded.size(); ++i) {
+            if (!codec.decode(folded.get(i)).toHistoryMessage().equals(messages.get(i))) {
+                return false;
+            }
+        }
+        logger.debug("Updating summary of conversation {}: {}", conversationId, summary);
+        return store.foldMessages(conversationId, folded, summary);
+    }
+
+    String getSummary(String conversationId) {
+        if (conversationId == null) {
+            return null;
+        }
+        return store.getSummary(conversationId);
+    }
+
+    void setSummary(String conversationId, String summary) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("conversationId is null");
         }
-        return (List<String>) messages;
+        logger.debug("Updating summary of conversation {}: {}", conversationId, summary);
+        store.setSummary(conversationId, summary);
     }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.springframework.http.HttpStatus;
+
+import java.io.Serial;
+import java.time.Duration;
+
+/**
+ * Exception raised when the model is not called, since it has been failing or too slow lately.
+ */
+class ModelUnavailableException extends ChatRejectedException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    ModelUnavailableException(Duration retryAfter) {
+        super("The assistant is temporarily unavailable, please try again later",
+                HttpStatus.SERVICE_UNAVAILABLE, retryAfter);
+    }
+}
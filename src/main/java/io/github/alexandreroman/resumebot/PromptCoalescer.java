@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalescer sharing a single model call between concurrent requests for the same first-turn prompt
+ * (single flight).
+ * <p>
+ * The first request for a prompt (the leader) calls the model, while the following requests
+ * for the same normalized prompt and resume wait for its answer.
+ * Requests are coalesced in this instance, and optionally across instances using Redis:
+ * a short-lived lock key elects the leader, which stores its answer in a result key polled by the other instances.
+ * Followers do not wait more than a configured delay: they call the model themselves if the leader is too slow.
+ */
+@Component
+class PromptCoalescer {
+    /**
+     * Release a lock only if it is still held by the leader which acquired it:
+     * the lock may have expired, and then been acquired by another leader.
+     * The only argument is the token set when the lock was acquired.
+     */
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final Logger logger = LoggerFactory.getLogger(PromptCoalescer.class);
+    private final AppConfig.Coalescing config;
+    private final StringRedisTemplate redis;
+    private final Map<String, CompletableFuture<ChatAnswer>> inFlight = new ConcurrentHashMap<>();
+    private final Counter localCoalesced;
+    private final Counter redisCoalesced;
+    private final Counter timeouts;
+
+    PromptCoalescer(AppConfig config, StringRedisTemplate redis, MeterRegistry meterRegistry) {
+        this.config = config.coalescing();
+        this.redis = redis;
+        this.localCoalesced = Counter.builder("resumebot.chat.coalesced").tag("scope", "local")
+                .description("Number of requests sharing the model call of another request").register(meterRegistry);
+        this.redisCoalesced = Counter.builder("resumebot.chat.coalesced").tag("scope", "redis")
+                .description("Number of requests sharing the model call of another request").register(meterRegistry);
+        this.timeouts = Counter.builder("resumebot.chat.coalescing.timeouts")
+                .description("Number of requests which stopped waiting for a slow leader").register(meterRegistry);
+    }
+
+    /**
+     * Get the answer to a first-turn prompt, sharing the model call with concurrent requests.
+     */
+    ChatAnswer execute(Resume resume, String prompt, Supplier<ChatAnswer> call) {
+        if (!config.enabled()) {
+            return call.get();
+        }
+        final var key = resume.fingerprint() + ":" + AnswerCache.hash(AnswerCache.normalize(prompt));
+        final var future = new CompletableFuture<ChatAnswer>();
+        final var leader = inFlight.putIfAbsent(key, future);
+        if (leader != null) {
+            localCoalesced.increment();
+            final var answer = await(leader);
+            return answer != null ? answer : call.get();
+        }
+
+        try {
+            final var answer = config.redis() ? executeShared(key, call) : call.get();
+            future.complete(answer);
+            return answer;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private ChatAnswer await(CompletableFuture<ChatAnswer> leader) {
+        try {
+            return leader.get(config.maxWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.debug("Leader is too slow: calling the model");
+            timeouts.increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an answer", e);
+        } catch (ExecutionException e) {
+            // The leader failed: so would this request.
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Failed to get an answer", e.getCause());
+        }
+    }
+
+    private ChatAnswer executeShared(String key, Supplier<ChatAnswer> call) {
+        final var lockKey = "resumebot:inflight:" + key + ":lock";
+        final var resultKey = "resumebot:inflight:" + key + ":result";
+        // Each lock gets a unique token, so that a leader never releases the lock of another leader.
+        final var token = UUID.randomUUID().toString();
+        final boolean locked;
+        try {
+            locked = Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(lockKey, token, config.lockTtl()));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to coalesce prompt using Redis", e);
+            return call.get();
+        }
+
+        if (!locked) {
+            final var answer = awaitShared(lockKey, resultKey);
+            if (answer != null) {
+                redisCoalesced.increment();
+                return answer;
+            }
+            return call.get();
+        }
+
+        try {
+            final var answer = call.get();
+            redis.opsForValue().set(resultKey, encode(answer), config.resultTtl());
+            return answer;
+        } finally {
+            try {
+                redis.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), token);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to release coalescing lock {}", lockKey, e);
+            }
+        }
+    }
+
+    private ChatAnswer awaitShared(String lockKey, String resultKey) {
+        final long deadline = System.nanoTime() + config.maxWait().toNanos();
+        try {
+            while (System.nanoTime() < deadline) {
+                final var result = redis.opsForValue().get(resultKey);
+                if (result != null) {
+                    return decode(result);
+                }
+                if (!Boolean.TRUE.equals(redis.hasKey(lockKey))) {
+                    // The leader is gone without an answer: it may have failed.
+                    // Check the result once more, since it is written before the lock is released.
+                    final var lastResult = redis.opsForValue().get(resultKey);
+                    return lastResult == null ? null : decode(lastResult);
+                }
+                Thread.sleep(config.pollInterval());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an answer", e);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read coalesced answer from Redis", e);
+            return null;
+        }
+        logger.debug("Leader is too slow: calling the model");
+        timeouts.increment();
+        return null;
+    }
+
+    private static String encode(ChatAnswer answer) {
+        return (answer.foundAnswer() ? '1' : '0') + answer.answer();
+    }
+
+    private static ChatAnswer decode(String value) {
+        return new ChatAnswer(value.substring(1), value.charAt(0) == '1');
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Factory assembling the messages sent to the model.
+ * <p>
+ * The system prompt and the resume are rendered once into a stable prefix,
+ * which is byte-identical for all requests: this way, the model provider can reuse
+ * its cached computation of this prefix (prompt caching).
+ * The conversation history is then added as structured messages,
+ * and only the question varies at the end of the prompt.
+ * <p>
+ * When retrieval is enabled, only the resume sections which are relevant to the question
+ * are included: the prefix is then limited to the system prompt.
+ * <p>
+ * When dates are injected, the current date and the durations of the date ranges found in the resume
+ * are added before the question, so that the model does not need to call tools to get the current date.
+ */
+@Component
+class PromptFactory {
+    private final AppConfig.Retrieval retrieval;
+    private final boolean injectDates;
+    private final SystemMessage systemMessage;
+    private final String[] resumeTemplate;
+    private final String[] questionTemplate;
+    private final String promptsHash;
+
+    PromptFactory(AppConfig config) {
+        this.retrieval = config.retrieval();
+        this.injectDates = config.dates().inject();
+        // Instructions about dates depend on whether the model gets the current date from tools or from the prompt.
+        final var systemPrompt = config.systemPrompt().replace("{dates}", config.dates().instructions());
+        this.systemMessage = new SystemMessage(systemPrompt);
+        if (config.userPrompt().contains("{resume}")) {
+            // The resume used to be rendered in the user prompt: fail fast with a customized prompt.
+            throw new IllegalStateException(
+                    "The {resume} parameter has moved from app.userPrompt to app.resumePrompt: update your prompts");
+        }
+        // Templates are split once, so that they are not parsed for each request.
+        this.resumeTemplate = splitTemplate(config.resumePrompt(), "resume");
+        this.questionTemplate = splitTemplate(config.userPrompt(), "prompt");
+        this.promptsHash = AnswerCache.hash(systemPrompt + '\0' + config.resumePrompt() + '\0' + config.userPrompt());
+    }
+
+    /**
+     * Prepare a resume, rendering its prompt prefix.
+     */
+    Resume createResume(String id, String text) {
+        final var fingerprint = getFingerprint(text);
+        final var dates = injectDates ? ResumeDates.parse(text) : null;
+        // The system message is shared by all resumes: it is not included in their size.
+        final long datesSize = dates == null ? 0 : 128L * dates.ranges().size();
+        if (retrieval.enabled()) {
+            final var index = new ResumeIndex(text);
+            return new Resume(id, fingerprint, List.of(systemMessage), index, dates, datesSize + index.estimateSize());
+        }
+        final var resumeMessage = render(resumeTemplate, text);
+        return new Resume(id, fingerprint, List.of(systemMessage, new UserMessage(resumeMessage)), null, dates,
+                datesSize + 2L * resumeMessage.length());
+    }
+
+    /**
+     * Get the fingerprint of a resume, which changes when the resume or the prompts change.
+     */
+    String getFingerprint(String text) {
+        return AnswerCache.hash(promptsHash + '\0' + text).substring(0, 16);
+    }
+
+    /**
+     * Create the messages for a question.
+     */
+    List<Message> createMessages(Resume resume, ConversationHistory history, String prompt) {
+        final var historyMessages = history.toMessages();
+        final var messages = new ArrayList<Message>(resume.prefix().size() + historyMessages.size() + 3);
+        messages.addAll(resume.prefix());
+        if (resume.index() != null) {
+            final var sections = resume.index().select(prompt, retrieval.topK(), retrieval.minScore());
+            messages.add(new UserMessage(render(resumeTemplate, sections)));
+        }
+        messages.addAll(historyMessages);
+        if (resume.dates() != null) {
+            // The current date is set at the end of the prompt, since it changes every day.
+            messages.add(new UserMessage(resume.dates().describe(LocalDate.now())));
+        }
+        messages.add(new UserMessage(render(questionTemplate, prompt)));
+        return messages;
+    }
+
+    private static String[] splitTemplate(String template, String param) {
+        final var placeholder = "{" + param + "}";
+        final int i = template.indexOf(placeholder);
+        if (i == -1) {
+            throw new IllegalStateException("Prompt template must include the " + placeholder + " parameter");
+        }
+        return new String[]{template.substring(0, i), template.substring(i + placeholder.length())};
+    }
+
+    private static String render(String[] template, String value) {
+        return template[0] + value + template[1];
+    }
+}
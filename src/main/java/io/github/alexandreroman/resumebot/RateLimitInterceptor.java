@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Interceptor rejecting chat requests exceeding the rate limits of their conversation or client.
+ * <p>
+ * The remaining quota is reported with the <code>X-RateLimit-Limit</code> and <code>X-RateLimit-Remaining</code>
+ * headers. Rejected requests get a <code>429 Too Many Requests</code> response (see {@link ChatController}).
+ * Batch requests are checked by {@link ChatController} once their prompts are read, since they take a token per prompt.
+ */
+@Component
+@ConditionalOnBooleanProperty(name = "app.rate-limit.enabled", matchIfMissing = true)
+class RateLimitInterceptor implements HandlerInterceptor {
+    static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private final RateLimiter rateLimiter;
+
+    RateLimitInterceptor(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        check(request, response, 1);
+        return true;
+    }
+
+    /**
+     * Take tokens for a chat request.
+     *
+     * @param prompts number of prompts of this request
+     * @throws ChatRejectedException if this request exceeds the rate limits
+     */
+    void check(HttpServletRequest request, HttpServletResponse response, int prompts) {
+        // Use server.forward-headers-strategy when running behind a proxy, so that this is the client address.
+        final var decision = rateLimiter.acquire(request.getParameter("conversationId"), request.getRemoteAddr(),
+                prompts);
+        response.setHeader(LIMIT_HEADER, String.valueOf(decision.limit()));
+        response.setHeader(REMAINING_HEADER, String.valueOf(decision.remaining()));
+        if (!decision.allowed()) {
+            // Round up the delay, so that clients do not retry too early.
+            final var retryAfter = Duration.ofSeconds((decision.retryAfter().toMillis() + 999) / 1000);
+            throw new ChatRejectedException("Too many requests for this " + decision.scope(),
+                    HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Rate limiter for chat requests, using a token bucket per conversation and per client.
+ * <p>
+ * Buckets are stored in Redis, next to the conversation keys, and updated atomically with a script:
+ * a request is allowed only if every bucket has enough tokens left, in which case tokens are taken from each bucket.
+ * A request takes a token per prompt, up to the capacity of a bucket.
+ * When Redis does not answer in time, buckets kept in memory are used instead:
+ * limits are then enforced per instance.
+ */
+@Component
+class RateLimiter implements DisposableBean {
+    /**
+     * Refill and take tokens from the buckets in a single round trip, using the clock of the Redis server.
+     * Each bucket is a hash holding the number of tokens and the time of the last refill:
+     * arguments are the number of tokens to take, then the capacity and the refill interval (in milliseconds)
+     * of each bucket.
+     * The result is whether the request is allowed, the number of tokens left and the capacity of the fullest
+     * bucket, the delay before enough tokens are available (in milliseconds) and the index of the empty bucket.
+     */
+    private static final RedisScript<List<Long>> CONSUME_SCRIPT = RedisScripts.ofList("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local tokens, stamps, costs = {}, {}, {}
+            local allowed, remaining, limit, retry, rejected = 1, -1, 0, 0, 0
+            for i, key in ipairs(KEYS) do
+              local capacity, interval = tonumber(ARGV[2 * i]), tonumber(ARGV[2 * i + 1])
+              local cost = math.min(tonumber(ARGV[1]), capacity)
+              local bucket = redis.call('HMGET', key, 'tokens', 'ts')
+              local n = tonumber(bucket[1]) or capacity
+              local ts = tonumber(bucket[2]) or now
+              local refill = math.floor((now - ts) / interval)
+              n = math.min(capacity, n + refill)
+              if n == capacity then ts = now else ts = ts + refill * interval end
+              tokens[i], stamps[i], costs[i] = n, ts, cost
+              if n < cost then
+                local wait = (cost - n) * interval - (now - ts)
+                if wait > retry then retry, rejected = wait, i end
+                allowed = 0
+              end
+            end
+            for i, key in ipairs(KEYS) do
+              local capacity, interval = tonumber(ARGV[2 * i]), tonumber(ARGV[2 * i + 1])
+              local n = tokens[i] - allowed * costs[i]
+              if remaining == -1 or n < remaining then remaining, limit = n, capacity end
+              redis.call('HSET', key, 'tokens', n, 'ts', stamps[i])
+              redis.call('PEXPIRE', key, (capacity - n + 1) * interval)
+            end
+            return {allowed, remaining, limit, retry, rejected}
+            """);
+
+    private final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+    private final AppConfig.RateLimit config;
+    private final StringRedisTemplate redis;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Cache<String, TokenBucket> localBuckets;
+    private final Counter conversationRejections;
+    private final Counter clientRejections;
+    private final Counter fallbacks;
+
+    RateLimiter(AppConfig config, StringRedisTemplate redis, MeterRegistry meterRegistry) {
+        this.config = config.rateLimit();
+        this.redis = redis;
+        this.localBuckets = Caffeine.newBuilder()
+                .maximumSize(this.config.maxLocalBuckets())
+                .expireAfterAccess(maxRefillDuration())
+                .build();
+        this.conversationRejections = Counter.builder("resumebot.chat.rate-limited").tag("scope", "conversation")
+                .description("Number of requests rejected by the rate limiter").register(meterRegistry);
+        this.clientRejections = Counter.builder("resumebot.chat.rate-limited").tag("scope", "client")
+                .description("Number of requests rejected by the rate limiter").register(meterRegistry);
+        this.fallbacks = Counter.builder("resumebot.chat.rate-limit.fallbacks")
+                .description("Number of requests checked by the local rate limiter since Redis was not available")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Outcome of a rate limiter check.
+     *
+     * @param allowed    <code>true</code> if the request is allowed
+     * @param limit      capacity of the bucket with the fewest tokens left
+     * @param remaining  number of requests which may be sent right away
+     * @param retryAfter delay before a request is allowed, if this one is rejected
+     * @param scope      scope of the bucket which rejected the request (<code>conversation</code> or
+     *                   <code>client</code>), or <code>null</code> if the request is allowed
+     */
+    record Decision(boolean allowed, long limit, long remaining, Duration retryAfter, String scope) {
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Take tokens for a chat request.
+     *
+     * @param conversationId conversation identifier, which may be <code>null</code>
+     * @param clientId       client identifier, such as its IP address
+     * @param tokens         number of tokens to take, which is the number of prompts of the request
+     */
+    Decision acquire(String conversationId, String clientId, int tokens) {
+        final var scopes = new ArrayList<String>(2);
+        final var keys = new ArrayList<String>(2);
+        final var args = new ArrayList<String>(5);
+        args.add(String.valueOf(tokens));
+        if (conversationId != null) {
+            scopes.add("conversation");
+            keys.add(getConversationKey(conversationId));
+            args.add(String.valueOf(config.conversationCapacity()));
+            args.add(String.valueOf(config.conversationRefillInterval().toMillis()));
+        }
+        scopes.add("client");
+        keys.add(getClientKey(clientId));
+        args.add(String.valueOf(config.clientCapacity()));
+        args.add(String.valueOf(config.clientRefillInterval().toMillis()));
+
+        Decision decision;
+        final var future = executor.submit(() -> redis.execute(CONSUME_SCRIPT, keys, args.toArray()));
+        try {
+            decision = toDecision(future.get(config.redisTimeout().toMillis(), TimeUnit.MILLISECONDS), scopes);
+        } catch (TimeoutException | ExecutionException e) {
+            logger.debug("Failed to check rate limits using Redis: using local rate limiter", e);
+            fallbacks.increment();
+            decision = acquireLocal(keys, scopes, tokens);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking rate limits", e);
+        } finally {
+            // Interrupt the call if Redis has not answered in time: the pending command is then cancelled.
+            future.cancel(true);
+        }
+
+        if (!decision.allowed()) {
+            ("conversation".equals(decision.scope()) ? conversationRejections : clientRejections).increment();
+        }
+        return decision;
+    }
+
+    private Decision toDecision(List<Long> result, List<String> scopes) {
+        if (result == null || result.size() < 5) {
+            throw new IllegalStateException("Unexpected result from rate limiter script: " + result);
+        }
+        final boolean allowed = result.get(0) == 1;
+        final int rejected = result.get(4).intValue();
+        return new Decision(allowed, result.get(2), result.get(1),
+                Duration.ofMillis(result.get(3)), allowed ? null : scopes.get(rejected - 1));
+    }
+
+    private synchronized Decision acquireLocal(List<String> keys, List<String> scopes, int tokens) {
+        final var buckets = new ArrayList<TokenBucket>(keys.size());
+        for (int i = 0; i < keys.size(); ++i) {
+            final boolean conversation = "conversation".equals(scopes.get(i));
+            buckets.add(localBuckets.get(keys.get(i), k -> conversation
+                    ? new TokenBucket(config.conversationCapacity(), config.conversationRefillInterval())
+                    : new TokenBucket(config.clientCapacity(), config.clientRefillInterval())));
+        }
+        return consume(buckets, scopes, tokens, System.currentTimeMillis());
+    }
+
+    /**
+     * Take tokens from each bucket if all of them have enough tokens left,
+     * using the same algorithm as the Redis script.
+     */
+    static Decision consume(List<TokenBucket> buckets, List<String> scopes, int tokens, long now) {
+        long retry = 0;
+        String rejected = null;
+        for (int i = 0; i < buckets.size(); ++i) {
+            final var bucket = buckets.get(i);
+            bucket.refill(now);
+            final int cost = Math.min(tokens, bucket.capacity);
+            if (bucket.tokens < cost) {
+                final long wait = (cost - bucket.tokens) * bucket.intervalMillis - (now - bucket.timestamp);
+                if (rejected == null || wait > retry) {
+                    retry = wait;
+                    rejected = scopes.get(i);
+                }
+            }
+        }
+        long remaining = -1;
+        long limit = 0;
+        for (final var bucket : buckets) {
+            if (rejected == null) {
+                bucket.tokens -= Math.min(tokens, bucket.capacity);
+            }
+            if (remaining == -1 || bucket.tokens < remaining) {
+                remaining = bucket.tokens;
+                limit = bucket.capacity;
+            }
+        }
+        return new Decision(rejected == null, limit, remaining, Duration.ofMillis(retry), rejected);
+    }
+
+    private Duration maxRefillDuration() {
+        final var conversation = config.conversationRefillInterval().multipliedBy(config.conversationCapacity());
+        final var client = config.clientRefillInterval().multipliedBy(config.clientCapacity());
+        return conversation.compareTo(client) > 0 ? conversation : client;
+    }
+
+    private static String getConversationKey(String conversationId) {
+        return String.format("resumebot:conversations:%s:ratelimit", conversationId);
+    }
+
+    private static String getClientKey(String clientId) {
+        return String.format("resumebot:clients:%s:ratelimit", clientId);
+    }
+
+    /**
+     * Token bucket kept in memory. This class is not thread-safe.
+     */
+    static final class TokenBucket {
+        private final int capacity;
+        private final long intervalMillis;
+        private long tokens;
+        private long timestamp;
+
+        TokenBucket(int capacity, Duration refillInterval) {
+            this.capacity = capacity;
+            this.intervalMillis = refillInterval.toMillis();
+            this.tokens = capacity;
+            this.timestamp = -1;
+        }
+
+        private void refill(long now) {
+            if (timestamp == -1) {
+                timestamp = now;
+            }
+            final long refill = (now - timestamp) / intervalMillis;
+            tokens = Math.min(capacity, tokens + refill);
+            timestamp = tokens == capacity ? now : timestamp + refill * intervalMillis;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 @Configuration(proxyBeanMethods = false)
 class RedisConfig {
@@ -29,4 +30,11 @@ class RedisConfig {
         redis.setConnectionFactory(connFactory);
         return redis;
     }
+
+    @Bean
+    RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connFactory) {
+        final var container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connFactory);
+        return container;
+    }
 }
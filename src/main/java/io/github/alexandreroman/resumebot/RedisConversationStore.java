@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Conversation store keeping conversations in Redis, so that they are shared between instances.
+ * <p>
+ * The messages of a conversation are stored in a list, next to a string holding its summary:
+ * both keys expire with their TTL.
+ */
+@Component
+@ConditionalOnProperty(name = "app.history.store", havingValue = "redis", matchIfMissing = true)
+class RedisConversationStore implements ConversationStore {
+    private static final String KEY_PREFIX = "resumebot:conversations:";
+
+    /**
+     * Append messages to a conversation, cap its length and refresh its TTL, in a single round trip.
+     * The TTL of its summary is refreshed too, so that the summary does not expire before the messages.
+     * Arguments are the maximum number of messages, the TTL and the messages.
+     */
+    static final RedisScript<Long> APPEND_SCRIPT = RedisScript.of("""
+            redis.call('RPUSH', KEYS[1], unpack(ARGV, 3))
+            redis.call('LTRIM', KEYS[1], -tonumber(ARGV[1]), -1)
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[2])
+            return redis.call('LLEN', KEYS[1])
+            """, Long.class);
+
+    /**
+     * Read the summary and messages of a conversation and refresh their TTL,
+     * so that the conversation is kept while it is being processed, in a single round trip.
+     * The first element of the result is the summary, which is empty if missing.
+     */
+    private static final RedisScript<List<byte[]>> READ_HISTORY_SCRIPT = RedisScripts.ofList("""
+            local messages = redis.call('LRANGE', KEYS[1], 0, -1)
+            local summary = redis.call('GET', KEYS[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            table.insert(messages, 1, summary or '')
+            return messages
+            """);
+
+    /**
+     * Replace messages of a conversation, provided they have not changed.
+     * Arguments are triples: the index of a message, its current value and its new value.
+     */
+    private static final RedisScript<Long> REPLACE_MESSAGES_SCRIPT = RedisScript.of("""
+            for i = 1, #ARGV, 3 do
+              if redis.call('LINDEX', KEYS[1], ARGV[i]) ~= ARGV[i + 1] then
+                return 0
+              end
+            end
+            for i = 1, #ARGV, 3 do
+              redis.call('LSET', KEYS[1], ARGV[i], ARGV[i + 2])
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * Replace the oldest messages of a conversation with a summary, provided they have not changed.
+     * Arguments are the summary, the TTL and the messages to remove.
+     */
+    private static final RedisScript<Long> FOLD_MESSAGES_SCRIPT = RedisScript.of("""
+            for i = 3, #ARGV do
+              if redis.call('LINDEX', KEYS[1], i - 3) ~= ARGV[i] then
+                return 0
+              end
+            end
+            redis.call('SET', KEYS[2], ARGV[1], 'EX', ARGV[2])
+            redis.call('LTRIM', KEYS[1], #ARGV - 2, -1)
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private static final RedisSerializer<byte[]> BYTES = RedisSerializer.byteArray();
+
+    private final StringRedisTemplate redis;
+
+    RedisConversationStore(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    static String getMessagesKey(String conversationId) {
+        return String.format("%s%s:messages", KEY_PREFIX, conversationId);
+    }
+
+    static String getSummaryKey(String conversationId) {
+        return String.format("%s%s:summary", KEY_PREFIX, conversationId);
+    }
+
+    @Override
+    public long append(String conversationId, List<byte[]> messages, int maxMessages) {
+        final var args = new ArrayList<byte[]>(messages.size() + 2);
+        args.add(toBytes(maxMessages));
+        args.add(toBytes(TTL_SECONDS));
+        args.addAll(messages);
+        final Long count = execute(APPEND_SCRIPT,
+                List.of(getMessagesKey(conversationId), getSummaryKey(conversationId)), args.toArray());
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public StoredConversation read(String conversationId) {
+        final var result = execute(READ_HISTORY_SCRIPT,
+                List.of(getMessagesKey(conversationId), getSummaryKey(conversationId)), toBytes(TTL_SECONDS));
+        if (result == null || result.isEmpty()) {
+            return StoredConversation.EMPTY;
+        }
+        final var summary = result.getFirst();
+        final var messages = new ArrayList<>(result.subList(1, result.size()));
+        return new StoredConversation(summary.length == 0 ? null : new String(summary, StandardCharsets.UTF_8),
+                messages);
+    }
+
+    @Override
+    public List<byte[]> getMessages(String conversationId) {
+        final var key = getMessagesKey(conversationId).getBytes(StandardCharsets.UTF_8);
+        final var values = redis.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.listCommands().lRange(key, 0, -1));
+        return values == null ? List.of() : values;
+    }
+
+    @Override
+    public boolean replaceMessages(String conversationId, List<MessageUpdate> updates) {
+        final var args = new ArrayList<byte[]>(3 * updates.size());
+        for (final var update : updates) {
+            args.add(toBytes(update.index()));
+            args.add(update.current());
+            args.add(update.replacement());
+        }
+        final Long replaced = execute(REPLACE_MESSAGES_SCRIPT, List.of(getMessagesKey(conversationId)), args.toArray());
+        return replaced != null && replaced != 0;
+    }
+
+    @Override
+    public boolean foldMessages(String conversationId, List<byte[]> messages, String summary) {
+        final var args = new ArrayList<byte[]>(messages.size() + 2);
+        args.add(summary.getBytes(StandardCharsets.UTF_8));
+        args.add(toBytes(TTL_SECONDS));
+        args.addAll(messages);
+        final Long folded = execute(FOLD_MESSAGES_SCRIPT,
+                List.of(getMessagesKey(conversationId), getSummaryKey(conversationId)), args.toArray());
+        return folded != null && folded != 0;
+    }
+
+    @Override
+    public void removeOldestMessages(String conversationId, int count) {
+        redis.opsForList().trim(getMessagesKey(conversationId), count, -1);
+    }
+
+    @Override
+    public String getSummary(String conversationId) {
+        return redis.opsForValue().get(getSummaryKey(conversationId));
+    }
+
+    @Override
+    public void setSummary(String conversationId, String summary) {
+        redis.opsForValue().set(getSummaryKey(conversationId), summary, TTL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void forEachConversation(Consumer<String> action) {
+        final var options = ScanOptions.scanOptions().match(getMessagesKey("*")).count(500).build();
+        try (final var keys = redis.scan(options)) {
+            while (keys.hasNext()) {
+                final var key = keys.next();
+                action.accept(getConversationId(key));
+            }
+        }
+    }
+
+    /**
+     * Get the conversation identifier from a key of this store.
+     *
+     * @return the conversation identifier, or <code>null</code> if this key does not belong to a conversation
+     */
+    static String getConversationId(String key) {
+        if (!key.startsWith(KEY_PREFIX)) {
+            return null;
+        }
+        final int end = key.lastIndexOf(':');
+        return end < KEY_PREFIX.length() ? null : key.substring(KEY_PREFIX.length(), end);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        // Messages are binary: arguments and results are not converted to strings.
+        return (T) redis.execute(script, BYTES, (RedisSerializer) BYTES, keys, args);
+    }
+
+    private static byte[] toBytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * Factory of Redis scripts.
+ */
+final class RedisScripts {
+    private RedisScripts() {
+    }
+
+    /**
+     * Create a script returning an array reply, whose elements are converted to the given type by Redis.
+     * A result type cannot be declared for generic lists: this is the only unchecked conversion of scripts.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> RedisScript<List<T>> ofList(String script) {
+        return (RedisScript) RedisScript.of(script, List.class);
+    }
+}
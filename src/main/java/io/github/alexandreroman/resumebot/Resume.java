@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * Resume prepared for prompts.
+ *
+ * @param id          resume identifier
+ * @param fingerprint hash of the resume and prompts, identifying the answers which depend on them
+ * @param prefix      pre-rendered messages starting each prompt
+ * @param index       section index, or <code>null</code> if retrieval is disabled
+ * @param dates       date ranges found in the resume, or <code>null</code> if dates are not injected in prompts
+ * @param size        estimated memory used by this resume, in bytes
+ */
+record Resume(String id, String fingerprint, List<Message> prefix, ResumeIndex index,
+              ResumeDates dates, long size) {
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Date ranges found in a resume, such as employment periods.
+ * <p>
+ * Ranges are parsed once when the resume is loaded: the durations are computed
+ * against the current date when a prompt is created, so that the model does not need
+ * to call a tool to get the current date.
+ * Supported dates are years (<code>2020</code>), months and years (<code>Jan 2020</code>, <code>janvier 2020</code>,
+ * <code>01/2020</code>, <code>2020-01</code>), and ranges may end with "present" or "today" (English or French).
+ */
+final class ResumeDates {
+    private static final String DATE = "(?:\\b(\\p{L}{3,9})\\.?\\s+)?(?:(\\d{1,2})/)?((?:19|20)\\d{2})(?:-(\\d{2}))?";
+    private static final String PRESENT = "present|current|now|today|aujourd'hui|ce jour|actuel|en cours";
+    private static final Pattern RANGE = Pattern.compile(
+            DATE + "\\s*(?:-|–|—|to|à|au)\\s*(?:" + DATE + "|(" + PRESENT + "))\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    private static final String[] MONTHS = {
+            "jan|janv|january|janvier", "feb|fev|fevr|february|fevrier", "mar|march|mars", "apr|avr|april|avril",
+            "may|mai", "jun|june|juin", "jul|juil|july|juillet", "aug|aou|august|aout",
+            "sep|sept|september|septembre", "oct|october|octobre", "nov|november|novembre", "dec|december|decembre"
+    };
+    private static final int MAX_LABEL_LENGTH = 120;
+
+    private final List<DateRange> ranges;
+
+    private ResumeDates(List<DateRange> ranges) {
+        this.ranges = ranges;
+    }
+
+    static ResumeDates parse(String resume) {
+        final var ranges = new ArrayList<DateRange>();
+        for (final var line : resume.lines().toList()) {
+            final var m = RANGE.matcher(line);
+            while (m.find()) {
+                final var start = toYearMonth(m.group(1), m.group(2), m.group(3), m.group(4));
+                final var end = m.group(9) != null ? null : toYearMonth(m.group(5), m.group(6), m.group(7), m.group(8));
+                if (end == null || !end.isBefore(start)) {
+                    var label = line.strip();
+                    if (label.length() > MAX_LABEL_LENGTH) {
+                        label = label.substring(0, MAX_LABEL_LENGTH) + "...";
+                    }
+                    ranges.add(new DateRange(label, start, end));
+                }
+            }
+        }
+        return new ResumeDates(List.copyOf(ranges));
+    }
+
+    List<DateRange> ranges() {
+        return ranges;
+    }
+
+    /**
+     * Describe the current date and the durations of the date ranges as of this date.
+     */
+    String describe(LocalDate today) {
+        final var now = YearMonth.from(today);
+        final var sb = new StringBuilder(64 + 96 * ranges.size());
+        sb.append("Today is ").append(today).append(" (year ").append(today.getYear()).append(").");
+        if (!ranges.isEmpty()) {
+            sb.append("\nDurations computed from the dates found in the CV, as of today:");
+            for (final var r : ranges) {
+                sb.append("\n- ").append(r.label()).append(": ").append(formatDuration(r.months(now)));
+            }
+        }
+        sb.append("\nUse this information for any date or duration calculation.");
+        return sb.toString();
+    }
+
+    static String formatDuration(long months) {
+        final long years = months / 12;
+        final long remainingMonths = months % 12;
+        if (years == 0) {
+            return remainingMonths + (remainingMonths == 1 ? " month" : " months");
+        }
+        final var y = years + (years == 1 ? " year" : " years");
+        if (remainingMonths == 0) {
+            return y;
+        }
+        return y + " and " + remainingMonths + (remainingMonths == 1 ? " month" : " months");
+    }
+
+    private static YearMonth toYearMonth(String monthName, String monthNumber, String year, String isoMonth) {
+        int month = 1;
+        if (monthNumber != null) {
+            month = Integer.parseInt(monthNumber);
+        } else if (isoMonth != null) {
+            month = Integer.parseInt(isoMonth);
+        } else if (monthName != null) {
+            month = parseMonth(monthName);
+        }
+        return YearMonth.of(Integer.parseInt(year), month < 1 || month > 12 ? 1 : month);
+    }
+
+    private static int parseMonth(String name) {
+        final var n = Normalizer.normalize(name, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+        // Whole words are matched: "Marketing 2018" is not in March.
+        for (int i = 0; i < MONTHS.length; ++i) {
+            for (final var month : MONTHS[i].split("\\|")) {
+                if (n.equals(month)) {
+                    return i + 1;
+                }
+            }
+        }
+        // Not a month name, such as "since 2020".
+        return 1;
+    }
+
+    /**
+     * Date range found in a resume.
+     *
+     * @param label line of the resume including this range
+     * @param start start of this range
+     * @param end   end of this range, or <code>null</code> if this range is still ongoing
+     */
+    record DateRange(String label, YearMonth start, YearMonth end) {
+        long months(YearMonth now) {
+            return Math.max(0, start.until(end == null ? now : end, ChronoUnit.MONTHS));
+        }
+    }
+}
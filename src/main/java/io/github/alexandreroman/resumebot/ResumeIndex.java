@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * In-memory BM25 index over the sections of a resume.
+ * <p>
+ * The resume is split into sections at blank lines, a short single-line paragraph
+ * (such as a heading) being kept with the paragraph below.
+ * Each section is indexed in an inverted index, with term weights computed once:
+ * a lookup only scores the sections which contain the terms of the question.
+ * This class is immutable: build a new index when the resume changes.
+ */
+final class ResumeIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_HEADING_LENGTH = 60;
+
+    private final String resume;
+    private final List<String> sections;
+    private final Map<String, Postings> postings;
+
+    ResumeIndex(String resume) {
+        this.resume = resume;
+        this.sections = split(resume);
+
+        final int n = sections.size();
+        final var lengths = new int[n];
+        final var termFrequencies = new HashMap<String, Map<Integer, Integer>>();
+        for (int i = 0; i < n; ++i) {
+            final int section = i;
+            tokenize(sections.get(i), term -> {
+                ++lengths[section];
+                termFrequencies.computeIfAbsent(term, t -> new HashMap<>()).merge(section, 1, Integer::sum);
+            });
+        }
+        final double avgLength = Math.max(1, Arrays.stream(lengths).average().orElse(1));
+
+        this.postings = HashMap.newHashMap(termFrequencies.size());
+        for (final var e : termFrequencies.entrySet()) {
+            final var freqs = e.getValue();
+            final double idf = Math.log(1 + (n - freqs.size() + 0.5) / (freqs.size() + 0.5));
+            final var docs = new int[freqs.size()];
+            final var weights = new double[freqs.size()];
+            int j = 0;
+            for (final var f : freqs.entrySet()) {
+                final int doc = f.getKey();
+                final int tf = f.getValue();
+                docs[j] = doc;
+                // The BM25 weight of a term in a section does not depend on the question.
+                weights[j] = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[doc] / avgLength));
+                ++j;
+            }
+            postings.put(e.getKey(), new Postings(docs, weights));
+        }
+    }
+
+    /**
+     * Get the sections of this resume.
+     */
+    List<String> sections() {
+        return sections;
+    }
+
+    /**
+     * Estimate the memory used by this index, in bytes.
+     */
+    long estimateSize() {
+        // The whole resume is only kept for the fallback: sections are substrings of equal total length.
+        long size = 2L * 2 * resume.length();
+        for (final var e : postings.entrySet()) {
+            // Map entry, term, postings record and arrays.
+            size += 32 + 40 + 2L * e.getKey().length() + 16 + 2 * 16 + 12L * e.getValue().docs.length;
+        }
+        return size;
+    }
+
+    /**
+     * Compute the BM25 score of each section for a question.
+     */
+    double[] score(String question) {
+        final var scores = new double[sections.size()];
+        tokenize(question, term -> {
+            final var p = postings.get(term);
+            if (p != null) {
+                for (int i = 0; i < p.docs.length; ++i) {
+                    scores[p.docs[i]] += p.weights[i];
+                }
+            }
+        });
+        return scores;
+    }
+
+    /**
+     * Select the sections which are relevant to a question.
+     * The first section, which usually introduces the candidate, is always included.
+     * Sections are returned in the resume order.
+     *
+     * @return the selected sections, or the whole resume if no section has a score of at least <code>minScore</code>
+     */
+    String select(String question, int topK, double minScore) {
+        if (sections.size() <= topK + 1) {
+            return resume;
+        }
+        final var scores = score(question);
+        scores[0] = Double.POSITIVE_INFINITY;
+
+        // Partial selection: the number of sections is small, and so is k.
+        final var selected = new boolean[scores.length];
+        double best = 0;
+        for (int k = 0; k <= topK; ++k) {
+            int max = -1;
+            for (int i = 0; i < scores.length; ++i) {
+                if (!selected[i] && scores[i] > 0 && (max == -1 || scores[i] > scores[max])) {
+                    max = i;
+                }
+            }
+            if (max == -1) {
+                break;
+            }
+            selected[max] = true;
+            if (max != 0) {
+                best = Math.max(best, scores[max]);
+            }
+        }
+        if (best < minScore) {
+            return resume;
+        }
+
+        final var result = new StringBuilder(resume.length());
+        for (int i = 0; i < selected.length; ++i) {
+            if (selected[i]) {
+                if (!result.isEmpty()) {
+                    result.append("\n\n");
+                }
+                result.append(sections.get(i));
+            }
+        }
+        return result.toString();
+    }
+
+    static List<String> split(String text) {
+        final var sections = new ArrayList<String>();
+        final var current = new StringBuilder();
+        for (final var paragraph : text.strip().split("\\R\\s*\\R")) {
+            final var p = paragraph.strip();
+            if (p.isEmpty()) {
+                continue;
+            }
+            if (!current.isEmpty()) {
+                current.append("\n\n");
+            }
+            current.append(p);
+            if (p.length() > MAX_HEADING_LENGTH || p.lines().count() > 1) {
+                sections.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.isEmpty()) {
+            sections.add(current.toString());
+        }
+        return sections;
+    }
+
+    /**
+     * Split a text into lower-case terms without accents.
+     */
+    static void tokenize(String text, Consumer<String> consumer) {
+        final var normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+        final var term = new StringBuilder(16);
+        for (int i = 0, len = normalized.length(); i <= len; ++i) {
+            final char c = i < len ? normalized.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                if (term.length() > 1) {
+                    consumer.accept(term.toString());
+                }
+                term.setLength(0);
+            }
+        }
+    }
+
+    private record Postings(int[] docs, double[] weights) {
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the resumes served by this app.
+ * <p>
+ * The default resume is read from the configuration.
+ * Additional resumes are loaded from a directory, where each <code>.md</code> or <code>.txt</code> file
+ * is a resume whose identifier is the file name without extension.
+ * This directory is watched: resumes are reloaded and swapped atomically when files change,
+ * and other instances are notified using Redis pub/sub so that they reload their resumes as well.
+ * Unchanged resumes are kept as is, and cached answers are evicted for changed resumes.
+ * A {@link ResumesReloadedEvent} is published when resumes have changed after startup.
+ */
+@Component
+class ResumeRegistry implements SmartLifecycle, MessageListener {
+    static final String CHANNEL = "resumebot:resumes";
+    private static final Pattern RESUME_FILE = Pattern.compile("([A-Za-z0-9_-]+)\\.(md|txt)");
+
+    private final Logger logger = LoggerFactory.getLogger(ResumeRegistry.class);
+    private final AppConfig.Resumes config;
+    private final String defaultResume;
+    private final PromptFactory promptFactory;
+    private final AnswerCache answerCache;
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile Map<String, Resume> resumes = Map.of();
+    private volatile WatchService watchService;
+
+    ResumeRegistry(AppConfig config, PromptFactory promptFactory, AnswerCache answerCache,
+                   StringRedisTemplate redis, RedisMessageListenerContainer listenerContainer,
+                   ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.config = config.resumes();
+        this.defaultResume = config.resume();
+        this.promptFactory = promptFactory;
+        this.answerCache = answerCache;
+        this.redis = redis;
+        this.listenerContainer = listenerContainer;
+        this.eventPublisher = eventPublisher;
+        load();
+
+        Gauge.builder("resumebot.resumes", this, r -> r.resumes.size())
+                .description("Number of resumes").register(meterRegistry);
+        Gauge.builder("resumebot.resumes.memory", this, ResumeRegistry::getMemoryUsage).baseUnit("bytes")
+                .description("Estimated memory used by resumes").register(meterRegistry);
+    }
+
+    /**
+     * Get a resume.
+     *
+     * @param id resume identifier, or <code>null</code> for the default resume
+     */
+    Resume getResume(String id) {
+        final var resume = resumes.get(id == null ? config.defaultId() : id);
+        if (resume == null) {
+            throw new ResumeNotFoundException("Resume not found: " + id);
+        }
+        return resume;
+    }
+
+    /**
+     * Get the identifier of the history of a conversation about a resume.
+     * <p>
+     * Conversations are scoped by resume, so that a conversation identifier used with another resume
+     * starts a new conversation. Conversations about the default resume keep their identifier,
+     * so that existing conversations are not lost.
+     *
+     * @param conversationId conversation identifier, or <code>null</code> for a single prompt
+     * @return the history identifier, or <code>null</code> for a single prompt
+     */
+    String getHistoryId(Resume resume, String conversationId) {
+        if (conversationId == null || resume.id().equals(config.defaultId())) {
+            return conversationId;
+        }
+        return resume.id() + ":" + conversationId;
+    }
+
+    /**
+     * Get all resumes.
+     */
+    Collection<Resume> getResumes() {
+        return resumes.values();
+    }
+
+    long getMemoryUsage() {
+        long size = 0;
+        for (final var r : resumes.values()) {
+            size += r.size();
+        }
+        return size;
+    }
+
+    /**
+     * Reload all resumes.
+     *
+     * @return the identifiers of the resumes which have been added, updated or removed
+     */
+    Set<String> reload() {
+        final var changed = load();
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new ResumesReloadedEvent(changed));
+        }
+        return changed;
+    }
+
+    private synchronized Set<String> load() {
+        final Map<String, String> texts;
+        try {
+            texts = readResumes();
+        } catch (IOException e) {
+            // Keep serving the current resumes.
+            logger.warn("Failed to read resumes from {}", config.directory(), e);
+            return Set.of();
+        }
+
+        final var current = resumes;
+        final var updated = HashMap.<String, Resume>newHashMap(texts.size());
+        final var changed = new TreeSet<String>();
+        for (final var e : texts.entrySet()) {
+            final var id = e.getKey();
+            final var existing = current.get(id);
+            if (existing != null && existing.fingerprint().equals(promptFactory.getFingerprint(e.getValue()))) {
+                updated.put(id, existing);
+            } else {
+                updated.put(id, promptFactory.createResume(id, e.getValue()));
+                changed.add(id);
+            }
+        }
+        for (final var id : current.keySet()) {
+            if (!updated.containsKey(id)) {
+                changed.add(id);
+            }
+        }
+        resumes = Map.copyOf(updated);
+
+        for (final var id : changed) {
+            final var previous = current.get(id);
+            if (previous != null) {
+                answerCache.evict(previous);
+            }
+        }
+        if (!changed.isEmpty()) {
+            logger.info("Loaded {} resume(s), updated: {}", updated.size(), changed);
+        }
+        return changed;
+    }
+
+    private Map<String, String> readResumes() throws IOException {
+        final var texts = new HashMap<String, String>();
+        texts.put(config.defaultId(), defaultResume);
+        if (config.directory() == null) {
+            return texts;
+        }
+        try (final var files = Files.list(config.directory())) {
+            for (final var file : (Iterable<Path>) files::iterator) {
+                final var m = RESUME_FILE.matcher(file.getFileName().toString());
+                if (m.matches() && Files.isRegularFile(file)) {
+                    texts.put(m.group(1), Files.readString(file, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return texts;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        final var body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(instanceId + ":")) {
+            return;
+        }
+        logger.info("Reloading resumes after notification: {}", body);
+        reload();
+    }
+
+    private void watch() {
+        final var ws = watchService;
+        try {
+            while (true) {
+                final var key = ws.take();
+                // Wait for related events (a file being written, several files being copied) before reloading.
+                Thread.sleep(config.reloadDelay());
+                key.pollEvents();
+                key.reset();
+
+                final var changed = reload();
+                if (!changed.isEmpty() && config.broadcast()) {
+                    try {
+                        redis.convertAndSend(CHANNEL, instanceId + ":" + String.join(",", changed));
+                    } catch (RuntimeException e) {
+                        logger.warn("Failed to notify other instances about updated resumes", e);
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Stopped watching resumes");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (config.directory() == null) {
+            return;
+        }
+        if (config.broadcast()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        }
+        try {
+            watchService = config.directory().getFileSystem().newWatchService();
+            config.directory().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to watch resumes from " + config.directory(), e);
+        }
+        Thread.ofVirtual().name("resume-watcher").start(this::watch);
+        logger.info("Watching resumes from {}", config.directory());
+    }
+
+    @Override
+    public void stop() {
+        final var ws = watchService;
+        if (ws == null) {
+            return;
+        }
+        watchService = null;
+        listenerContainer.removeMessageListener(this);
+        try {
+            ws.close();
+        } catch (IOException e) {
+            logger.warn("Failed to stop watching resumes", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return watchService != null;
+    }
+}
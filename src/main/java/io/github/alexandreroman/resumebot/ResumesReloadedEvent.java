@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import java.util.Set;
+
+/**
+ * Event published by the {@link ResumeRegistry} when resumes have been reloaded.
+ *
+ * @param resumeIds identifiers of the resumes which have been added, updated or removed
+ */
+record ResumesReloadedEvent(Set<String> resumeIds) {
+}
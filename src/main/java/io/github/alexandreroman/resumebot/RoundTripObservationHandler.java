@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.springframework.ai.chat.client.observation.ChatClientObservationContext;
+import org.springframework.ai.chat.observation.ChatModelObservationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Observation handler counting the calls to the model for each chat request.
+ * <p>
+ * A chat request may need several round trips to the model, for instance when the model calls a tool:
+ * each model call is observed as a child of the chat client observation,
+ * which records the number of calls when it stops.
+ */
+@Component
+class RoundTripObservationHandler implements ObservationHandler<Observation.Context> {
+    private static final String ROUND_TRIPS = RoundTripObservationHandler.class.getName() + ".roundTrips";
+
+    private final DistributionSummary roundTrips;
+
+    RoundTripObservationHandler(AppConfig config, MeterRegistry meterRegistry) {
+        this.roundTrips = DistributionSummary.builder("resumebot.chat.round-trips")
+                .description("Number of calls to the model for a chat request")
+                .tag("dates", config.dates().inject() ? "inject" : "tools")
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof ChatClientObservationContext || context instanceof ChatModelObservationContext;
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        if (context instanceof ChatClientObservationContext) {
+            context.put(ROUND_TRIPS, new AtomicInteger());
+            return;
+        }
+        // Model calls may be nested in advisor observations: look for the chat client observation.
+        for (var parent = context.getParentObservation(); parent != null;
+             parent = parent.getContextView().getParentObservation()) {
+            final AtomicInteger counter = parent.getContextView().get(ROUND_TRIPS);
+            if (counter != null) {
+                counter.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        if (context instanceof ChatClientObservationContext) {
+            final AtomicInteger counter = context.get(ROUND_TRIPS);
+            if (counter != null && counter.get() > 0) {
+                roundTrips.record(counter.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stub of the OpenAI chat completions API, used as the model during a training run (see {@link TrainingRun}).
+ * <p>
+ * Answers are returned right away, and may be streamed. When tools are available, the stub calls a tool
+ * before answering questions about years, so that tool calls are part of the training run.
+ */
+@RestController
+@ConditionalOnBooleanProperty("app.training.enabled")
+class TrainingModelController {
+    private static final String ANSWER = """
+            {"answer":"I have **12 years** of experience as a software engineer, mostly with Java and Spring Boot.","foundAnswer":true}""";
+    private static final int CHUNK_SIZE = 5;
+
+    private final JsonMapper jsonMapper;
+
+    TrainingModelController(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    @PostMapping("/training/v1/chat/completions")
+    void completions(@RequestBody JsonNode request, HttpServletResponse response) throws IOException {
+        final boolean streaming = request.path("stream").asBoolean();
+        final ObjectNode message;
+        final String finishReason;
+        if (shouldCallTool(request)) {
+            message = jsonMapper.createObjectNode().put("role", "assistant").putNull("content");
+            final var toolCall = message.putArray("tool_calls").addObject();
+            if (streaming) {
+                toolCall.put("index", 0);
+            }
+            toolCall.put("id", "call_training").put("type", "function")
+                    .putObject("function").put("name", "getCurrentYear").put("arguments", "{}");
+            finishReason = "tool_calls";
+        } else {
+            message = jsonMapper.createObjectNode().put("role", "assistant").put("content", ANSWER);
+            finishReason = "stop";
+        }
+
+        if (!streaming) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            jsonMapper.writeValue(response.getOutputStream(),
+                    completion(request, "chat.completion", "message", message, finishReason, true));
+            return;
+        }
+
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        final var out = response.getOutputStream();
+        if (finishReason.equals("stop")) {
+            for (int i = 0; i < ANSWER.length(); i += CHUNK_SIZE) {
+                final var delta = jsonMapper.createObjectNode()
+                        .put("content", ANSWER.substring(i, Math.min(ANSWER.length(), i + CHUNK_SIZE)));
+                sendEvent(out, completion(request, "chat.completion.chunk", "delta", delta, null, false));
+            }
+            sendEvent(out, completion(request, "chat.completion.chunk", "delta", jsonMapper.createObjectNode(),
+                    finishReason, false));
+        } else {
+            sendEvent(out, completion(request, "chat.completion.chunk", "delta", message, finishReason, false));
+        }
+        if (request.path("stream_options").path("include_usage").asBoolean()) {
+            final var usage = completion(request, "chat.completion.chunk", null, null, null, true);
+            usage.putArray("choices");
+            sendEvent(out, usage);
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private boolean shouldCallTool(JsonNode request) {
+        if (!request.path("tools").isArray() || request.path("tools").isEmpty()) {
+            return false;
+        }
+        String lastPrompt = "";
+        for (final var m : request.path("messages")) {
+            if ("tool".equals(m.path("role").asString())) {
+                return false;
+            }
+            if ("user".equals(m.path("role").asString())) {
+                lastPrompt = m.path("content").asString("");
+            }
+        }
+        return lastPrompt.contains("years");
+    }
+
+    private ObjectNode completion(JsonNode request, String object, String messageField, ObjectNode message,
+                                  String finishReason, boolean withUsage) {
+        final var resp = jsonMapper.createObjectNode()
+                .put("id", "training")
+                .put("object", object)
+                .put("created", System.currentTimeMillis() / 1000)
+                .put("model", request.path("model").asString("training"));
+        if (message != null) {
+            final var choice = resp.putArray("choices").addObject().put("index", 0);
+            choice.set(messageField, message);
+            choice.put("finish_reason", finishReason);
+        }
+        if (withUsage) {
+            resp.putObject("usage").put("prompt_tokens", 1000).put("completion_tokens", 40).put("total_tokens", 1040)
+                    .putObject("prompt_tokens_details").put("cached_tokens", 896);
+        }
+        return resp;
+    }
+
+    private void sendEvent(OutputStream out, JsonNode body) throws IOException {
+        out.write(("data: " + jsonMapper.writeValueAsString(body) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
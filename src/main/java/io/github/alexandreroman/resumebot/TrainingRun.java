@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Training run, sending requests to the app once it is ready, and then exiting.
+ * <p>
+ * This is used to create an AOT cache (or a CDS archive) while the JVM runs a representative workload:
+ * the cache holds the classes loaded and linked while requests are processed, and not only the ones used at startup.
+ * The model is replaced by a stub served by the app itself (see {@link TrainingModelController}),
+ * but Redis must be available.
+ */
+@Component
+@ConditionalOnBooleanProperty("app.training.enabled")
+class TrainingRun {
+    private static final List<String> PROMPTS = List.of(
+            "Where do you live?",
+            "How many years of experience do you have?",
+            "Which programming languages do you know?");
+
+    private final Logger logger = LoggerFactory.getLogger(TrainingRun.class);
+    private final AppConfig.Training config;
+    private final ConfigurableApplicationContext context;
+
+    TrainingRun(AppConfig config, ConfigurableApplicationContext context) {
+        this.config = config.training();
+        this.context = context;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onApplicationReady() {
+        // The app only accepts traffic once this listener has returned.
+        Thread.ofVirtual().name("training-run").start(this::run);
+    }
+
+    private void run() {
+        final var env = context.getEnvironment();
+        final var serverPort = env.getRequiredProperty("local.server.port");
+        final var client = RestClient.create("http://127.0.0.1:" + serverPort);
+        final var managementClient = RestClient.create(
+                "http://127.0.0.1:" + env.getProperty("local.management.port", serverPort));
+
+        logger.info("Starting training run with {} conversations", config.iterations());
+        final long start = System.nanoTime();
+        int failures = 0;
+        for (int i = 0; i < config.iterations(); ++i) {
+            // Each conversation starts with a first-turn prompt (which may be cached), followed by other prompts.
+            final var conversationId = "training-" + UUID.randomUUID();
+            for (final var prompt : PROMPTS) {
+                if (!send(client, i % 2 == 0 ? "/chat" : "/chat/stream", prompt, conversationId)) {
+                    ++failures;
+                }
+            }
+            if (!get(client, "/status") || !get(managementClient, "/actuator/health")) {
+                ++failures;
+            }
+        }
+        logger.info("Training run completed in {} with {} failed requests",
+                Duration.ofNanos(System.nanoTime() - start), failures);
+
+        // The JVM writes the AOT cache when it exits: a failed training run must not produce it silently.
+        final int exitCode = failures == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private boolean send(RestClient client, String path, String prompt, String conversationId) {
+        final var form = new LinkedMultiValueMap<String, String>();
+        form.add("prompt", prompt);
+        form.add("conversationId", conversationId);
+        try {
+            client.post().uri(path).contentType(MediaType.APPLICATION_FORM_URLENCODED).body(form)
+                    .retrieve().body(String.class);
+            return true;
+        } catch (RestClientException e) {
+            logger.warn("Training request to {} failed", path, e);
+            return false;
+        }
+    }
+
+    private boolean get(RestClient client, String path) {
+        try {
+            client.get().uri(path).retrieve().toBodilessEntity();
+            return true;
+        } catch (RestClientException e) {
+            logger.warn("Training request to {} failed", path, e);
+            return false;
+        }
+    }
+}
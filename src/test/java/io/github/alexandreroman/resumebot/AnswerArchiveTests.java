@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnswerArchiveTests {
+    private final Resume resume = new Resume("default", "abc", List.of(), null, null, 0);
+
+    @Test
+    void findSimilarPrompt() {
+        final var archive = newArchive();
+        final var match = archive.find(resume, "And where are you based?");
+        assertThat(match).isNotNull();
+        assertThat(match.answer()).isEqualTo("Paris");
+        assertThat(match.similarity()).isBetween(0.8, 1.0);
+
+        assertThat(archive.find(resume, "What languages do you know?").answer()).isEqualTo("Java");
+        assertThat(archive.find(resume, "Where are you based").similarity()).isEqualTo(1.0);
+    }
+
+    @Test
+    void rejectDissimilarPrompt() {
+        final var archive = newArchive();
+        assertThat(archive.find(resume, "Do you have experience with Python?")).isNull();
+        assertThat(archive.find(resume, "What are your hobbies?")).isNull();
+        assertThat(archive.find(resume, "?")).isNull();
+    }
+
+    @Test
+    void matchSameResumeOnly() {
+        final var archive = newArchive();
+
+        final var other = new Resume("other", "def", List.of(), null, null, 0);
+        assertThat(archive.find(other, "Where are you based?")).isNull();
+        assertThat(archive.find(resume, "Where are you based?")).isNotNull();
+    }
+
+    private AnswerArchive newArchive() {
+        final var archive = new AnswerArchive(new AppConfig.Degraded(true, Duration.ofSeconds(60), 0.8, 100,
+                new AppConfig.CircuitBreaker(0.5, 0.8, Duration.ofSeconds(30), 20, 10, Duration.ofSeconds(30), 3)));
+        archive.add(resume, "Where are you based?", "Paris");
+        archive.add(resume, "What programming languages do you know?", "Java");
+        archive.add(resume, "Which cloud platforms do you know?", "AWS");
+        archive.add(resume, "Do you have experience with Kubernetes?", "Yes");
+        archive.add(resume, "Do you have experience with Spring and Java?", "Yes");
+        archive.add(resume, "What are your strengths and weaknesses?", "Curiosity");
+        return archive;
+    }
+}
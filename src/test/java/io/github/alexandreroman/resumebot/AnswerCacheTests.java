@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnswerCacheTests {
+    private final Resume resume = new Resume("default", "abc", List.of(), null, null, 0);
+    private final Resume otherResume = new Resume("jane", "def", List.of(), null, null, 0);
+    private final Resume updatedResume = new Resume("default", "ghi", List.of(), null, null, 0);
+    // Only the in-memory tier is used: the Redis template is never connected.
+    private final AnswerCache cache = new AnswerCache(TestSupport.loadConfig(Map.of("app.cache.redis", "false")),
+            new StringRedisTemplate(), new SimpleMeterRegistry());
+
+    @Test
+    void normalizePrompt() {
+        assertThat(AnswerCache.normalize("  Where are   you BASED?! ")).isEqualTo("where are you based");
+        assertThat(AnswerCache.normalize("Ｗhere are you based")).isEqualTo("where are you based");
+    }
+
+    @Test
+    void keyOnNormalizedPrompt() {
+        cache.put(resume, "Where are you based?", "Paris");
+        assertThat(cache.get(resume, "where are you based")).isEqualTo("Paris");
+        assertThat(cache.get(resume, "  WHERE are you   based ?")).isEqualTo("Paris");
+        assertThat(cache.get(resume, "Where were you born?")).isNull();
+    }
+
+    @Test
+    void keyOnResumeFingerprint() {
+        cache.put(resume, "Where are you based?", "Paris");
+        assertThat(cache.get(otherResume, "Where are you based?")).isNull();
+        // A resume whose content or prompts have changed gets a new fingerprint.
+        assertThat(cache.get(updatedResume, "Where are you based?")).isNull();
+    }
+
+    @Test
+    void evictResume() {
+        cache.put(resume, "Where are you based?", "Paris");
+        cache.put(otherResume, "Where are you based?", "London");
+
+        cache.evict(resume);
+        assertThat(cache.get(resume, "Where are you based?")).isNull();
+        assertThat(cache.get(otherResume, "Where are you based?")).isEqualTo("London");
+    }
+
+    @Test
+    void skipWhenDisabled() {
+        final var disabledCache = new AnswerCache(TestSupport.loadConfig(Map.of("app.cache.enabled", "false")),
+                new StringRedisTemplate(), new SimpleMeterRegistry());
+        disabledCache.put(resume, "Where are you based?", "Paris");
+        assertThat(disabledCache.get(resume, "Where are you based?")).isNull();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnswerStreamParserTests {
+    @Test
+    void parseWholeObject() {
+        final var parser = new AnswerStreamParser();
+        final var out = parser.feed("{\"answer\":\"I'm based in **Paris**.\",\"foundAnswer\":true}");
+        assertThat(out).isEqualTo("I'm based in **Paris**.");
+        assertThat(parser.answer()).isEqualTo(out);
+        assertThat(parser.foundAnswer()).isTrue();
+        assertThat(parser.isComplete()).isTrue();
+    }
+
+    @Test
+    void parseTokenByToken() {
+        final var json = "{ \"answer\" : \"Line 1\\nLine \\\"2\\\" \\u00e9t\\u00E9\", \"foundAnswer\" : false }";
+        final var parser = new AnswerStreamParser();
+        final var fragments = new ArrayList<String>();
+        for (int i = 0; i < json.length(); ++i) {
+            fragments.add(parser.feed(json.substring(i, i + 1)));
+        }
+        assertThat(String.join("", fragments)).isEqualTo("Line 1\nLine \"2\" été");
+        assertThat(fragments).filteredOn(f -> !f.isEmpty()).hasSizeGreaterThan(1);
+        assertThat(parser.foundAnswer()).isFalse();
+        assertThat(parser.isComplete()).isTrue();
+    }
+
+    @Test
+    void parseFieldsInAnyOrder() {
+        final var parser = new AnswerStreamParser();
+        parser.feed("{\"foundAnswer\":tr");
+        parser.feed("ue,\"other\":{\"answer\":\"nested\"},\"answer\":\"Hel");
+        assertThat(parser.answer()).isEqualTo("Hel");
+        assertThat(parser.isComplete()).isFalse();
+        parser.feed("lo\"}");
+        assertThat(parser.answer()).isEqualTo("Hello");
+        assertThat(parser.foundAnswer()).isTrue();
+        assertThat(parser.isComplete()).isTrue();
+    }
+
+    @Test
+    void keepSurrogatePairsTogether() {
+        final var parser = new AnswerStreamParser();
+        assertThat(parser.feed("{\"answer\":\"Hi \\ud83d")).isEqualTo("Hi ");
+        assertThat(parser.feed("\\ude00\"}")).isEqualTo("\ud83d\ude00");
+    }
+
+    @Test
+    void missingFoundAnswer() {
+        final var parser = new AnswerStreamParser();
+        parser.feed("{\"answer\":\"Partial");
+        assertThat(parser.foundAnswer()).isFalse();
+        assertThat(parser.isComplete()).isFalse();
+    }
+}
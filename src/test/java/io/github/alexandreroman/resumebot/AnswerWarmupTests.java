@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnswerWarmupTests {
+    private final AppConfig config = TestSupport.loadConfig(Map.of("app.warmup.enabled", "true",
+            "app.warmup.gate-readiness", "true", "app.cache.redis", "false"));
+    private final AnswerCache answerCache = new AnswerCache(config, new StringRedisTemplate(), new SimpleMeterRegistry());
+    private final AtomicReference<Collection<Resume>> resumes = new AtomicReference<>(
+            List.of(new Resume("jane", "v1", List.of(), null, null, 0)));
+
+    @Test
+    void warmUpAtStartup() throws InterruptedException {
+        final var warmup = createWarmup((resume, prompt) -> {
+            if (prompt.equals("How can I contact you?")) {
+                throw new IllegalStateException("Model failure");
+            }
+            if (!prompt.equals("Comment vous contacter ?")) {
+                answerCache.put(resume, prompt, "Answer");
+            }
+        });
+        assertThat(warmup.isReady()).isFalse();
+
+        warmup.onApplicationReady();
+        await(warmup::isReady);
+        assertThat(warmup.getProgress()).containsExactlyInAnyOrderEntriesOf(Map.of(AnswerWarmup.State.PENDING, 0,
+                AnswerWarmup.State.WARM, 8, AnswerWarmup.State.NOT_FOUND, 1, AnswerWarmup.State.FAILED, 1));
+        assertThat(answerCache.get(resumes.get().iterator().next(), "Where do you live?")).isEqualTo("Answer");
+    }
+
+    @Test
+    void ignoreWarmupOfPreviousResume() throws InterruptedException {
+        final var previousStarted = new CountDownLatch(1);
+        final var previousDone = new CountDownLatch(1);
+        final var warmup = createWarmup((resume, prompt) -> {
+            if (resume.fingerprint().equals("v1")) {
+                // The previous version of this resume is answered slowly, and fails.
+                previousStarted.countDown();
+                try {
+                    previousDone.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("Model failure");
+            }
+            answerCache.put(resume, prompt, "Answer");
+        });
+        warmup.onApplicationReady();
+        assertThat(previousStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        resumes.set(List.of(new Resume("jane", "v2", List.of(), null, null, 0)));
+        warmup.onResumesReloaded(new ResumesReloadedEvent(Set.of("jane")));
+        await(() -> warmup.getProgress().get(AnswerWarmup.State.WARM) == 10);
+
+        previousDone.countDown();
+        await(warmup::isReady);
+        assertThat(warmup.getProgress()).containsExactlyInAnyOrderEntriesOf(Map.of(AnswerWarmup.State.PENDING, 0,
+                AnswerWarmup.State.WARM, 10, AnswerWarmup.State.NOT_FOUND, 0, AnswerWarmup.State.FAILED, 0));
+    }
+
+    private AnswerWarmup createWarmup(BiConsumer<Resume, String> answerer) {
+        return new AnswerWarmup(config, answerer, answerCache, resumes::get, new SimpleMeterRegistry());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
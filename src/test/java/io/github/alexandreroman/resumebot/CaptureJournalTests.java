@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaptureJournalTests {
+    private final Resume resume = new Resume("default", "abc", List.of(), null, null, 0);
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void writeEntries() throws IOException {
+        final var journal = newJournal(DataSize.ofMegabytes(1), 10);
+        journal.start();
+        final var timestamp = Instant.parse("2026-01-01T10:00:00Z");
+        journal.add("chat", resume, "c1", "Where do you live?", timestamp, Duration.ofMillis(800),
+                null, "Paris", null);
+        journal.add("stream", resume, null, "Hello", timestamp.plusSeconds(1), Duration.ofMillis(20),
+                null, null, "Model is unavailable");
+        journal.stop();
+
+        final var entries = readEntries();
+        assertThat(entries).containsExactly(
+                new CaptureJournal.Entry(timestamp, "chat", "default", "c1", "Where do you live?", 800, 0, 0,
+                        "Paris", null),
+                new CaptureJournal.Entry(timestamp.plusSeconds(1), "stream", "default", null, "Hello", 20, 0, 0,
+                        null, "Model is unavailable"));
+    }
+
+    @Test
+    void rollSegments() throws IOException {
+        final var journal = newJournal(DataSize.ofBytes(500), 2);
+        journal.start();
+        for (int i = 0; i < 20; ++i) {
+            journal.add("chat", resume, "c" + i, "Question " + i, Instant.now(), Duration.ofMillis(i),
+                    null, "Answer " + i, null);
+        }
+        journal.stop();
+
+        // Only the newest segments are kept.
+        assertThat(CaptureJournal.listSegments(directory)).hasSize(2);
+        final var entries = readEntries();
+        assertThat(entries).hasSizeLessThan(20);
+        assertThat(entries.getLast().prompt()).isEqualTo("Question 19");
+        for (int i = 1; i < entries.size(); ++i) {
+            assertThat(entries.get(i).durationMillis()).isEqualTo(entries.get(i - 1).durationMillis() + 1);
+        }
+    }
+
+    private CaptureJournal newJournal(DataSize segmentSize, int maxSegments) {
+        return new CaptureJournal(new AppConfig.Capture(true, directory, segmentSize, maxSegments, 100,
+                Duration.ofMillis(10), Duration.ofSeconds(5)), jsonMapper, new SimpleMeterRegistry());
+    }
+
+    private List<CaptureJournal.Entry> readEntries() throws IOException {
+        final var entries = new ArrayList<CaptureJournal.Entry>();
+        for (final var segment : CaptureJournal.listSegments(directory)) {
+            for (final var line : Files.readAllLines(segment)) {
+                entries.add(jsonMapper.readValue(line, CaptureJournal.Entry.class));
+            }
+        }
+        return entries;
+    }
+}
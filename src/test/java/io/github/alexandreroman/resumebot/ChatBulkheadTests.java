@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatBulkheadTests {
+    private final ChatBulkhead bulkhead = new ChatBulkhead(TestSupport.loadConfig(Map.of(
+            "app.bulkhead.max-concurrent-calls", "1", "app.bulkhead.max-waiting-calls", "0")),
+            new SimpleMeterRegistry());
+
+    @Test
+    void acquireOnSubscribe() {
+        final var stream = bulkhead.stream(() -> Flux.just("Hello", "world"));
+        assertThat(bulkhead.getActiveCalls()).isZero();
+
+        assertThat(stream.collectList().block()).containsExactly("Hello", "world");
+        assertThat(bulkhead.getActiveCalls()).isZero();
+    }
+
+    @Test
+    void releaseOnCancel() {
+        final var sink = Sinks.many().unicast().<String>onBackpressureBuffer();
+        final var subscription = bulkhead.stream(sink::asFlux).subscribe();
+        assertThat(bulkhead.getActiveCalls()).isEqualTo(1);
+        // No permit is left for another call.
+        assertThatThrownBy(() -> bulkhead.stream(() -> Flux.just("Hello")).blockLast())
+                .isInstanceOf(ChatRejectedException.class);
+
+        subscription.dispose();
+        assertThat(bulkhead.getActiveCalls()).isZero();
+        assertThat(bulkhead.stream(() -> Flux.just("Hello")).blockLast()).isEqualTo("Hello");
+    }
+
+    @Test
+    void releaseOnError() {
+        final var stream = bulkhead.stream(() -> Flux.concat(Flux.just("Hello"),
+                Flux.error(new IllegalStateException("Model failure"))));
+        assertThatThrownBy(stream::blockLast).isInstanceOf(IllegalStateException.class);
+        assertThat(bulkhead.getActiveCalls()).isZero();
+
+        assertThatThrownBy(() -> bulkhead.stream(() -> {
+            throw new IllegalStateException("Invalid prompt");
+        }).blockLast()).isInstanceOf(IllegalStateException.class);
+        assertThat(bulkhead.getActiveCalls()).isZero();
+    }
+
+    @Test
+    void releaseOnTimeout() {
+        final var stream = bulkhead.stream(() -> Flux.<String>never()).timeout(Duration.ofMillis(100));
+        assertThatThrownBy(stream::blockLast).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(bulkhead.getActiveCalls()).isZero();
+        assertThat(bulkhead.stream(() -> Flux.fromIterable(List.of("Hello"))).blockLast()).isEqualTo("Hello");
+    }
+}
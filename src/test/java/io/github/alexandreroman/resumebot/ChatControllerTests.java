@@ -24,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.client.RestTestClient;
 import org.springframework.util.LinkedMultiValueMap;
@@ -33,6 +34,8 @@ import org.testcontainers.junit.jupiter.Container;
 import java.time.LocalDateTime;
 import java.time.Year;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -69,6 +72,42 @@ class ChatControllerTests {
                 .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST);
     }
 
+    @Test
+    void chatBatchEmpty() {
+        client.post().uri("/chat/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(List.of())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void chatBatchTooManyPrompts() {
+        final var prompts = Collections.nCopies(21, "Where are you based in?");
+        client.post().uri("/chat/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(prompts)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void chatBatch() {
+        final var prompts = List.of("Where are you based in?", "Parle moi de toi.");
+        final var answers = client.post().uri("/chat/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(prompts)
+                .exchangeSuccessfully()
+                .returnResult(BatchAnswer[].class).getResponseBody();
+        assertThat(answers).hasSize(2);
+        for (int i = 0; i < answers.length; ++i) {
+            assertThat(answers[i].index()).isEqualTo(i);
+            assertThat(answers[i].prompt()).isEqualTo(prompts.get(i));
+            assertThat(answers[i].answer()).isNotBlank();
+            assertThat(answers[i].error()).isNull();
+        }
+    }
+
     @Test
     void evaluateChatAnswer() {
         final var params = new LinkedMultiValueMap<String, String>();
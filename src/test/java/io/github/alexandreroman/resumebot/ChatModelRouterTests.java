@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatModelRouterTests {
+    private static final Map<String, Object> HEDGING = Map.of("app.hedging.enabled", "true",
+            "app.hedging.initial-delay", "200ms", "app.hedging.min-delay", "50ms");
+
+    private final StubModel primary = new StubModel("primary");
+    private final StubModel backup = new StubModel("backup");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void latencyPercentiles() {
+        final var latencies = new ChatModelRouter.LatencyWindow(100);
+        assertThat(latencies.percentile(0.95)).isEqualTo(-1);
+        for (int i = 1; i <= 200; ++i) {
+            latencies.record(i);
+        }
+        // Only the last 100 latencies are kept.
+        assertThat(latencies.percentile(0.95)).isEqualTo(195);
+        assertThat(latencies.percentile(0.5)).isEqualTo(150);
+        assertThat(latencies.percentile(1)).isEqualTo(200);
+    }
+
+    @Test
+    void rejectCallsWhileHalfOpen() throws InterruptedException {
+        final var router = createRouter(null, Map.of("app.degraded.enabled", "true",
+                "app.degraded.circuit-breaker.window-size", "2", "app.degraded.circuit-breaker.min-calls", "2",
+                "app.degraded.circuit-breaker.open-duration", "100ms", "app.degraded.circuit-breaker.half-open-calls", "1"));
+        primary.failing = true;
+        for (int i = 0; i < 2; ++i) {
+            final var permit = router.acquire();
+            assertThatThrownBy(() -> router.call(permit, this::call)).hasMessage("primary failure");
+        }
+        assertThatThrownBy(router::acquire).isInstanceOf(ModelUnavailableException.class);
+
+        Thread.sleep(150);
+        primary.failing = false;
+        final var probe = router.acquire();
+        // No permit is left for another call: it is rejected before its response has started.
+        assertThatThrownBy(router::acquire).isInstanceOf(ModelUnavailableException.class);
+        router.release(probe);
+
+        final var permit = router.acquire();
+        assertThat(getText(router.stream(permit, this::stream).blockFirst())).isEqualTo("primary");
+        assertThat(router.getModelCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void usePermitOnce() {
+        final var router = createRouter(null, Map.of("app.degraded.enabled", "true"));
+        final var permit = router.acquire();
+        assertThat(getText(router.call(permit, this::call))).isEqualTo("primary");
+        assertThatThrownBy(() -> router.call(permit, this::call)).isInstanceOf(IllegalStateException.class);
+        // Releasing a used permit does nothing.
+        router.release(permit);
+
+        final var released = router.acquire();
+        router.release(released);
+        assertThatThrownBy(() -> router.stream(released, this::stream).blockLast())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void answerWithFastPrimary() {
+        final var router = createRouter(backup, HEDGING);
+        assertThat(getText(router.call(router.acquire(), this::call))).isEqualTo("primary");
+        assertThat(getText(router.stream(router.acquire(), this::stream).blockFirst())).isEqualTo("primary");
+
+        assertThat(backup.calls.get()).isZero();
+        assertThat(getWins("primary")).isEqualTo(2);
+        assertThat(getWins("backup")).isZero();
+    }
+
+    @Test
+    void hedgeSlowPrimary() throws InterruptedException {
+        final var router = createRouter(backup, HEDGING);
+        primary.latency = Duration.ofSeconds(30);
+        final long start = System.nanoTime();
+        assertThat(getText(router.call(router.acquire(), this::call))).isEqualTo("backup");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+
+        // The call which has lost the race is cancelled.
+        assertThat(primary.cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(getWins("backup")).isEqualTo(1);
+        assertThat(getBackupCalls("delay")).isEqualTo(1);
+    }
+
+    @Test
+    void hedgeSlowPrimaryStream() throws InterruptedException {
+        final var router = createRouter(backup, HEDGING);
+        primary.latency = Duration.ofSeconds(30);
+        final var texts = router.stream(router.acquire(), this::stream).map(this::getText)
+                .collectList().block(Duration.ofSeconds(5));
+        assertThat(texts).containsExactly("backup", "!");
+
+        assertThat(primary.cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(getWins("backup")).isEqualTo(1);
+        assertThat(getBackupCalls("delay")).isEqualTo(1);
+    }
+
+    @Test
+    void tagModelCallsWithBackupModel() {
+        final var observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        final var metrics = new ChatMetrics(meterRegistry, observationRegistry, primary);
+        final var router = createRouter(backup, HEDGING);
+        primary.latency = Duration.ofSeconds(30);
+        assertThat(getText(metrics.observeModelCall(() -> router.call(router.acquire(), this::call))))
+                .isEqualTo("backup");
+
+        final var observation = metrics.createObservation(ChatMetrics.Stage.MODEL_CALL).start();
+        router.stream(router.acquire(), this::stream)
+                .doOnNext(r -> metrics.tagModel(observation, r))
+                .blockLast(Duration.ofSeconds(5));
+        observation.stop();
+
+        assertThat(meterRegistry.get(ChatMetrics.STAGE_OBSERVATION).tag("stage", "model.call")
+                .tag("model", "backup-model").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.find(ChatMetrics.STAGE_OBSERVATION).tag("model", "primary-model").timer()).isNull();
+    }
+
+    @Test
+    void cancelSlowBackup() throws InterruptedException {
+        final var router = createRouter(backup, HEDGING);
+        primary.latency = Duration.ofMillis(500);
+        backup.latency = Duration.ofSeconds(30);
+        assertThat(getText(router.call(router.acquire(), this::call))).isEqualTo("primary");
+
+        assertThat(backup.cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(getWins("primary")).isEqualTo(1);
+        assertThat(getBackupCalls("delay")).isEqualTo(1);
+    }
+
+    @Test
+    void failOverToBackup() {
+        final var router = createRouter(backup, HEDGING);
+        primary.failing = true;
+        assertThat(getText(router.call(router.acquire(), this::call))).isEqualTo("backup");
+        assertThat(getText(router.stream(router.acquire(), this::stream).blockFirst())).isEqualTo("backup");
+
+        assertThat(getWins("backup")).isEqualTo(2);
+        assertThat(getBackupCalls("failure")).isEqualTo(2);
+        assertThat(getBackupCalls("delay")).isZero();
+    }
+
+    @Test
+    void failWhenBothModelsFail() {
+        final var router = createRouter(backup, HEDGING);
+        primary.failing = true;
+        backup.failing = true;
+        assertThatThrownBy(() -> router.call(router.acquire(), this::call)).hasMessageEndingWith("failure");
+        assertThatThrownBy(() -> router.stream(router.acquire(), this::stream).blockLast())
+                .hasMessageEndingWith("failure");
+        assertThat(getWins("primary") + getWins("backup")).isZero();
+    }
+
+    private ChatResponse call(ChatClient chatClient) {
+        return chatClient.prompt("Hi").call().chatResponse();
+    }
+
+    private Flux<ChatResponse> stream(ChatClient chatClient) {
+        return chatClient.prompt("Hi").stream().chatResponse();
+    }
+
+    private String getText(ChatResponse response) {
+        return response.getResult().getOutput().getText();
+    }
+
+    private double getWins(String model) {
+        return meterRegistry.get("resumebot.chat.hedging.wins").tag("model", model).counter().count();
+    }
+
+    private double getBackupCalls(String reason) {
+        return meterRegistry.get("resumebot.chat.hedging.backup-calls").tag("reason", reason).counter().count();
+    }
+
+    private ChatModelRouter createRouter(StubModel backupModel, Map<String, Object> properties) {
+        return new ChatModelRouter(ChatClient.create(primary),
+                backupModel == null ? null : ChatClient.create(backupModel),
+                TestSupport.loadConfig(properties), meterRegistry);
+    }
+
+    /**
+     * Model answering with its name, after some latency: the name of the model is sent in the response metadata.
+     */
+    private static final class StubModel implements ChatModel {
+        private final String name;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+        private volatile Duration latency = Duration.ZERO;
+        private volatile boolean failing;
+
+        StubModel(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Cancelled call", e);
+            }
+            if (failing) {
+                throw new IllegalStateException(name + " failure");
+            }
+            return createResponse(name);
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.defer(() -> {
+                        calls.incrementAndGet();
+                        return failing ? Flux.<ChatResponse>error(new IllegalStateException(name + " failure"))
+                                : Flux.just(createResponse(name), createResponse("!"));
+                    })
+                    .delaySubscription(latency)
+                    .doOnCancel(cancelled::countDown);
+        }
+
+        private ChatResponse createResponse(String text) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))),
+                    ChatResponseMetadata.builder().model(name + "-model").build());
+        }
+    }
+}
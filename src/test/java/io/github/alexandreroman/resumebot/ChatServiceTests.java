@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatServiceTests {
+    @Test
+    void runBlocking() {
+        final var items = ChatService.<String>runBlocking(sink -> {
+            sink.accept("Hello");
+            sink.accept("world");
+        });
+        assertThat(items.collectList().block()).containsExactly("Hello", "world");
+
+        final var failure = ChatService.<String>runBlocking(sink -> {
+            throw new IllegalStateException("Batch failure");
+        });
+        assertThatThrownBy(failure::blockLast).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void interruptOnCancel() throws InterruptedException {
+        final var started = new CountDownLatch(1);
+        final var interrupted = new CountDownLatch(1);
+        final var subscription = ChatService.<String>runBlocking(sink -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }).subscribe();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        subscription.dispose();
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void propagateObservation() {
+        final var registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(context -> true);
+        final var observation = Observation.start("chat.batch", registry);
+        final var current = new AtomicReference<Observation>();
+        observation.scoped(() -> ChatService.<String>runBlocking(
+                sink -> current.set(registry.getCurrentObservation())).blockLast());
+        observation.stop();
+        assertThat(current.get()).isSameAs(observation);
+    }
+}
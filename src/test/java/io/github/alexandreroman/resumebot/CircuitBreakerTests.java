@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTests {
+    private static final Duration FAST = Duration.ofMillis(100);
+    private static final Duration SLOW = Duration.ofSeconds(10);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("test",
+            new AppConfig.CircuitBreaker(0.5, 0.5, Duration.ofSeconds(5), 10, 4, Duration.ofSeconds(30), 2),
+            meterRegistry, clock::get);
+
+    @Test
+    void openOnFailures() {
+        for (int i = 0; i < 3; ++i) {
+            assertThat(circuitBreaker.tryAcquire()).isNotEqualTo(CircuitBreaker.REJECTED);
+            circuitBreaker.onFailure(FAST);
+        }
+        // Too few calls have been recorded so far.
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquire()).isNotEqualTo(CircuitBreaker.REJECTED);
+        circuitBreaker.onSuccess(FAST);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isEqualTo(CircuitBreaker.REJECTED);
+        assertThat(circuitBreaker.getRemainingOpenDuration()).isEqualTo(Duration.ofSeconds(30));
+
+        assertThat(meterRegistry.get("resumebot.chat.circuit-breaker.state")
+                .tag("name", "test").tag("state", "open").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("resumebot.chat.circuit-breaker.calls")
+                .tag("name", "test").tag("outcome", "rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void openOnSlowCalls() {
+        for (int i = 0; i < 10; ++i) {
+            assertThat(circuitBreaker.tryAcquire()).isNotEqualTo(CircuitBreaker.REJECTED);
+            circuitBreaker.onSuccess(i < 6 ? FAST : SLOW);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        // The oldest fast call is no longer in the window.
+        circuitBreaker.onSuccess(SLOW);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void closeAfterSuccessfulProbes() {
+        open();
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertThat(circuitBreaker.tryAcquire()).isNotEqualTo(CircuitBreaker.REJECTED);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        final long probe = circuitBreaker.tryAcquire();
+        assertThat(probe).isNotEqualTo(CircuitBreaker.REJECTED);
+        // Only 2 probes are allowed at once.
+        assertThat(circuitBreaker.tryAcquire()).isEqualTo(CircuitBreaker.REJECTED);
+
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onIgnored(probe);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isNotEqualTo(CircuitBreaker.REJECTED);
+        circuitBreaker.onSuccess(FAST);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // Outcomes recorded before the circuit opened are forgotten.
+        circuitBreaker.onFailure(FAST);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void openAgainAfterFailedProbe() {
+        open();
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertThat(circuitBreaker.tryAcquire()).isNotEqualTo(CircuitBreaker.REJECTED);
+        circuitBreaker.onSuccess(SLOW);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isEqualTo(CircuitBreaker.REJECTED);
+
+        assertThat(meterRegistry.get("resumebot.chat.circuit-breaker.transitions")
+                .tag("name", "test").tag("state", "open").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void ignoreCallsPermittedBeforeHalfOpen() {
+        final long closedPermit = circuitBreaker.tryAcquire();
+        assertThat(closedPermit).isNotEqualTo(CircuitBreaker.REJECTED);
+        open();
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertThat(circuitBreaker.tryAcquire()).isNotEqualTo(CircuitBreaker.REJECTED);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        // This call was permitted while the circuit was closed: no permit is given back.
+        circuitBreaker.onIgnored(closedPermit);
+        assertThat(circuitBreaker.tryAcquire()).isNotEqualTo(CircuitBreaker.REJECTED);
+        assertThat(circuitBreaker.tryAcquire()).isEqualTo(CircuitBreaker.REJECTED);
+    }
+
+    @Test
+    void ignoreCallsPermittedBeforeOpeningAgain() {
+        open();
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        final long probe = circuitBreaker.tryAcquire();
+        circuitBreaker.onFailure(FAST);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertThat(circuitBreaker.tryAcquire()).isNotEqualTo(CircuitBreaker.REJECTED);
+
+        // This probe was permitted before the circuit opened again.
+        circuitBreaker.onIgnored(probe);
+        assertThat(circuitBreaker.tryAcquire()).isNotEqualTo(CircuitBreaker.REJECTED);
+        assertThat(circuitBreaker.tryAcquire()).isEqualTo(CircuitBreaker.REJECTED);
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; ++i) {
+            circuitBreaker.tryAcquire();
+            circuitBreaker.onFailure(FAST);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
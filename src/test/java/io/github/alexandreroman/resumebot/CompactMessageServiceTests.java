@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.redis.testcontainers.RedisContainer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.junit.jupiter.Container;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of {@link MessageService} when conversations are written with the compact storage format.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "app.history.storage-format=compact")
+class CompactMessageServiceTests {
+    @Container
+    @ServiceConnection
+    static RedisContainer redis = new RedisContainer(RedisContainer.DEFAULT_IMAGE_NAME.withTag("8.4"));
+
+    @Autowired
+    private MessageService messageService;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Test
+    void exchangeHistory() {
+        final var cid = "testbar";
+        deleteConversation(cid);
+
+        assertThat(messageService.addExchange(cid, "Hello", "Hey")).isEqualTo(2);
+        assertThat(messageService.addExchange(cid, "How are you?", "Fine")).isEqualTo(4);
+        messageService.setSummary(cid, "Greetings");
+
+        final var history = messageService.readHistory(cid);
+        assertThat(history.summary()).isEqualTo("Greetings");
+        assertThat(history.messages()).containsExactly("Q: Hello", "A: Hey", "Q: How are you?", "A: Fine");
+        assertThat(messageService.readHistory("unknown").isEmpty()).isTrue();
+    }
+
+    @Test
+    void legacyHistory() {
+        final var cid = "testlegacy";
+        deleteConversation(cid);
+
+        final var key = RedisConversationStore.getMessagesKey(cid);
+        redisTemplate.opsForList().rightPushAll(key, "Q: Hello", "A: Hey");
+        messageService.addExchange(cid, "How are you?", "Fine");
+        assertThat(messageService.readHistory(cid).messages())
+                .containsExactly("Q: Hello", "A: Hey", "Q: How are you?", "A: Fine");
+
+        assertThat(messageService.migrate(cid)).isTrue();
+        assertThat(messageService.migrate(cid)).isFalse();
+        final var history = messageService.readHistory(cid);
+        assertThat(history.messages()).containsExactly("Q: Hello", "A: Hey", "Q: How are you?", "A: Fine");
+        assertThat(history.getTokenCount(0)).isPositive();
+    }
+
+    private void deleteConversation(String cid) {
+        final var keys = redisTemplate.keys("resumebot:conversations:*");
+        if (keys == null) {
+            return;
+        }
+        for (final var key : keys) {
+            redisTemplate.delete(key);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.redis.testcontainers.RedisContainer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "app.near-cache.enabled=true")
+class ConversationNearCacheTests {
+    @Container
+    @ServiceConnection
+    static RedisContainer redis = new RedisContainer(RedisContainer.DEFAULT_IMAGE_NAME.withTag("8.4"));
+
+    @Autowired
+    private ConversationNearCache nearCache;
+    @Autowired
+    private MessageCodec codec;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void invalidateOnUpdate() throws InterruptedException {
+        final var cid = "testnearupdate";
+        final var key = RedisConversationStore.getMessagesKey(cid);
+        redisTemplate.delete(key);
+        redisTemplate.opsForList().rightPushAll(key, "Q: Hello", "A: Hey");
+        assertThat(awaitHistory(cid, h -> true).messages()).containsExactly("Q: Hello", "A: Hey");
+        final double invalidations = getInvalidations();
+
+        // Another instance updates this conversation: Redis sends an invalidation message.
+        redisTemplate.opsForList().rightPushAll(key, "Q: How are you?", "A: Fine");
+        assertThat(awaitHistory(cid, h -> h.messages().size() == 4).messages())
+                .containsExactly("Q: Hello", "A: Hey", "Q: How are you?", "A: Fine");
+        assertThat(getInvalidations()).isGreaterThan(invalidations);
+
+        redisTemplate.delete(key);
+        assertThat(awaitHistory(cid, ConversationHistory::isEmpty).isEmpty()).isTrue();
+    }
+
+    @Test
+    void refreshOnWrite() throws InterruptedException {
+        final var cid = "testnearwrite";
+        redisTemplate.delete(RedisConversationStore.getMessagesKey(cid));
+        assertThat(awaitHistory(cid, h -> true).isEmpty()).isTrue();
+
+        // Writes from this instance update the cached history right away.
+        assertThat(nearCache.addExchange(cid, codec.encode(MessageType.USER, "Hello"),
+                codec.encode(MessageType.ASSISTANT, "Hey"), 100, 60)).isEqualTo(2);
+        assertThat(nearCache.read(cid).messages()).containsExactly("Q: Hello", "A: Hey");
+    }
+
+    private ConversationHistory awaitHistory(String cid, Predicate<ConversationHistory> condition)
+            throws InterruptedException {
+        // Tracking is enabled asynchronously, and invalidation messages are received asynchronously.
+        final long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (true) {
+            final var history = nearCache.read(cid);
+            if ((history != null && condition.test(history)) || System.nanoTime() > deadline) {
+                return history;
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private double getInvalidations() {
+        return meterRegistry.counter("resumebot.conversations.near-cache.invalidations").count();
+    }
+}
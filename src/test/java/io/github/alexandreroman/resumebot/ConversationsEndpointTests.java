@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.redis.testcontainers.RedisContainer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ConversationsEndpointTests {
+    @Container
+    @ServiceConnection
+    static RedisContainer redis = new RedisContainer(RedisContainer.DEFAULT_IMAGE_NAME.withTag("8.4"));
+
+    @Autowired
+    private ConversationsEndpoint endpoint;
+    @Autowired
+    private MessageService messageService;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Test
+    void exportConversations() throws IOException {
+        deleteConversations();
+        for (int i = 0; i < 25; ++i) {
+            messageService.addExchange("export" + i, "Hello " + i, "Hey");
+        }
+        messageService.setSummary("export0", "Greetings");
+
+        final var lines = export(null, null, 10);
+        final var conversations = lines.stream().filter(line -> line.has("conversationId")).toList();
+        assertThat(conversations).hasSize(25);
+        assertThat(lines.getLast().get("cursor").asString()).isEqualTo("0");
+
+        final var first = conversations.stream()
+                .filter(c -> c.get("conversationId").asString().equals("export0")).findFirst().orElseThrow();
+        assertThat(first.get("summary").asString()).isEqualTo("Greetings");
+        assertThat(first.get("messages")).hasSize(2);
+        assertThat(first.get("messages").get(0).get("role").asString()).isEqualTo("user");
+        assertThat(first.get("messages").get(0).get("text").asString()).isEqualTo("Hello 0");
+        assertThat(first.get("messages").get(1).get("role").asString()).isEqualTo("assistant");
+    }
+
+    @Test
+    void filterByTimeWindow() throws IOException {
+        deleteConversations();
+        messageService.addExchange("recent", "Hello", "Hey");
+
+        final var now = Instant.now();
+        assertThat(export(now.minus(1, ChronoUnit.HOURS), null, 100))
+                .filteredOn(line -> line.has("conversationId")).hasSize(1);
+        assertThat(export(now.plus(1, ChronoUnit.HOURS), null, 100))
+                .filteredOn(line -> line.has("conversationId")).isEmpty();
+        assertThat(export(null, now.minus(1, ChronoUnit.HOURS), 100))
+                .filteredOn(line -> line.has("conversationId")).isEmpty();
+    }
+
+    private List<JsonNode> export(Instant since, Instant until, int batchSize) throws IOException {
+        final var lines = new ArrayList<JsonNode>();
+        final var resource = endpoint.export(null, since, until, batchSize);
+        try (final var reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(jsonMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private void deleteConversations() {
+        final var keys = redisTemplate.keys("resumebot:conversations:*");
+        if (keys == null) {
+            return;
+        }
+        for (final var key : keys) {
+            redisTemplate.delete(key);
+        }
+    }
+}
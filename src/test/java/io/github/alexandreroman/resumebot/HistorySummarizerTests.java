@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistorySummarizerTests {
+    private final AppConfig config = TestSupport.loadConfig(Map.of(
+            "app.history.summarize-after-turns", "3", "app.history.keep-turns", "1"));
+    private final MessageService messageService = createMessageService();
+    private final AtomicInteger calls = new AtomicInteger();
+    private Runnable onCall = () -> {
+    };
+
+    @Test
+    void foldOlderMessages() {
+        addExchanges("c1", 4);
+        newSummarizer().summarizeIfNeeded("c1");
+
+        assertThat(calls.get()).isEqualTo(1);
+        final var history = messageService.readHistory("c1");
+        assertThat(history.summary()).isEqualTo("The user asked 4 questions.");
+        assertThat(history.messages()).containsExactly("Q: Question 4", "A: Answer 4");
+    }
+
+    @Test
+    void skipShortConversation() {
+        addExchanges("c1", 3);
+        newSummarizer().summarizeIfNeeded("c1");
+
+        assertThat(calls.get()).isZero();
+        assertThat(messageService.readHistory("c1").messages()).hasSize(6);
+    }
+
+    @Test
+    void skipConversationSummarizedConcurrently() {
+        addExchanges("c1", 4);
+        // Another instance summarizes the same conversation while the model is called.
+        onCall = () -> messageService.foldMessages("c1", List.of("Q: Question 1", "A: Answer 1"), "Another summary");
+        newSummarizer().summarizeIfNeeded("c1");
+
+        // The oldest messages are only removed once.
+        final var history = messageService.readHistory("c1");
+        assertThat(history.summary()).isEqualTo("Another summary");
+        assertThat(history.messages()).hasSize(6).startsWith("Q: Question 2");
+    }
+
+    private HistorySummarizer newSummarizer() {
+        final ChatModel stubModel = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                calls.incrementAndGet();
+                onCall.run();
+                return new ChatResponse(List.of(new Generation(new AssistantMessage("The user asked 4 questions."))));
+            }
+        };
+        return new HistorySummarizer(messageService, new ChatBulkhead(config, new SimpleMeterRegistry()),
+                ChatClient.builder(stubModel), config);
+    }
+
+    private MessageService createMessageService() {
+        final var beanFactory = new DefaultListableBeanFactory();
+        return new MessageService(TestSupport.createConversationStore(), config, new MessageCodec(config),
+                beanFactory.getBeanProvider(ConversationNearCache.class),
+                beanFactory.getBeanProvider(HistoryWriteBehind.class));
+    }
+
+    private void addExchanges(String conversationId, int count) {
+        for (int i = 1; i <= count; ++i) {
+            messageService.addExchange(conversationId, "Question " + i, "Answer " + i);
+        }
+    }
+}
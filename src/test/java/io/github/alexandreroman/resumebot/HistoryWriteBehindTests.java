@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryWriteBehindTests {
+    private final MessageCodec codec = new MessageCodec(true, 256);
+    private final Map<String, List<String>> store = new HashMap<>();
+    private final CountDownLatch writeStarted = new CountDownLatch(1);
+    private final CountDownLatch writeAllowed = new CountDownLatch(1);
+    private final AtomicInteger failedWrites = new AtomicInteger();
+    private String blockedConversation;
+    private HistoryWriteBehind writeBehind;
+
+    @AfterEach
+    void stop() {
+        writeAllowed.countDown();
+        if (writeBehind != null) {
+            writeBehind.stop();
+        }
+    }
+
+    @Test
+    void readQueuedExchanges() throws InterruptedException {
+        writeBehind = newWriteBehind(10, Duration.ofMillis(100), 3);
+        blockedConversation = "c1";
+        writeBehind.start();
+        final var count = new AtomicLong();
+        writeBehind.add("c1", "Hello", "Hey", count::set);
+        writeBehind.add("c1", "How are you?", "Fine", count::set);
+
+        // Exchanges are stored, but their write is not complete: they must be read once.
+        assertThat(writeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(read("c1")).containsExactly("Q: Hello", "A: Hey", "Q: How are you?", "A: Fine");
+        writeAllowed.countDown();
+        await(() -> !writeBehind.isPending("c1"));
+        assertThat(read("c1")).containsExactly("Q: Hello", "A: Hey", "Q: How are you?", "A: Fine");
+        assertThat(count.get()).isEqualTo(4);
+    }
+
+    @Test
+    void readWhileWriting() throws InterruptedException {
+        writeBehind = newWriteBehind(10, Duration.ofMillis(100), 3);
+        blockedConversation = "c1";
+        writeBehind.start();
+        writeBehind.add("c1", "Hello", "Hey", c -> {
+        });
+        assertThat(writeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        writeBehind.add("c1", "How are you?", "Fine", c -> {
+        });
+
+        // Readers do not wait for the write, and see both the written and the queued exchanges.
+        final var history = CompletableFuture.supplyAsync(() -> read("c1"));
+        assertThat(history).succeedsWithin(Duration.ofSeconds(1))
+                .isEqualTo(List.of("Q: Hello", "A: Hey", "Q: How are you?", "A: Fine"));
+    }
+
+    @Test
+    void writeInOrderWhenQueueIsFull() throws Exception {
+        writeBehind = newWriteBehind(1, Duration.ofMillis(10), 3);
+        blockedConversation = "c1";
+        writeBehind.start();
+        writeBehind.add("c1", "Q1", "A1", c -> {
+        });
+        assertThat(writeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        // The queue is full: the next exchange of this conversation is written by its caller,
+        // along with the queued one, once the first one has been written.
+        writeBehind.add("c1", "Q2", "A2", c -> {
+        });
+        final var count = new AtomicLong();
+        final var added = CompletableFuture.runAsync(() -> writeBehind.add("c1", "Q3", "A3", count::set));
+        Thread.sleep(100);
+        assertThat(added).isNotDone();
+        writeAllowed.countDown();
+        added.get(5, TimeUnit.SECONDS);
+
+        assertThat(count.get()).isEqualTo(6);
+        await(() -> !writeBehind.isPending("c1"));
+        assertThat(stored("c1")).containsExactly("Q: Q1", "A: A1", "Q: Q2", "A: A2", "Q: Q3", "A: A3");
+    }
+
+    @Test
+    void writeNewConversationWhenQueueIsFull() throws Exception {
+        writeBehind = newWriteBehind(1, Duration.ofMillis(10), 3);
+        blockedConversation = "c1";
+        writeBehind.start();
+        writeBehind.add("c1", "Q1", "A1", c -> {
+        });
+        assertThat(writeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        writeBehind.add("c1", "Q2", "A2", c -> {
+        });
+
+        final var count = new AtomicLong();
+        writeBehind.add("c2", "Hello", "Hey", count::set);
+        assertThat(count.get()).isEqualTo(2);
+        assertThat(stored("c2")).containsExactly("Q: Hello", "A: Hey");
+        assertThat(writeBehind.isPending("c2")).isFalse();
+    }
+
+    @Test
+    void drainOnStop() {
+        writeBehind = newWriteBehind(100, Duration.ofMillis(500), 3);
+        writeBehind.start();
+        for (int i = 0; i < 10; ++i) {
+            writeBehind.add("c" + (i % 3), "Q" + i, "A" + i, c -> {
+            });
+        }
+        writeBehind.stop();
+
+        assertThat(stored("c0")).containsExactly("Q: Q0", "A: A0", "Q: Q3", "A: A3", "Q: Q6", "A: A6",
+                "Q: Q9", "A: A9");
+        assertThat(stored("c1")).hasSize(6);
+        assertThat(stored("c2")).hasSize(6);
+        assertThat(writeBehind.add("c0", "Q", "A", c -> {
+        })).isFalse();
+    }
+
+    @Test
+    void retryWrites() throws InterruptedException {
+        writeBehind = newWriteBehind(10, Duration.ofMillis(10), 3);
+        failedWrites.set(2);
+        writeBehind.start();
+        writeBehind.add("c1", "Hello", "Hey", c -> {
+        });
+
+        await(() -> !writeBehind.isPending("c1"));
+        assertThat(failedWrites.get()).isZero();
+        assertThat(stored("c1")).containsExactly("Q: Hello", "A: Hey");
+    }
+
+    private HistoryWriteBehind newWriteBehind(int queueCapacity, Duration flushInterval, int maxAttempts) {
+        final var config = new AppConfig.WriteBehind(true, queueCapacity, 100, flushInterval, Duration.ofMillis(50),
+                maxAttempts, Duration.ofSeconds(10));
+        return new HistoryWriteBehind(config, 100, null, codec, null, new SimpleMeterRegistry()) {
+            @Override
+            List<Long> writeMessages(Map<String, List<byte[]>> messages) {
+                if (failedWrites.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    throw new IllegalStateException("Redis is unavailable");
+                }
+                final var counts = new ArrayList<Long>();
+                for (final var entry : messages.entrySet()) {
+                    final var conversation = store(entry.getKey(), entry.getValue());
+                    if (entry.getKey().equals(blockedConversation) && writeStarted.getCount() > 0) {
+                        // Messages are visible, but the write is not complete yet.
+                        writeStarted.countDown();
+                        try {
+                            writeAllowed.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    counts.add((long) conversation);
+                }
+                return counts;
+            }
+        };
+    }
+
+    private int store(String conversationId, List<byte[]> messages) {
+        synchronized (store) {
+            final var conversation = store.computeIfAbsent(conversationId, k -> new ArrayList<>());
+            for (final var message : messages) {
+                conversation.add(codec.decode(message).toHistoryMessage());
+            }
+            return conversation.size();
+        }
+    }
+
+    private List<String> stored(String conversationId) {
+        synchronized (store) {
+            return List.copyOf(store.getOrDefault(conversationId, List.of()));
+        }
+    }
+
+    private List<String> read(String conversationId) {
+        return writeBehind.read(conversationId, cid -> new ConversationHistory(null, stored(cid))).messages();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryConversationStoreTests {
+    private final AtomicLong nanos = new AtomicLong();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void appendMessages() {
+        final var store = newStore(DataSize.ofMegabytes(1), null);
+        assertThat(store.append("c1", List.of(bytes("Q1"), bytes("A1")), 5)).isEqualTo(2);
+        assertThat(store.append("c1", List.of(bytes("Q2"), bytes("A2")), 5)).isEqualTo(4);
+        // Only the newest messages are kept.
+        assertThat(store.append("c1", List.of(bytes("Q3"), bytes("A3")), 5)).isEqualTo(5);
+        assertThat(strings(store.getMessages("c1"))).containsExactly("A1", "Q2", "A2", "Q3", "A3");
+        assertThat(store.append("c1", List.of(bytes("Q4"), bytes("A4"), bytes("Q5")), 2)).isEqualTo(2);
+        assertThat(strings(store.getMessages("c1"))).containsExactly("A4", "Q5");
+
+        store.removeOldestMessages("c1", 1);
+        assertThat(strings(store.getMessages("c1"))).containsExactly("Q5");
+        store.removeOldestMessages("c1", 10);
+        assertThat(store.getMessages("c1")).isEmpty();
+        assertThat(store.getMessages("unknown")).isEmpty();
+    }
+
+    @Test
+    void readConversation() {
+        final var store = newStore(DataSize.ofMegabytes(1), null);
+        assertThat(store.read("c1")).isEqualTo(ConversationStore.StoredConversation.EMPTY);
+
+        store.append("c1", List.of(bytes("Hello"), bytes("Hey")), 10);
+        store.setSummary("c1", "Greetings");
+        final var conversation = store.read("c1");
+        assertThat(conversation.summary()).isEqualTo("Greetings");
+        assertThat(strings(conversation.messages())).containsExactly("Hello", "Hey");
+        assertThat(store.getSummary("c1")).isEqualTo("Greetings");
+    }
+
+    @Test
+    void replaceMessages() {
+        final var store = newStore(DataSize.ofMegabytes(1), null);
+        store.append("c1", List.of(bytes("Q1"), bytes("A1")), 10);
+
+        assertThat(store.replaceMessages("c1", List.of(
+                new ConversationStore.MessageUpdate(1, bytes("A1"), bytes("Answer 1"))))).isTrue();
+        assertThat(strings(store.getMessages("c1"))).containsExactly("Q1", "Answer 1");
+        // Messages which have changed are not replaced.
+        assertThat(store.replaceMessages("c1", List.of(
+                new ConversationStore.MessageUpdate(0, bytes("Q1"), bytes("Question 1")),
+                new ConversationStore.MessageUpdate(1, bytes("A1"), bytes("Answer 1"))))).isFalse();
+        assertThat(strings(store.getMessages("c1"))).containsExactly("Q1", "Answer 1");
+    }
+
+    @Test
+    void foldMessages() {
+        final var store = newStore(DataSize.ofMegabytes(1), null);
+        store.append("c1", List.of(bytes("Q1"), bytes("A1"), bytes("Q2"), bytes("A2")), 10);
+
+        assertThat(store.foldMessages("c1", List.of(bytes("Q1"), bytes("A1")), "First turn")).isTrue();
+        assertThat(store.getSummary("c1")).isEqualTo("First turn");
+        assertThat(strings(store.getMessages("c1"))).containsExactly("Q2", "A2");
+        // These messages have already been folded.
+        assertThat(store.foldMessages("c1", List.of(bytes("Q1"), bytes("A1")), "Both turns")).isFalse();
+        assertThat(store.getSummary("c1")).isEqualTo("First turn");
+        assertThat(strings(store.getMessages("c1"))).containsExactly("Q2", "A2");
+    }
+
+    @Test
+    void expireConversations() {
+        final var store = newStore(DataSize.ofMegabytes(1), null);
+        store.append("c1", List.of(bytes("Q1")), 10);
+        store.append("c2", List.of(bytes("Q2")), 10);
+
+        nanos.addAndGet(TimeUnit.HOURS.toNanos(20));
+        // Reading a conversation keeps it alive, unlike reading its messages only.
+        store.read("c1");
+        store.getMessages("c2");
+        nanos.addAndGet(TimeUnit.HOURS.toNanos(5));
+        assertThat(strings(store.getMessages("c1"))).containsExactly("Q1");
+        assertThat(store.getMessages("c2")).isEmpty();
+    }
+
+    @Test
+    void evictConversations() {
+        final var store = newStore(DataSize.ofKilobytes(64), null);
+        final var message = bytes("x".repeat(1000));
+        for (int i = 0; i < 200; ++i) {
+            store.append("c" + i, List.of(message), 10);
+        }
+        store.cleanUp();
+
+        final var conversations = new ArrayList<String>();
+        store.forEachConversation(conversations::add);
+        assertThat(conversations).hasSizeBetween(1, 64);
+    }
+
+    @Test
+    void snapshot() throws IOException {
+        final var path = directory.resolve("conversations.snapshot");
+        final var store = newStore(DataSize.ofMegabytes(1), path);
+        store.append("c1", List.of(bytes("Hello"), bytes("Hey")), 10);
+        store.setSummary("c1", "Greetings");
+        store.setSummary("c2", "Nothing yet");
+        store.saveSnapshot();
+
+        final var restored = newStore(DataSize.ofMegabytes(1), path);
+        assertThat(restored.loadSnapshot()).isEqualTo(2);
+        final var conversation = restored.read("c1");
+        assertThat(conversation.summary()).isEqualTo("Greetings");
+        assertThat(strings(conversation.messages())).containsExactly("Hello", "Hey");
+        assertThat(restored.getSummary("c2")).isEqualTo("Nothing yet");
+        assertThat(restored.getMessages("c2")).isEmpty();
+    }
+
+    private InMemoryConversationStore newStore(DataSize maxMemory, Path snapshotPath) {
+        final var config = new AppConfig.MemoryStore(1000, maxMemory, 4, snapshotPath, Duration.ofMinutes(5));
+        return new InMemoryConversationStore(config, new SimpleMeterRegistry(), nanos::get);
+    }
+
+    private static byte[] bytes(String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<byte[]> messages) {
+        return messages.stream().map(m -> new String(m, StandardCharsets.UTF_8)).toList();
+    }
+}
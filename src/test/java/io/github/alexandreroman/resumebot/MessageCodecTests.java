@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.MessageType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageCodecTests {
+    private final MessageCodec codec = new MessageCodec(true, 256);
+
+    @Test
+    void encodeShortMessage() {
+        final var value = codec.encode(MessageType.USER, "Where do you live?");
+        assertThat(MessageCodec.isCompact(value)).isTrue();
+
+        final var entry = codec.decode(value);
+        assertThat(entry.type()).isEqualTo(MessageType.USER);
+        assertThat(entry.text()).isEqualTo("Where do you live?");
+        assertThat(entry.tokenCount()).isPositive();
+        assertThat(entry.timestamp()).isBeforeOrEqualTo(Instant.now());
+        assertThat(entry.toHistoryMessage()).isEqualTo("Q: Where do you live?");
+    }
+
+    @Test
+    void compressLongMessage() {
+        final var text = "I'm based in **Paris**, France. Café, naïve, 日本語 🙂\n".repeat(50);
+        final var value = codec.encode(MessageType.ASSISTANT, text);
+        assertThat(value.length).isLessThan(text.getBytes(StandardCharsets.UTF_8).length / 4);
+
+        final var entry = codec.decode(value);
+        assertThat(entry.type()).isEqualTo(MessageType.ASSISTANT);
+        assertThat(entry.text()).isEqualTo(text);
+        assertThat(entry.toHistoryMessage()).isEqualTo("A: " + text);
+    }
+
+    @Test
+    void keepMetadata() {
+        final var timestamp = Instant.ofEpochSecond(1_790_000_000L);
+        final var entry = new MessageCodec.Entry(MessageType.ASSISTANT, "Hello", timestamp, 300);
+        assertThat(codec.decode(codec.encode(entry))).isEqualTo(entry);
+    }
+
+    @Test
+    void decodeLegacyEntries() {
+        final var question = codec.decode("Q: Where do you live?".getBytes(StandardCharsets.UTF_8));
+        assertThat(question).isEqualTo(new MessageCodec.Entry(MessageType.USER, "Where do you live?", null, -1));
+        final var answer = codec.decode("A: In **Paris**".getBytes(StandardCharsets.UTF_8));
+        assertThat(answer).isEqualTo(new MessageCodec.Entry(MessageType.ASSISTANT, "In **Paris**", null, -1));
+        assertThat(MessageCodec.isCompact("A: In Paris".getBytes(StandardCharsets.UTF_8))).isFalse();
+    }
+
+    @Test
+    void encodeLegacyEntries() {
+        final var legacyCodec = new MessageCodec(false, 256);
+        final var value = legacyCodec.encode(MessageType.ASSISTANT, "Hello");
+        assertThat(new String(value, StandardCharsets.UTF_8)).isEqualTo("A: Hello");
+        assertThat(codec.decode(value).text()).isEqualTo("Hello");
+    }
+
+    @Test
+    void rejectTruncatedMessages() {
+        final var value = codec.encode(MessageType.ASSISTANT, "Paris ".repeat(100));
+        final var truncated = Arrays.copyOf(value, value.length / 2);
+        assertThatThrownBy(() -> codec.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.redis.testcontainers.RedisContainer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class PromptCoalescerTests {
+    @Container
+    @ServiceConnection
+    static RedisContainer redis = new RedisContainer(RedisContainer.DEFAULT_IMAGE_NAME.withTag("8.4"));
+
+    private final Resume resume = new Resume("default", "abc", List.of(), null, null, 0);
+    private final AtomicInteger calls = new AtomicInteger();
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    private PromptCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new PromptCoalescer(TestSupport.loadConfig(Map.of(
+                "app.coalescing.redis", "true", "app.coalescing.max-wait", "5s", "app.coalescing.poll-interval", "10ms")),
+                redisTemplate, new SimpleMeterRegistry());
+        final var keys = redisTemplate.keys("resumebot:inflight:*");
+        if (keys != null && !keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+    }
+
+    @Test
+    void releaseLock() {
+        final var answer = coalescer.execute(resume, "Where are you based?", () -> {
+            assertThat(getLockKeys()).hasSize(1);
+            return answer("Paris");
+        });
+
+        assertThat(answer.answer()).isEqualTo("Paris");
+        assertThat(getLockKeys()).isEmpty();
+    }
+
+    @Test
+    void keepLockOfAnotherLeader() {
+        coalescer.execute(resume, "Where are you based?", () -> {
+            // The lock expires while the model is called, and another leader gets it.
+            final var lockKey = getLockKeys().iterator().next();
+            redisTemplate.opsForValue().set(lockKey, "another-leader");
+            return answer("Paris");
+        });
+
+        final var lockKeys = getLockKeys();
+        assertThat(lockKeys).hasSize(1);
+        assertThat(redisTemplate.opsForValue().get(lockKeys.iterator().next())).isEqualTo("another-leader");
+    }
+
+    @Test
+    void shareAnswerAcrossInstances() throws Exception {
+        final var otherInstance = new PromptCoalescer(TestSupport.loadConfig(Map.of(
+                "app.coalescing.redis", "true", "app.coalescing.max-wait", "5s", "app.coalescing.poll-interval", "10ms")),
+                redisTemplate, new SimpleMeterRegistry());
+        final var leaderCalled = new CountDownLatch(1);
+        final var followerWaiting = new CountDownLatch(1);
+        final var leader = CompletableFuture.supplyAsync(() -> coalescer.execute(resume, "Where are you based?", () -> {
+            leaderCalled.countDown();
+            try {
+                followerWaiting.await(5, TimeUnit.SECONDS);
+                // Give the follower some time to poll the result.
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return answer("Paris");
+        }));
+        assertThat(leaderCalled.await(5, TimeUnit.SECONDS)).isTrue();
+
+        final var follower = CompletableFuture.supplyAsync(() -> {
+            followerWaiting.countDown();
+            return otherInstance.execute(resume, "Where are you based?", () -> answer("Somewhere else"));
+        });
+        assertThat(leader.get(5, TimeUnit.SECONDS).answer()).isEqualTo("Paris");
+        assertThat(follower.get(5, TimeUnit.SECONDS).answer()).isEqualTo("Paris");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(getLockKeys()).isEmpty();
+    }
+
+    private ChatAnswer answer(String answer) {
+        calls.incrementAndGet();
+        return new ChatAnswer(answer, true);
+    }
+
+    private Set<String> getLockKeys() {
+        return redisTemplate.keys("resumebot:inflight:*:lock");
+    }
+}
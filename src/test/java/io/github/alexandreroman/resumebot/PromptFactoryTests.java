@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PromptFactoryTests {
+    @Test
+    void renderResume() {
+        final var promptFactory = new PromptFactory(TestSupport.loadConfig(Map.of()));
+        final var resume = promptFactory.createResume("default", "My name is Alexandre.");
+        assertThat(resume.prefix()).hasSize(2);
+        assertThat(resume.prefix().get(1).getText()).contains("<cv_data>\nMy name is Alexandre.\n</cv_data>");
+
+        final var messages = promptFactory.createMessages(resume, ConversationHistory.EMPTY, "Where are you based?");
+        assertThat(messages.getLast().getText()).endsWith("Question: Where are you based?\n");
+    }
+
+    @Test
+    void rejectResumeInUserPrompt() {
+        final var config = TestSupport.loadConfig(Map.of(
+                "app.user-prompt", "Here is my CV: {resume}\nQuestion: {prompt}"));
+        assertThatThrownBy(() -> new PromptFactory(config))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.resumePrompt");
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTests {
+    private static final List<String> SCOPES = List.of("conversation", "client");
+
+    @Test
+    void consumeUntilEmpty() {
+        final var buckets = List.of(new RateLimiter.TokenBucket(2, Duration.ofSeconds(10)),
+                new RateLimiter.TokenBucket(5, Duration.ofSeconds(1)));
+        var decision = RateLimiter.consume(buckets, SCOPES, 1, 0);
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.limit()).isEqualTo(2);
+        assertThat(decision.remaining()).isEqualTo(1);
+
+        assertThat(RateLimiter.consume(buckets, SCOPES, 1, 100).remaining()).isZero();
+
+        decision = RateLimiter.consume(buckets, SCOPES, 1, 200);
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.scope()).isEqualTo("conversation");
+        assertThat(decision.retryAfter()).isEqualTo(Duration.ofMillis(9800));
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        final var conversation = new RateLimiter.TokenBucket(10, Duration.ofSeconds(1));
+        final var client = new RateLimiter.TokenBucket(1, Duration.ofSeconds(1));
+        final var buckets = List.of(conversation, client);
+        assertThat(RateLimiter.consume(buckets, SCOPES, 1, 0).allowed()).isTrue();
+        for (int i = 0; i < 5; ++i) {
+            final var decision = RateLimiter.consume(buckets, SCOPES, 1, 10);
+            assertThat(decision.allowed()).isFalse();
+            assertThat(decision.scope()).isEqualTo("client");
+        }
+        // Only the first request took a token from the conversation bucket.
+        final var decision = RateLimiter.consume(List.of(conversation), List.of("conversation"), 1, 10);
+        assertThat(decision.remaining()).isEqualTo(8);
+    }
+
+    @Test
+    void refillOverTime() {
+        final var buckets = List.of(new RateLimiter.TokenBucket(3, Duration.ofSeconds(1)));
+        final var scopes = List.of("client");
+        for (int i = 0; i < 3; ++i) {
+            assertThat(RateLimiter.consume(buckets, scopes, 1, 0).allowed()).isTrue();
+        }
+        assertThat(RateLimiter.consume(buckets, scopes, 1, 999).allowed()).isFalse();
+        assertThat(RateLimiter.consume(buckets, scopes, 1, 1000).allowed()).isTrue();
+        assertThat(RateLimiter.consume(buckets, scopes, 1, 1500).allowed()).isFalse();
+
+        // Buckets never hold more than their capacity.
+        final var decision = RateLimiter.consume(buckets, scopes, 1, 60_000);
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.remaining()).isEqualTo(2);
+    }
+
+    @Test
+    void consumeTokenPerPrompt() {
+        final var buckets = List.of(new RateLimiter.TokenBucket(10, Duration.ofSeconds(1)),
+                new RateLimiter.TokenBucket(30, Duration.ofSeconds(1)));
+        var decision = RateLimiter.consume(buckets, SCOPES, 4, 0);
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.remaining()).isEqualTo(6);
+
+        decision = RateLimiter.consume(buckets, SCOPES, 8, 100);
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.scope()).isEqualTo("conversation");
+        // 2 more tokens are needed.
+        assertThat(decision.retryAfter()).isEqualTo(Duration.ofMillis(1900));
+
+        // A request never takes more tokens than the capacity of a bucket.
+        decision = RateLimiter.consume(buckets, SCOPES, 20, 60_000);
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.remaining()).isZero();
+    }
+
+    @Test
+    void fallBackToLocalBuckets() throws IOException {
+        // This server accepts connections, but never answers.
+        try (final var server = new ServerSocket(0)) {
+            final var connectionFactory = new LettuceConnectionFactory(
+                    new RedisStandaloneConfiguration("localhost", server.getLocalPort()));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            final var meterRegistry = new SimpleMeterRegistry();
+            final var rateLimiter = new RateLimiter(TestSupport.loadConfig(Map.of(
+                    "app.rate-limit.conversation-capacity", "2", "app.rate-limit.redis-timeout", "100ms")),
+                    new StringRedisTemplate(connectionFactory), meterRegistry);
+            try {
+                final long start = System.nanoTime();
+                assertThat(rateLimiter.acquire("c1", "client1", 1).allowed()).isTrue();
+                assertThat(rateLimiter.acquire("c1", "client1", 1).allowed()).isTrue();
+                final var decision = rateLimiter.acquire("c1", "client1", 1);
+                assertThat(decision.allowed()).isFalse();
+                assertThat(decision.scope()).isEqualTo("conversation");
+                assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+                assertThat(meterRegistry.get("resumebot.chat.rate-limit.fallbacks").counter().count()).isEqualTo(3);
+            } finally {
+                rateLimiter.destroy();
+                connectionFactory.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import com.redis.testcontainers.RedisContainer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the rate limiter script, which must behave like the local rate limiter.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class RedisRateLimiterTests {
+    @Container
+    @ServiceConnection
+    static RedisContainer redis = new RedisContainer(RedisContainer.DEFAULT_IMAGE_NAME.withTag("8.4"));
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        for (final var pattern : new String[]{"resumebot:conversations:*:ratelimit", "resumebot:clients:*:ratelimit"}) {
+            final var keys = redisTemplate.keys(pattern);
+            if (keys != null && !keys.isEmpty()) {
+                redisTemplate.delete(keys);
+            }
+        }
+        rateLimiter = new RateLimiter(TestSupport.loadConfig(Map.of(
+                "app.rate-limit.conversation-capacity", "3", "app.rate-limit.conversation-refill-interval", "10s",
+                "app.rate-limit.client-capacity", "5", "app.rate-limit.client-refill-interval", "10s",
+                "app.rate-limit.redis-timeout", "2s")), redisTemplate, meterRegistry);
+    }
+
+    @Test
+    void consumeUntilEmpty() {
+        var decision = rateLimiter.acquire("c1", "client1", 1);
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.limit()).isEqualTo(3);
+        assertThat(decision.remaining()).isEqualTo(2);
+        assertThat(rateLimiter.acquire("c1", "client1", 1).remaining()).isEqualTo(1);
+        assertThat(rateLimiter.acquire("c1", "client1", 1).remaining()).isZero();
+
+        decision = rateLimiter.acquire("c1", "client1", 1);
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.scope()).isEqualTo("conversation");
+        assertThat(decision.retryAfter()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(10));
+        // Rejected requests do not take tokens.
+        assertThat(redisTemplate.opsForHash().get("resumebot:conversations:c1:ratelimit", "tokens")).isEqualTo("0");
+        assertThat(redisTemplate.opsForHash().get("resumebot:clients:client1:ratelimit", "tokens")).isEqualTo("2");
+        assertThat(redisTemplate.getExpire("resumebot:conversations:c1:ratelimit")).isPositive();
+        assertThat(meterRegistry.get("resumebot.chat.rate-limit.fallbacks").counter().count()).isZero();
+    }
+
+    @Test
+    void limitClients() {
+        assertThat(rateLimiter.acquire("c1", "client1", 3).allowed()).isTrue();
+        assertThat(rateLimiter.acquire("c2", "client1", 2).allowed()).isTrue();
+
+        final var decision = rateLimiter.acquire("c3", "client1", 1);
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.scope()).isEqualTo("client");
+        assertThat(rateLimiter.acquire(null, "client2", 1).allowed()).isTrue();
+    }
+
+    @Test
+    void consumeTokenPerPrompt() {
+        var decision = rateLimiter.acquire("c1", "client1", 2);
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.remaining()).isEqualTo(1);
+
+        decision = rateLimiter.acquire("c1", "client1", 3);
+        assertThat(decision.allowed()).isFalse();
+        // More than 10 seconds are needed to get 2 more tokens.
+        assertThat(decision.retryAfter()).isGreaterThan(Duration.ofSeconds(10));
+
+        // A request never takes more tokens than the capacity of a bucket.
+        decision = rateLimiter.acquire("c2", "client2", 20);
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.remaining()).isZero();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResumeDatesTests {
+    @Test
+    void parseRanges() {
+        final var dates = ResumeDates.parse("""
+                John Doe - born in 1985
+                Acme Corp - Senior Developer (Mar 2020 - present)
+                Globex - Developer, 2015 – 2020
+                Initech: 01/2012 to 2014-06
+                Hooli, septembre 2010 - juin 2011
+                Invalid range: 2020 - 2010
+                """);
+        assertThat(dates.ranges()).extracting(ResumeDates.DateRange::start).containsExactly(
+                YearMonth.of(2020, 3), YearMonth.of(2015, 1), YearMonth.of(2012, 1), YearMonth.of(2010, 9));
+        assertThat(dates.ranges()).extracting(ResumeDates.DateRange::end).containsExactly(
+                null, YearMonth.of(2020, 1), YearMonth.of(2014, 6), YearMonth.of(2011, 6));
+        assertThat(dates.ranges().getFirst().label()).isEqualTo("Acme Corp - Senior Developer (Mar 2020 - present)");
+    }
+
+    @Test
+    void parseMonthNames() {
+        final var dates = ResumeDates.parse("""
+                Globex, February 2015 - Sept. 2016
+                Initech, févr. 2017 - décembre 2018
+                Marketing 2018 - 2019
+                Junior 2019 - Maintainer 2020
+                Octopus Deploy 2020 - Junk 2021
+                """);
+        // Words starting like a month are not months.
+        assertThat(dates.ranges()).extracting(ResumeDates.DateRange::start).containsExactly(
+                YearMonth.of(2015, 2), YearMonth.of(2017, 2), YearMonth.of(2018, 1), YearMonth.of(2020, 1));
+        assertThat(dates.ranges()).extracting(ResumeDates.DateRange::end).containsExactly(
+                YearMonth.of(2016, 9), YearMonth.of(2018, 12), YearMonth.of(2019, 1), YearMonth.of(2021, 1));
+        assertThat(ResumeDates.parse("Junior 2019 - 2020").ranges().getFirst().start())
+                .isEqualTo(YearMonth.of(2019, 1));
+        assertThat(ResumeDates.parse("Mainframe 2019 - Maint. 2020").ranges().getFirst().end())
+                .isEqualTo(YearMonth.of(2020, 1));
+    }
+
+    @Test
+    void describeDurations() {
+        final var dates = ResumeDates.parse("""
+                Acme Corp (Mar 2020 - present)
+                Globex (2015 - 2020)
+                """);
+        assertThat(dates.describe(LocalDate.of(2026, 4, 15))).isEqualTo("""
+                Today is 2026-04-15 (year 2026).
+                Durations computed from the dates found in the CV, as of today:
+                - Acme Corp (Mar 2020 - present): 6 years and 1 month
+                - Globex (2015 - 2020): 5 years
+                Use this information for any date or duration calculation.""");
+        assertThat(ResumeDates.parse("No dates").describe(LocalDate.of(2026, 4, 15))).isEqualTo("""
+                Today is 2026-04-15 (year 2026).
+                Use this information for any date or duration calculation.""");
+    }
+
+    @Test
+    void formatDuration() {
+        assertThat(ResumeDates.formatDuration(0)).isEqualTo("0 months");
+        assertThat(ResumeDates.formatDuration(1)).isEqualTo("1 month");
+        assertThat(ResumeDates.formatDuration(12)).isEqualTo("1 year");
+        assertThat(ResumeDates.formatDuration(26)).isEqualTo("2 years and 2 months");
+    }
+}
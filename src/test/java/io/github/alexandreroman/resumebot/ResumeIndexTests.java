@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResumeIndexTests {
+    private static final String RESUME = """
+            John Doe
+            Software Engineer - Paris, France
+            john.doe@example.com
+
+            Experience
+
+            Acme Corp - Senior Developer (2020 - present)
+            Building payment services with Java and Spring Boot.
+
+            Globex - Developer (2015 - 2020)
+            Maintained a legacy C++ trading platform.
+
+            Education
+            Master's degree in Computer Science, Université Paris-Saclay (2015)
+
+            Languages
+            French (native), English (fluent), Spanish (basic)
+
+            Hobbies
+            Running marathons, photography, chess.
+            """;
+
+    @Test
+    void splitSections() {
+        final var sections = ResumeIndex.split(RESUME);
+        assertThat(sections).hasSize(6);
+        assertThat(sections.get(0)).startsWith("John Doe");
+        assertThat(sections.get(1)).startsWith("Experience\n\nAcme Corp");
+        assertThat(sections.get(3)).startsWith("Education\nMaster's degree");
+    }
+
+    @Test
+    void tokenize() {
+        final var terms = new ArrayList<String>();
+        ResumeIndex.tokenize("Où est l'Université? C++ & Java-21", terms::add);
+        assertThat(terms).containsExactly("ou", "est", "universite", "java", "21");
+    }
+
+    @Test
+    void selectRelevantSections() {
+        final var index = new ResumeIndex(RESUME);
+        final var selected = index.select("Which languages do you speak?", 1, 0.5);
+        assertThat(selected).startsWith("John Doe").contains("Spanish (basic)")
+                .doesNotContain("Acme Corp").doesNotContain("marathons");
+
+        final var scores = index.score("where did you study computer science");
+        assertThat(scores[3]).isGreaterThan(scores[1]).isGreaterThan(scores[5]);
+    }
+
+    @Test
+    void fallbackToWholeResume() {
+        final var index = new ResumeIndex(RESUME);
+        assertThat(index.select("What is the meaning of life?", 1, 0.5)).isEqualTo(RESUME);
+        assertThat(index.select("Which languages do you speak?", 1, 100)).isEqualTo(RESUME);
+        assertThat(index.select("Which languages do you speak?", 10, 0.5)).isEqualTo(RESUME);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResumeRegistryTests {
+    @TempDir
+    private Path directory;
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private AnswerCache answerCache;
+    private ResumeRegistry registry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(directory.resolve("jane.md"), "My name is Jane.");
+        Files.writeString(directory.resolve("john.txt"), "My name is John.");
+        Files.writeString(directory.resolve("notes.pdf"), "Not a resume.");
+
+        final var config = TestSupport.loadConfig(Map.of("app.resumes.directory", directory.toString(),
+                "app.resumes.broadcast", "false", "app.resumes.reload-delay", "10ms", "app.cache.redis", "false"));
+        answerCache = new AnswerCache(config, new StringRedisTemplate(), new SimpleMeterRegistry());
+        registry = new ResumeRegistry(config, new PromptFactory(config), answerCache, new StringRedisTemplate(),
+                new RedisMessageListenerContainer(), events::add, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.stop();
+    }
+
+    @Test
+    void loadResumes() {
+        assertThat(registry.getResumes()).extracting(Resume::id).containsExactlyInAnyOrder("default", "jane", "john");
+        assertThat(registry.getResume(null).id()).isEqualTo("default");
+        assertThat(registry.getResume("jane").prefix().get(1).getText()).contains("My name is Jane.");
+        assertThat(registry.getMemoryUsage()).isPositive();
+        assertThatThrownBy(() -> registry.getResume("notes")).isInstanceOf(ResumeNotFoundException.class);
+    }
+
+    @Test
+    void reloadChangedResumes() throws IOException {
+        final var jane = registry.getResume("jane");
+        final var john = registry.getResume("john");
+        final var defaultResume = registry.getResume(null);
+        answerCache.put(jane, "Where are you based?", "Paris");
+        answerCache.put(john, "Where are you based?", "London");
+        assertThat(registry.reload()).isEmpty();
+        assertThat(events).isEmpty();
+
+        Files.writeString(directory.resolve("jane.md"), "My name is Jane Doe.");
+        Files.delete(directory.resolve("john.txt"));
+        Files.writeString(directory.resolve("alice.md"), "My name is Alice.");
+        assertThat(registry.reload()).containsExactly("alice", "jane", "john");
+        assertThat(events).containsExactly(new ResumesReloadedEvent(Set.of("alice", "jane", "john")));
+
+        assertThat(registry.getResume("jane").prefix().get(1).getText()).contains("My name is Jane Doe.");
+        assertThat(registry.getResume("alice")).isNotNull();
+        assertThatThrownBy(() -> registry.getResume("john")).isInstanceOf(ResumeNotFoundException.class);
+        // Unchanged resumes are kept as is.
+        assertThat(registry.getResume(null)).isSameAs(defaultResume);
+        // Answers cached for previous resumes are evicted.
+        assertThat(answerCache.get(jane, "Where are you based?")).isNull();
+        assertThat(answerCache.get(john, "Where are you based?")).isNull();
+    }
+
+    @Test
+    void keepUnchangedResumes() {
+        final var jane = registry.getResume("jane");
+        answerCache.put(jane, "Where are you based?", "Paris");
+        assertThat(registry.reload()).isEmpty();
+        assertThat(registry.getResume("jane")).isSameAs(jane);
+        assertThat(answerCache.get(jane, "Where are you based?")).isEqualTo("Paris");
+    }
+
+    @Test
+    void watchDirectory() throws IOException, InterruptedException {
+        registry.start();
+        Files.writeString(directory.resolve("alice.md"), "My name is Alice.");
+
+        final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (events.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(events).containsExactly(new ResumesReloadedEvent(Set.of("alice")));
+        assertThat(registry.getResume("alice").id()).isEqualTo("alice");
+    }
+
+    @Test
+    void scopeHistoryByResume() {
+        assertThat(registry.getHistoryId(registry.getResume(null), "abc")).isEqualTo("abc");
+        assertThat(registry.getHistoryId(registry.getResume("jane"), "abc")).isEqualTo("jane:abc");
+        assertThat(registry.getHistoryId(registry.getResume("jane"), null)).isNull();
+    }
+}
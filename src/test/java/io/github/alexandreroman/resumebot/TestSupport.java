@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2026 Alexandre Roman
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.alexandreroman.resumebot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Fixtures shared by tests which do not start the app.
+ */
+final class TestSupport {
+    private TestSupport() {
+    }
+
+    /**
+     * Load the app configuration from <code>application.yaml</code>.
+     *
+     * @param properties properties overriding the configuration
+     */
+    static AppConfig loadConfig(Map<String, Object> properties) {
+        final var env = new StandardEnvironment();
+        try {
+            for (final var source : new YamlPropertySourceLoader().load("application",
+                    new ClassPathResource("application.yaml"))) {
+                env.getPropertySources().addLast(source);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        env.getPropertySources().addFirst(new MapPropertySource("test", properties));
+        return new Binder(ConfigurationPropertySources.get(env)).bind("app", AppConfig.class).get();
+    }
+
+    /**
+     * Create a conversation store keeping conversations in memory.
+     */
+    static InMemoryConversationStore createConversationStore() {
+        final var config = new AppConfig.MemoryStore(1000, DataSize.ofMegabytes(16), 4,
+                null, Duration.ofMinutes(5));
+        return new InMemoryConversationStore(config, new SimpleMeterRegistry(), System::nanoTime);
+    }
+}
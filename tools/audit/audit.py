@@ -1,73 +1,86 @@
+import json
 import os
 import sys
+import urllib.error
+import urllib.parse
+import urllib.request
+from datetime import datetime, timezone
+
+
+def load_state(path):
+    if not path or not os.path.exists(path):
+        return {}
+    with open(path) as f:
+        return json.load(f)
+
+
+def save_state(path, state):
+    if not path:
+        return
+    tmp = path + ".tmp"
+    with open(tmp, "w") as f:
+        json.dump(state, f)
+    os.replace(tmp, path)
 
-try:
-    import redis
-except ImportError:
-    print("Error: The 'redis' library is not installed. Please install it using 'pip install redis'.", file=sys.stderr)
-    sys.exit(1)
 
 def main():
     # Configuration from environment variables
-    host = os.environ.get('REDIS_HOST', 'localhost')
+    url = os.environ.get('MANAGEMENT_URL', 'http://localhost:8081').rstrip('/') + '/actuator/conversations'
     try:
-        port = int(os.environ.get('REDIS_PORT', 6379))
+        batch_size = int(os.environ.get('BATCH_SIZE', 100))
     except ValueError:
-        print("Error: REDIS_PORT must be an integer.", file=sys.stderr)
+        print("Error: BATCH_SIZE must be an integer.", file=sys.stderr)
         sys.exit(1)
-        
-    user = os.environ.get('REDIS_USER')
-    password = os.environ.get('REDIS_PASSWORD')
 
-    # Connection to Redis
-    try:
-        r = redis.Redis(
-            host=host,
-            port=port,
-            username=user,
-            password=password,
-            decode_responses=True
-        )
-        # Test connection
-        r.ping()
-    except redis.exceptions.AuthenticationError:
-        print("Error: Authentication failed. Please check REDIS_USER and REDIS_PASSWORD.", file=sys.stderr)
-        sys.exit(1)
-    except Exception as e:
-        print(f"Error connecting to Redis: {e}", file=sys.stderr)
-        sys.exit(1)
-
-    pattern = "resumebot:conversations:*:messages"
+    # When a state file is set, each run exports the conversations updated since the previous run,
+    # and an interrupted run is resumed from its last cursor.
+    state_file = os.environ.get('STATE_FILE')
+    state = load_state(state_file)
+    since = os.environ.get('SINCE', state.get('since'))
+    until = os.environ.get('UNTIL', state.get('until'))
+    if state_file and not until:
+        until = datetime.now(timezone.utc).isoformat(timespec='seconds').replace('+00:00', 'Z')
+    cursor = state.get('cursor')
 
+    params = {'batchSize': batch_size}
+    if since:
+        params['since'] = since
+    if until:
+        params['until'] = until
+    if cursor:
+        params['cursor'] = cursor
 
-    # Iterate over keys matching the pattern
     try:
-        # scan_iter matches keys in the database.
-        # Note: Iterate order is undefined by Redis, but we process them as we find them.
-        for key in r.scan_iter(match=pattern):
-            # Key format: resumebot:conversations:{id}:messages
-            parts = key.split(':')
-            if len(parts) >= 4:
-                # conversation_id is at index 2
-                conversation_id = parts[2]
-            else:
-                conversation_id = key
-
-            # Fetch messages from the list
-            # We treat the key as a List, based on the application logic (MessageService.java)
-            messages = r.lrange(key, 0, -1)
-            
-            print(f"Conversation: {conversation_id}")
-            print()
-            for msg in messages:
-                print(f"{msg}")
-            print("-" * 20)
+        with urllib.request.urlopen(url + '?' + urllib.parse.urlencode(params)) as response:
+            # Conversations are streamed: process them line by line.
+            for line in response:
+                if not line.strip():
+                    continue
+                item = json.loads(line)
+                if 'cursor' in item:
+                    # All conversations before this cursor have been processed.
+                    save_state(state_file, {'since': since, 'until': until, 'cursor': item['cursor']})
+                    continue
 
-
-    except Exception as e:
-        print(f"Error processing keys: {e}", file=sys.stderr)
+                print(f"Conversation: {item['conversationId']}")
+                print()
+                if item.get('summary'):
+                    print(f"Summary: {item['summary']}")
+                for msg in item['messages']:
+                    prefix = 'A' if msg['role'] == 'assistant' else 'Q'
+                    print(f"{prefix}: {msg['text']}")
+                print("-" * 20)
+    except urllib.error.HTTPError as e:
+        print(f"Error exporting conversations: HTTP {e.code} {e.reason}", file=sys.stderr)
+        if e.code == 404:
+            print("The conversations endpoint is not exposed by default: see the README.", file=sys.stderr)
+        sys.exit(1)
+    except (urllib.error.URLError, OSError, ValueError) as e:
+        print(f"Error exporting conversations: {e}", file=sys.stderr)
         sys.exit(1)
 
+    # The export is complete: the next run starts where this one ended.
+    save_state(state_file, {'since': until})
 
 
 if __name__ == "__main__":